@@ -0,0 +1,83 @@
+package ir.ramtung.tinyme.bench;
+
+import ir.ramtung.tinyme.domain.entity.MatchResult;
+import ir.ramtung.tinyme.domain.entity.Order;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.entity.Trade;
+import ir.ramtung.tinyme.domain.service.AuctionMatcher;
+import ir.ramtung.tinyme.domain.service.updateOpeningPrice;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AuctionBenchmark {
+    @Param({"1000", "4000"})
+    public int entries;
+
+    @Param({"20", "2000"})
+    public int priceRange;
+
+    @Param({"0.5", "0.8"})
+    public double buyShare;
+
+    private AuctionFixture fixture;
+    private AuctionMatcher auctionMatcher;
+    private updateOpeningPrice openingPrice;
+    private boolean buySide;
+
+    @Setup(Level.Trial)
+    public void buildBook() {
+        fixture = new AuctionFixture(42, entries, priceRange, buyShare);
+        auctionMatcher = new AuctionMatcher();
+        openingPrice = new updateOpeningPrice();
+    }
+
+    @State(Scope.Thread)
+    public static class Entry {
+        private Order incoming;
+
+        @Setup(Level.Invocation)
+        public void prepare(AuctionBenchmark benchmark) {
+            benchmark.buySide = !benchmark.buySide;
+            incoming = benchmark.fixture.order(benchmark.buySide ? Side.BUY : Side.SELL);
+        }
+
+        @TearDown(Level.Invocation)
+        public void undo(AuctionBenchmark benchmark) {
+            benchmark.fixture.getOrderBook().removeByOrderId(incoming.getSide(), incoming.getOrderId(), false);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Uncrossing {
+        private AuctionFixture fresh;
+
+        @Setup(Level.Invocation)
+        public void prepare(AuctionBenchmark benchmark) {
+            fresh = new AuctionFixture(42, benchmark.entries, benchmark.priceRange, benchmark.buyShare);
+        }
+    }
+
+    @Benchmark
+    public List<Integer> findOpeningPrice() {
+        return openingPrice.findOpeningPrice(fixture.getSecurity());
+    }
+
+    @Benchmark
+    public MatchResult updateOpeningPriceWithNewOrder(Entry entry) {
+        return auctionMatcher.updateOpeningPriceWithNewOrder(entry.incoming);
+    }
+
+    @Benchmark
+    public LinkedList<Trade> execute(Uncrossing uncrossing) {
+        return auctionMatcher.execute(uncrossing.fresh.getSecurity());
+    }
+}
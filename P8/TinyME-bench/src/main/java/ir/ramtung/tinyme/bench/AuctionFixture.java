@@ -0,0 +1,53 @@
+package ir.ramtung.tinyme.bench;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class AuctionFixture {
+    public static final int MID_PRICE = 100_000;
+
+    private final Random random;
+    private final int priceRange;
+    private final Security security;
+    private final Broker broker;
+    private final Shareholder shareholder;
+    private long nextOrderId = 1;
+
+    public AuctionFixture(long seed, int entries, int priceRange, double buyShare) {
+        this.random = new Random(seed);
+        this.priceRange = priceRange;
+        security = Security.builder().isin("AUCTION").lastTradePrice(MID_PRICE).matchingState(MatchingState.AUCTION).build();
+        broker = Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 4).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, Integer.MAX_VALUE / 2);
+
+        int buys = (int) (entries * buyShare);
+        List<Order> buyOrders = new ArrayList<>(buys);
+        List<Order> sellOrders = new ArrayList<>(entries - buys);
+        for (int i = 0; i < buys; i++)
+            buyOrders.add(order(Side.BUY));
+        for (int i = buys; i < entries; i++)
+            sellOrders.add(order(Side.SELL));
+        BookFixture.enqueueWorstFirst(getOrderBook(), buyOrders, Side.BUY, false);
+        BookFixture.enqueueWorstFirst(getOrderBook(), sellOrders, Side.SELL, false);
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public OrderBook getOrderBook() {
+        return security.getOrderBook();
+    }
+
+    public Order order(Side side) {
+        int price = MID_PRICE - priceRange / 2 + random.nextInt(priceRange + 1);
+        int quantity = 100 + random.nextInt(900);
+        return Order.builder().orderId(nextOrderId++).security(security).side(side).quantity(quantity).price(price).
+                broker(broker).shareholder(shareholder).build();
+    }
+}
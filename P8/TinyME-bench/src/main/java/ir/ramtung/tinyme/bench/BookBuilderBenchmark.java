@@ -0,0 +1,104 @@
+package ir.ramtung.tinyme.bench;
+
+import ir.ramtung.tinyme.bench.loadgen.FlowRequests;
+import ir.ramtung.tinyme.bench.versions.FlowRecord;
+import ir.ramtung.tinyme.bench.versions.RecordedFlow;
+import ir.ramtung.tinyme.bench.workload.ReferenceData;
+import ir.ramtung.tinyme.bench.workload.WorkloadGenerator;
+import ir.ramtung.tinyme.bench.workload.WorkloadProfile;
+import ir.ramtung.tinyme.client.BookBuilder;
+import ir.ramtung.tinyme.domain.service.AuctionMatcher;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BookBuilderBenchmark {
+    @Param({"100000"})
+    public int requests;
+
+    private Object[] stream;
+    private long[] sequences;
+    private int next;
+    private BookBuilder bookBuilder;
+
+    @Setup(Level.Trial)
+    public void recordStream() {
+        RecordedFlow flow = WorkloadGenerator.generate(42, WorkloadProfile.DEFAULT, requests);
+        SecurityRepository securityRepository = new SecurityRepository();
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        ReferenceData.seed(flow, securityRepository, brokerRepository, shareholderRepository);
+        List<Object> recorded = new ArrayList<>();
+        EventPublisher eventPublisher = new EventPublisher(null) {
+            @Override
+            public void publish(Event event) {
+                recorded.add(event);
+            }
+        };
+        OrderHandler orderHandler = OrderHandler.builder()
+                .securityRepository(securityRepository)
+                .brokerRepository(brokerRepository)
+                .shareholderRepository(shareholderRepository)
+                .eventPublisher(eventPublisher)
+                .build();
+        LocalDateTime entryTime = LocalDateTime.now();
+        for (FlowRecord record : flow.getRequests()) {
+            Object request = FlowRequests.toRequest(record, entryTime);
+            recorded.add(request);
+            if (request instanceof EnterOrderRq enterOrderRq)
+                orderHandler.handleEnterOrder(enterOrderRq);
+            else if (request instanceof DeleteOrderRq deleteOrderRq)
+                orderHandler.handleDeleteOrder(deleteOrderRq);
+            else
+                orderHandler.handleChangeMatchingState((ChangeMatchingStateRq) request);
+        }
+        stream = recorded.toArray();
+        sequences = new long[stream.length];
+        long sequence = 0;
+        for (int i = 0; i < stream.length; i++) {
+            if (stream[i] instanceof Event)
+                sequences[i] = ++sequence;
+        }
+        System.out.println("\nRecorded " + stream.length + " requests and events");
+    }
+
+    @Setup(Level.Iteration)
+    public void freshReplica() {
+        bookBuilder = new BookBuilder();
+        next = 0;
+    }
+
+    @Benchmark
+    public BookBuilder apply() {
+        if (next == stream.length) {
+            bookBuilder = new BookBuilder();
+            next = 0;
+        }
+        Object message = stream[next];
+        long sequence = sequences[next++];
+        if (message instanceof Event event)
+            bookBuilder.onEvent(sequence, event);
+        else
+            bookBuilder.onRequest(message);
+        return bookBuilder;
+    }
+}
@@ -0,0 +1,147 @@
+package ir.ramtung.tinyme.bench;
+
+import ir.ramtung.tinyme.domain.entity.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Random;
+
+public class BookFixture {
+    public static final int MID_PRICE = 100_000;
+
+    private final Random random;
+    private final int priceDispersion;
+    private final double icebergShare;
+    private final Security security;
+    private final Broker broker;
+    private final Shareholder shareholder;
+    private final long[] buyOrderIds;
+    private final long[] sellOrderIds;
+    private final Map<Long, Order> restingOrders = new HashMap<>();
+    private long nextOrderId = 1;
+
+    public BookFixture(long seed, int depth, int priceDispersion, double icebergShare, double stopShare) {
+        this.random = new Random(seed);
+        this.priceDispersion = priceDispersion;
+        this.icebergShare = icebergShare;
+        security = Security.builder().isin("BENCH").lastTradePrice(MID_PRICE).build();
+        broker = Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 4).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, Integer.MAX_VALUE / 2);
+
+        buyOrderIds = fill(Side.BUY, depth, false);
+        sellOrderIds = fill(Side.SELL, depth, false);
+        int stops = (int) (depth * stopShare);
+        fill(Side.BUY, stops, true);
+        fill(Side.SELL, stops, true);
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public OrderBook getOrderBook() {
+        return security.getOrderBook();
+    }
+
+    public long[] getRestingOrderIds(Side side) {
+        return side == Side.BUY ? buyOrderIds : sellOrderIds;
+    }
+
+    public Order passiveOrder(Side side) {
+        return order(side, passivePrice(side), 0);
+    }
+
+    public Order aggressiveOrder(Side side, int restingOrdersToSweep) {
+        List<Order> opposite = side == Side.BUY ? getOrderBook().getSellQueue() : getOrderBook().getBuyQueue();
+        int quantity = 0;
+        int swept = 0;
+        for (Order resting : opposite) {
+            if (swept++ == restingOrdersToSweep)
+                break;
+            quantity += resting.getQuantity();
+        }
+        int price = side == Side.BUY ? MID_PRICE + priceDispersion : MID_PRICE - priceDispersion;
+        return Order.builder().orderId(nextOrderId++).security(security).side(side).quantity(quantity).price(price).
+                broker(broker).shareholder(shareholder).build();
+    }
+
+    /**
+     * Puts the book back as it was before {@code results} were matched, restoring the resting orders that traded
+     * and removing any remainder that came to rest.
+     *
+     * @return {@code false} if the results include stop activations, which cannot be undone, so the fixture has to
+     * be rebuilt instead
+     */
+    public boolean undo(List<MatchResult> results) {
+        for (MatchResult result : results) {
+            if (result.outcome() == MatchingOutcome.STOP_LIMIT_ORDER_ACTIVATED)
+                return false;
+        }
+        OrderBook orderBook = getOrderBook();
+        ListIterator<MatchResult> pending = results.listIterator(results.size());
+        while (pending.hasPrevious()) {
+            MatchResult result = pending.previous();
+            if (result.outcome() != MatchingOutcome.EXECUTED)
+                continue;
+            Order remainder = result.remainder();
+            if (remainder.getQuantity() > 0)
+                orderBook.removeByOrderId(remainder.getSide(), remainder.getOrderId(), false);
+            ListIterator<Trade> it = result.trades().listIterator(result.trades().size());
+            while (it.hasPrevious()) {
+                Trade trade = it.previous();
+                if (trade.getBuyOrderId() == remainder.getOrderId())
+                    orderBook.restoreSellOrder(restingOrders.get(trade.getSellOrderId()), trade.getQuantity());
+                else
+                    orderBook.restoreBuyOrder(restingOrders.get(trade.getBuyOrderId()), trade.getQuantity());
+            }
+        }
+        security.setLastTradePrice(MID_PRICE);
+        return true;
+    }
+
+    private long[] fill(Side side, int count, boolean stop) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            orders.add(stop ? order(side, 0, stopPrice(side)) : order(side, passivePrice(side), 0));
+        orders.forEach(order -> restingOrders.put(order.getOrderId(), order));
+
+        enqueueWorstFirst(getOrderBook(), orders, side, stop);
+        return orders.stream().mapToLong(Order::getOrderId).toArray();
+    }
+
+    static void enqueueWorstFirst(OrderBook orderBook, List<Order> orders, Side side, boolean stop) {
+        Comparator<Order> byPrice = Comparator.comparingInt(order -> stop ? order.getStopPrice() : order.getPrice());
+        boolean bestIsHighest = side == Side.BUY;
+        orders.stream()
+                .sorted(bestIsHighest ? byPrice : byPrice.reversed())
+                .forEach(orderBook::enqueue);
+    }
+
+    private int passivePrice(Side side) {
+        int offset = 1 + random.nextInt(priceDispersion);
+        return side == Side.BUY ? MID_PRICE - offset : MID_PRICE + offset;
+    }
+
+    private int stopPrice(Side side) {
+        int offset = priceDispersion + 1 + random.nextInt(priceDispersion);
+        return side == Side.BUY ? MID_PRICE + offset : MID_PRICE - offset;
+    }
+
+    private Order order(Side side, int price, int stopPrice) {
+        long orderId = nextOrderId++;
+        int quantity = 100 + random.nextInt(900);
+        if (stopPrice != 0)
+            price = stopPrice;
+        if (random.nextDouble() < icebergShare)
+            return IcebergOrder.builder().orderId(orderId).security(security).side(side).quantity(quantity).price(price).
+                    broker(broker).shareholder(shareholder).peakSize(Math.max(1, quantity / 4)).
+                    stopPrice(stopPrice).inactive(stopPrice != 0).build();
+        return Order.builder().orderId(orderId).security(security).side(side).quantity(quantity).price(price).
+                broker(broker).shareholder(shareholder).stopPrice(stopPrice).inactive(stopPrice != 0).build();
+    }
+}
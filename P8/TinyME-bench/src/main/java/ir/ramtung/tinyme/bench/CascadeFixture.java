@@ -0,0 +1,81 @@
+package ir.ramtung.tinyme.bench;
+
+import ir.ramtung.tinyme.domain.entity.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CascadeFixture {
+    public static final int MID_PRICE = 100_000;
+    private static final int ORDERS_PER_LEVEL = 4;
+
+    private final Random random;
+    private final Security security;
+    private final Broker broker;
+    private final Shareholder shareholder;
+    private final int firstLevelQuantity;
+    private long nextOrderId = 1;
+
+    public CascadeFixture(long seed, int stops, int clusterTicks) {
+        this.random = new Random(seed);
+        security = Security.builder().isin("CASCADE").lastTradePrice(MID_PRICE).build();
+        broker = Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 4).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, Integer.MAX_VALUE / 2);
+
+        int buyStops = stops / 2;
+        List<Order> buyStopOrders = new ArrayList<>(buyStops);
+        List<Order> sellStopOrders = new ArrayList<>(stops - buyStops);
+        long buyStopQuantity = 0;
+        for (int i = 0; i < buyStops; i++) {
+            int stopPrice = MID_PRICE + 1 + random.nextInt(clusterTicks);
+            Order order = stop(Side.BUY, stopPrice, stopPrice + clusterTicks);
+            buyStopQuantity += order.getQuantity();
+            buyStopOrders.add(order);
+        }
+        for (int i = buyStops; i < stops; i++) {
+            int stopPrice = MID_PRICE - 1 - random.nextInt(clusterTicks);
+            sellStopOrders.add(stop(Side.SELL, stopPrice, stopPrice - clusterTicks));
+        }
+
+        int levels = 2 * clusterTicks + 10;
+        int levelQuantity = (int) Math.max(100, buyStopQuantity / clusterTicks / 2);
+        firstLevelQuantity = levelQuantity / ORDERS_PER_LEVEL * ORDERS_PER_LEVEL;
+        List<Order> sellOrders = new ArrayList<>(levels * ORDERS_PER_LEVEL);
+        List<Order> buyOrders = new ArrayList<>(levels * ORDERS_PER_LEVEL);
+        for (int level = 1; level <= levels; level++) {
+            for (int i = 0; i < ORDERS_PER_LEVEL; i++) {
+                sellOrders.add(limit(Side.SELL, MID_PRICE + level, levelQuantity / ORDERS_PER_LEVEL));
+                buyOrders.add(limit(Side.BUY, MID_PRICE - level, levelQuantity / ORDERS_PER_LEVEL));
+            }
+        }
+        BookFixture.enqueueWorstFirst(getOrderBook(), sellOrders, Side.SELL, false);
+        BookFixture.enqueueWorstFirst(getOrderBook(), buyOrders, Side.BUY, false);
+        BookFixture.enqueueWorstFirst(getOrderBook(), buyStopOrders, Side.BUY, true);
+        BookFixture.enqueueWorstFirst(getOrderBook(), sellStopOrders, Side.SELL, true);
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public OrderBook getOrderBook() {
+        return security.getOrderBook();
+    }
+
+    public Order trigger() {
+        return limit(Side.BUY, MID_PRICE + 1, firstLevelQuantity);
+    }
+
+    private Order limit(Side side, int price, int quantity) {
+        return Order.builder().orderId(nextOrderId++).security(security).side(side).quantity(quantity).price(price).
+                broker(broker).shareholder(shareholder).build();
+    }
+
+    private Order stop(Side side, int stopPrice, int price) {
+        int quantity = 10 * (1 + random.nextInt(10));
+        return Order.builder().orderId(nextOrderId++).security(security).side(side).quantity(quantity).price(price).
+                broker(broker).shareholder(shareholder).stopPrice(stopPrice).inactive(true).build();
+    }
+}
@@ -0,0 +1,64 @@
+package ir.ramtung.tinyme.bench;
+
+import ir.ramtung.tinyme.domain.entity.MatchResult;
+import ir.ramtung.tinyme.domain.entity.Order;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ContinuousMatcherBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int depth;
+
+    @Param({"10", "1000"})
+    public int priceDispersion;
+
+    @Param({"0", "0.2"})
+    public double icebergShare;
+
+    @Param({"0", "0.2"})
+    public double stopShare;
+
+    @Param({"1", "10"})
+    public int sweep;
+
+    private BookFixture fixture;
+    private ContinuousMatcher continuousMatcher;
+    private Order aggressor;
+    private LinkedList<MatchResult> results;
+    private boolean buySide;
+
+    @Setup(Level.Trial)
+    public void buildBook() {
+        fixture = new BookFixture(42, depth, priceDispersion, icebergShare, stopShare);
+        continuousMatcher = new ContinuousMatcher();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareAggressor() {
+        buySide = !buySide;
+        aggressor = fixture.aggressiveOrder(buySide ? Side.BUY : Side.SELL, sweep);
+        continuousMatcher.clearMatchResults();
+    }
+
+    @TearDown(Level.Invocation)
+    public void undoMatch() {
+        if (!fixture.undo(results))
+            buildBook();
+    }
+
+    @Benchmark
+    public LinkedList<MatchResult> execute() {
+        results = continuousMatcher.execute(aggressor);
+        return results;
+    }
+}
@@ -0,0 +1,78 @@
+package ir.ramtung.tinyme.bench;
+
+import ir.ramtung.tinyme.domain.entity.Order;
+import ir.ramtung.tinyme.domain.entity.OrderBook;
+import ir.ramtung.tinyme.domain.entity.Side;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBookBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int depth;
+
+    @Param({"10", "1000"})
+    public int priceDispersion;
+
+    @Param({"0", "0.2"})
+    public double icebergShare;
+
+    @Param({"0", "0.2"})
+    public double stopShare;
+
+    private BookFixture fixture;
+    private OrderBook orderBook;
+    private long[] buyOrderIds;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void buildBook() {
+        fixture = new BookFixture(42, depth, priceDispersion, icebergShare, stopShare);
+        orderBook = fixture.getOrderBook();
+        buyOrderIds = fixture.getRestingOrderIds(Side.BUY);
+    }
+
+    @State(Scope.Thread)
+    public static class Mutation {
+        private Order incoming;
+        private Order resting;
+
+        @Setup(Level.Invocation)
+        public void prepare(OrderBookBenchmark benchmark) {
+            incoming = benchmark.fixture.passiveOrder(Side.BUY);
+            benchmark.cursor = (benchmark.cursor + 1) % benchmark.buyOrderIds.length;
+            resting = benchmark.orderBook.findByOrderId(Side.BUY, benchmark.buyOrderIds[benchmark.cursor], false);
+        }
+
+        @TearDown(Level.Invocation)
+        public void undo(OrderBookBenchmark benchmark) {
+            OrderBook orderBook = benchmark.orderBook;
+            if (incoming.getSequence() != 0)
+                orderBook.removeByOrderId(Side.BUY, incoming.getOrderId(), false);
+            if (orderBook.findByOrderId(Side.BUY, resting.getOrderId(), false) == null)
+                orderBook.restore(resting);
+        }
+    }
+
+    @Benchmark
+    public Order findByOrderId() {
+        cursor = cursor + 1 == buyOrderIds.length ? 0 : cursor + 1;
+        return orderBook.findByOrderId(Side.BUY, buyOrderIds[cursor], false);
+    }
+
+    @Benchmark
+    public void enqueue(Mutation mutation) {
+        orderBook.enqueue(mutation.incoming);
+    }
+
+    @Benchmark
+    public void removeByOrderId(Mutation mutation) {
+        orderBook.removeByOrderId(Side.BUY, mutation.resting.getOrderId(), false);
+    }
+}
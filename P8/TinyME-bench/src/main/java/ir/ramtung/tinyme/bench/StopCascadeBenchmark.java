@@ -0,0 +1,65 @@
+package ir.ramtung.tinyme.bench;
+
+import ir.ramtung.tinyme.domain.entity.MatchResult;
+import ir.ramtung.tinyme.domain.entity.MatchingOutcome;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.domain.service.Recycler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedList;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class StopCascadeBenchmark {
+    @Param({"1000", "10000", "30000"})
+    public int stops;
+
+    @Param({"10", "100"})
+    public int clusterTicks;
+
+    private final ContinuousMatcher continuousMatcher = new ContinuousMatcher(Recycler.disabled(), Integer.MAX_VALUE);
+    private final LongSummaryStatistics cascadeLengths = new LongSummaryStatistics();
+    private CascadeFixture fixture;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Activations {
+        public long activatedOrders;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            activatedOrders = 0;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void buildBook() {
+        fixture = new CascadeFixture(42, stops, clusterTicks);
+        continuousMatcher.clearMatchResults();
+    }
+
+    @TearDown(Level.Trial)
+    public void reportCascadeLength() {
+        System.out.printf("%ncascade length: min %d, mean %.1f, max %d over %d cascades%n", cascadeLengths.getMin(),
+                cascadeLengths.getAverage(), cascadeLengths.getMax(), cascadeLengths.getCount());
+    }
+
+    @Benchmark
+    public LinkedList<MatchResult> cascade(Activations activations) {
+        LinkedList<MatchResult> results = continuousMatcher.execute(fixture.trigger());
+        long activated = 0;
+        for (MatchResult result : results) {
+            if (result.outcome() == MatchingOutcome.STOP_LIMIT_ORDER_ACTIVATED)
+                activated++;
+        }
+        activations.activatedOrders += activated;
+        cascadeLengths.accept(activated);
+        return results;
+    }
+}
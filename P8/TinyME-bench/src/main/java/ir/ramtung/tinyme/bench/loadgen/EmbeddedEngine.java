@@ -0,0 +1,60 @@
+package ir.ramtung.tinyme.bench.loadgen;
+
+import ir.ramtung.tinyme.TinyMeApplication;
+import ir.ramtung.tinyme.bench.versions.RecordedFlow;
+import ir.ramtung.tinyme.bench.workload.ReferenceData;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+public class EmbeddedEngine implements AutoCloseable {
+    private final EmbeddedActiveMQ broker;
+    private final ConfigurableApplicationContext context;
+    private final String brokerUrl;
+
+    public EmbeddedEngine(int port, String requestQueue, String responseQueue, String marketDataQueue) throws Exception {
+        brokerUrl = "tcp://127.0.0.1:" + port;
+        Configuration configuration = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .addAcceptorConfiguration("tcp", brokerUrl);
+        broker = new EmbeddedActiveMQ().setConfiguration(configuration);
+        broker.start();
+
+        context = new SpringApplicationBuilder(TinyMeApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .properties("spring.artemis.mode=native",
+                        "spring.artemis.broker-url=" + brokerUrl,
+                        "requestQueue=" + requestQueue,
+                        "responseQueue=" + responseQueue,
+                        "marketDataQueue=" + marketDataQueue,
+                        "latency.enabled=true",
+                        "monitoring.jmx.enabled=true",
+                        "depth.enabled=true",
+                        "bbo.enabled=true",
+                        "bars.enabled=true")
+                .run();
+    }
+
+    public String getBrokerUrl() {
+        return brokerUrl;
+    }
+
+    public void load(RecordedFlow flow) {
+        ReferenceData.seed(flow, context.getBean(SecurityRepository.class), context.getBean(BrokerRepository.class),
+                context.getBean(ShareholderRepository.class));
+    }
+
+    @Override
+    public void close() throws Exception {
+        context.close();
+        broker.stop();
+    }
+}
@@ -0,0 +1,28 @@
+package ir.ramtung.tinyme.bench.loadgen;
+
+import ir.ramtung.tinyme.bench.versions.FlowRecord;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+
+import java.time.LocalDateTime;
+
+public class FlowRequests {
+    private FlowRequests() {
+    }
+
+    public static Object toRequest(FlowRecord record, LocalDateTime entryTime) {
+        return switch (record.kind()) {
+            case NEW -> EnterOrderRq.createNewOrderRq(record.requestId(), record.isin(), record.orderId(), entryTime,
+                    Side.valueOf(record.side()), record.quantity(), record.price(), record.brokerId(), record.shareholderId(),
+                    record.peakSize(), record.minimumExecutionQuantity(), record.stopPrice(), false);
+            case UPDATE -> EnterOrderRq.createUpdateOrderRq(record.requestId(), record.isin(), record.orderId(), entryTime,
+                    Side.valueOf(record.side()), record.quantity(), record.price(), record.brokerId(), record.shareholderId(),
+                    record.peakSize(), record.minimumExecutionQuantity(), record.stopPrice(), false);
+            case DELETE -> new DeleteOrderRq(record.requestId(), record.isin(), Side.valueOf(record.side()), record.orderId());
+            case STATE -> new ChangeMatchingStateRq(record.isin(), MatchingState.valueOf(record.targetState()));
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package ir.ramtung.tinyme.bench.loadgen;
+
+import ir.ramtung.tinyme.bench.versions.FlowRecord;
+import ir.ramtung.tinyme.bench.versions.RecordedFlow;
+import ir.ramtung.tinyme.messaging.MessagingConfig;
+import jakarta.jms.Connection;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.Session;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class LoadGenerator {
+    private static final Logger ENGINE_LOGGER = Logger.getLogger("ir.ramtung.tinyme");
+    private static final String REQUEST_QUEUE = "RQ";
+    private static final String RESPONSE_QUEUE = "RS";
+    private static final String MARKET_DATA_QUEUE = "MD";
+
+    public static void main(String[] args) throws Exception {
+        int port = 61617;
+        int requestCount = 100_000;
+        int warmup = 10_000;
+        int rate = 0;
+        int timeoutSeconds = 60;
+        Path flowFile = null;
+        RecordedFlow.Mix defaults = RecordedFlow.Mix.DEFAULT;
+        double deleteShare = defaults.deleteShare();
+        double updateShare = defaults.updateShare();
+        double icebergShare = defaults.icebergShare();
+        double stopShare = defaults.stopShare();
+        for (int i = 0; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[i + 1]);
+                case "--requests" -> requestCount = Integer.parseInt(args[i + 1]);
+                case "--warmup" -> warmup = Integer.parseInt(args[i + 1]);
+                case "--rate" -> rate = Integer.parseInt(args[i + 1]);
+                case "--timeout" -> timeoutSeconds = Integer.parseInt(args[i + 1]);
+                case "--flow" -> flowFile = Path.of(args[i + 1]);
+                case "--delete-share" -> deleteShare = Double.parseDouble(args[i + 1]);
+                case "--update-share" -> updateShare = Double.parseDouble(args[i + 1]);
+                case "--iceberg-share" -> icebergShare = Double.parseDouble(args[i + 1]);
+                case "--stop-share" -> stopShare = Double.parseDouble(args[i + 1]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        RecordedFlow flow = flowFile != null ? RecordedFlow.read(flowFile)
+                : RecordedFlow.synthetic(42, requestCount, new RecordedFlow.Mix(deleteShare, updateShare, icebergShare, stopShare));
+        ENGINE_LOGGER.setLevel(Level.WARNING);
+
+        try (EmbeddedEngine engine = new EmbeddedEngine(port, REQUEST_QUEUE, RESPONSE_QUEUE, MARKET_DATA_QUEUE)) {
+            engine.load(flow);
+            run(engine.getBrokerUrl(), flow, Math.min(warmup, flow.getRequests().size()), rate, timeoutSeconds);
+        }
+    }
+
+    private static void run(String brokerUrl, RecordedFlow flow, int warmup, int rate, int timeoutSeconds) throws Exception {
+        LocalDateTime entryTime = LocalDateTime.now();
+        List<FlowRecord> records = flow.getRequests();
+        List<Object> requests = new ArrayList<>(records.size());
+        Map<Long, Integer> indexByRequestId = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            requests.add(FlowRequests.toRequest(records.get(i), entryTime));
+            if (records.get(i).requestId() != 0)
+                indexByRequestId.put(records.get(i).requestId(), i);
+        }
+
+        ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(brokerUrl);
+        AtomicLongArray sentAt = new AtomicLongArray(requests.size());
+        ResponseTracker tracker = new ResponseTracker(indexByRequestId, sentAt);
+        try (Connection connection = connectionFactory.createConnection()) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageConsumer consumer = session.createConsumer(session.createQueue(RESPONSE_QUEUE));
+            consumer.setMessageListener(tracker);
+            AtomicLong marketDataEvents = new AtomicLong();
+            MessageConsumer marketDataConsumer = session.createConsumer(session.createQueue(MARKET_DATA_QUEUE));
+            marketDataConsumer.setMessageListener(message -> marketDataEvents.incrementAndGet());
+            connection.start();
+
+            CachingConnectionFactory sendingFactory = new CachingConnectionFactory(connectionFactory);
+            JmsTemplate jmsTemplate = new JmsTemplate(sendingFactory);
+            jmsTemplate.setMessageConverter(new MessagingConfig().jacksonJmsMessageConverter());
+
+            long interval = rate > 0 ? 1_000_000_000L / rate : 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < requests.size(); i++) {
+                long intended = start + i * interval;
+                if (interval > 0) {
+                    while (System.nanoTime() < intended)
+                        Thread.onSpinWait();
+                }
+                sentAt.set(i, interval > 0 ? intended : System.nanoTime());
+                jmsTemplate.convertAndSend(REQUEST_QUEUE, requests.get(i));
+            }
+
+            long deadline = System.nanoTime() + timeoutSeconds * 1_000_000_000L;
+            while (tracker.getAnswered() < indexByRequestId.size() && System.nanoTime() < deadline)
+                Thread.sleep(10);
+            sendingFactory.destroy();
+            report(records, warmup, sentAt, tracker, marketDataEvents.get());
+        }
+    }
+
+    private static void report(List<FlowRecord> records, int warmup, AtomicLongArray sentAt, ResponseTracker tracker, long marketDataEvents) {
+        long[] latencies = tracker.getLatencies();
+        int expected = 0;
+        for (int i = warmup; i < records.size(); i++) {
+            if (records.get(i).requestId() != 0)
+                expected++;
+        }
+        long[] measured = Arrays.stream(latencies, warmup, latencies.length).filter(latency -> latency != 0).sorted().toArray();
+        double seconds = (tracker.getLastAnswerAt() - sentAt.get(warmup)) / 1e9;
+
+        System.out.printf("requests sent: %d (first %d are warm-up)%n", records.size(), warmup);
+        System.out.printf("events received: %d%n", tracker.getEvents());
+        System.out.printf("market data events received: %d%n", marketDataEvents);
+        System.out.printf("measured requests answered: %d of %d%n", measured.length, expected);
+        if (measured.length == 0)
+            return;
+        System.out.printf("sustained throughput: %.0f req/s%n", measured.length / seconds);
+        System.out.printf("latency us: p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                percentile(measured, 50), percentile(measured, 90), percentile(measured, 99),
+                percentile(measured, 99.9), percentile(measured, 100));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e3;
+    }
+}
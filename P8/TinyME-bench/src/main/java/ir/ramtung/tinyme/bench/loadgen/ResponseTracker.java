@@ -0,0 +1,63 @@
+package ir.ramtung.tinyme.bench.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageListener;
+import jakarta.jms.TextMessage;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class ResponseTracker implements MessageListener {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<Long, Integer> indexByRequestId;
+    private final AtomicLongArray sentAt;
+    private final long[] latencies;
+    private final AtomicInteger answered = new AtomicInteger();
+    private final AtomicLong events = new AtomicLong();
+    private volatile long lastAnswerAt;
+
+    ResponseTracker(Map<Long, Integer> indexByRequestId, AtomicLongArray sentAt) {
+        this.indexByRequestId = indexByRequestId;
+        this.sentAt = sentAt;
+        this.latencies = new long[sentAt.length()];
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        long now = System.nanoTime();
+        events.incrementAndGet();
+        try {
+            String text = ((TextMessage) message).getText();
+            long requestId = mapper.readTree(text).path("requestId").asLong(0);
+            Integer index = indexByRequestId.get(requestId);
+            if (index == null || latencies[index] != 0)
+                return;
+            latencies[index] = Math.max(1, now - sentAt.get(index));
+            lastAnswerAt = now;
+            answered.incrementAndGet();
+        } catch (JMSException | IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    int getAnswered() {
+        return answered.get();
+    }
+
+    long getEvents() {
+        return events.get();
+    }
+
+    long getLastAnswerAt() {
+        return lastAnswerAt;
+    }
+
+    long[] getLatencies() {
+        return latencies;
+    }
+}
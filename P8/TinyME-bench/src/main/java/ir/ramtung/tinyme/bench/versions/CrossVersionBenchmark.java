@@ -0,0 +1,154 @@
+package ir.ramtung.tinyme.bench.versions;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class CrossVersionBenchmark {
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final String FEATURES = "latency.enabled=true,monitoring.jmx.enabled=true,depth.enabled=true,bbo.enabled=true,bars.enabled=true";
+
+    record Replay(int requests, long elapsedNanos, long allocatedBytes, long events, long failures) {
+    }
+
+    record Result(String version, int requests, int skipped, long failures, long events, double throughput, long[] latencies, double bytesPerRequest) {
+        long percentile(double p) {
+            int index = (int) Math.ceil(p / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path root = Path.of("../..");
+        List<String> versions = List.of("P4", "P5", "P6", "P7", "P8");
+        Path flowFile = null;
+        int requestCount = 100_000;
+        int warmups = 3;
+        int runs = 5;
+        String settings = FEATURES;
+        for (int i = 0; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--root" -> root = Path.of(args[i + 1]);
+                case "--versions" -> versions = List.of(args[i + 1].split(","));
+                case "--flow" -> flowFile = Path.of(args[i + 1]);
+                case "--requests" -> requestCount = Integer.parseInt(args[i + 1]);
+                case "--warmups" -> warmups = Integer.parseInt(args[i + 1]);
+                case "--runs" -> runs = Integer.parseInt(args[i + 1]);
+                case "--set" -> settings = args[i + 1];
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        RecordedFlow flow = flowFile != null ? RecordedFlow.read(flowFile) : RecordedFlow.synthetic(42, requestCount);
+
+        Map<String, String> overrides = new HashMap<>();
+        for (String setting : settings.split(",")) {
+            if (!setting.isBlank())
+                overrides.put(setting.substring(0, setting.indexOf('=')).trim(), setting.substring(setting.indexOf('=') + 1).trim());
+        }
+        List<VersionedEngine> engines = new ArrayList<>();
+        for (String version : versions)
+            engines.add(VersionedEngine.load(version, root.resolve(version).resolve("TinyME-main/target/classes"), overrides));
+
+        boolean[] common = new boolean[flow.getRequests().size()];
+        Arrays.fill(common, true);
+        int[] skipped = new int[engines.size()];
+        for (int e = 0; e < engines.size(); e++) {
+            VersionedEngine engine = engines.get(e);
+            engine.reset(flow);
+            List<VersionedEngine.PreparedRequest> prepared = engine.prepare(flow.getRequests());
+            for (int i = 0; i < prepared.size(); i++) {
+                if (prepared.get(i) == null) {
+                    common[i] = false;
+                    skipped[e]++;
+                }
+            }
+        }
+        List<FlowRecord> commonRequests = new ArrayList<>();
+        for (int i = 0; i < common.length; i++) {
+            if (common[i])
+                commonRequests.add(flow.getRequests().get(i));
+        }
+        RecordedFlow commonFlow = flow.withRequests(commonRequests);
+
+        List<Result> results = new ArrayList<>();
+        for (int e = 0; e < engines.size(); e++)
+            results.add(run(engines.get(e), commonFlow, skipped[e], warmups, runs));
+        print(flow, commonFlow, engines, results);
+    }
+
+    static Result run(VersionedEngine engine, RecordedFlow flow, int skipped, int warmups, int runs) throws ReflectiveOperationException {
+        long[] scratch = new long[flow.getRequests().size()];
+        for (int i = 0; i < warmups; i++)
+            replay(engine, flow, scratch, 0);
+
+        long[] latencies = new long[flow.getRequests().size() * runs];
+        int supported = 0;
+        long elapsed = 0;
+        long allocated = 0;
+        long events = 0;
+        long failures = 0;
+        for (int i = 0; i < runs; i++) {
+            Replay replay = replay(engine, flow, latencies, supported * i);
+            supported = replay.requests();
+            elapsed += replay.elapsedNanos();
+            allocated += replay.allocatedBytes();
+            events += replay.events();
+            failures += replay.failures();
+        }
+        long measured = (long) supported * runs;
+        long[] recorded = Arrays.copyOf(latencies, (int) measured);
+        Arrays.sort(recorded);
+        return new Result(engine.getName(), supported, skipped, failures / runs, events / runs,
+                measured / (elapsed / 1e9), recorded, (double) allocated / measured);
+    }
+
+    static Replay replay(VersionedEngine engine, RecordedFlow flow, long[] latencies, int offset) throws ReflectiveOperationException {
+        engine.reset(flow);
+        List<VersionedEngine.PreparedRequest> requests = engine.prepare(flow.getRequests()).stream()
+                .filter(Objects::nonNull)
+                .toList();
+
+        long eventsBefore = engine.getPublishedEvents();
+        long failuresBefore = engine.getFailedRequests();
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long last = start;
+        for (int i = 0; i < requests.size(); i++) {
+            engine.handle(requests.get(i));
+            long now = System.nanoTime();
+            latencies[offset + i] = now - last;
+            last = now;
+        }
+        long elapsed = last - start;
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+        return new Replay(requests.size(), elapsed, allocated, engine.getPublishedEvents() - eventsBefore,
+                engine.getFailedRequests() - failuresBefore);
+    }
+
+    private static void print(RecordedFlow flow, RecordedFlow commonFlow, List<VersionedEngine> engines, List<Result> results) {
+        System.out.printf("flow: %d requests on %d securities; every version replays the %d requests all of them can express%n",
+                flow.getRequests().size(), flow.getSecurities().size(), commonFlow.getRequests().size());
+        for (VersionedEngine engine : engines) {
+            if (!engine.getSettings().isEmpty())
+                System.out.printf("%s wired from application.properties and --set: %s%n", engine.getName(), engine.getSettings());
+            if (!engine.getUnwired().isEmpty())
+                System.out.printf("%s left at no-op defaults: %s%n", engine.getName(), engine.getUnwired());
+        }
+        System.out.println();
+        System.out.printf("%-8s %9s %8s %8s %10s %12s %9s %9s %9s %10s %10s %12s%n", "version", "requests", "skipped",
+                "failed", "events", "req/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us", "bytes/req");
+        for (Result result : results) {
+            System.out.printf("%-8s %9d %8d %8d %10d %12.0f %9.1f %9.1f %9.1f %10.1f %10.1f %12.0f%n", result.version(),
+                    result.requests(), result.skipped(), result.failures(), result.events(), result.throughput(),
+                    result.percentile(50) / 1e3, result.percentile(90) / 1e3, result.percentile(99) / 1e3,
+                    result.percentile(99.9) / 1e3, result.percentile(100) / 1e3, result.bytesPerRequest());
+        }
+    }
+}
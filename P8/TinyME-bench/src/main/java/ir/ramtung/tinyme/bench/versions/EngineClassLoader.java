@@ -0,0 +1,27 @@
+package ir.ramtung.tinyme.bench.versions;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+class EngineClassLoader extends URLClassLoader {
+    private static final String ENGINE_PACKAGE = "ir.ramtung.tinyme.";
+    private static final String BENCH_PACKAGE = "ir.ramtung.tinyme.bench.";
+
+    EngineClassLoader(URL[] engineClasses, ClassLoader parent) {
+        super(engineClasses, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!name.startsWith(ENGINE_PACKAGE) || name.startsWith(BENCH_PACKAGE))
+            return super.loadClass(name, resolve);
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null)
+                loaded = findClass(name);
+            if (resolve)
+                resolveClass(loaded);
+            return loaded;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ir.ramtung.tinyme.bench.versions;
+
+public record FlowRecord(Kind kind, long requestId, String isin, long orderId, String side, int quantity, int price,
+                         long brokerId, long shareholderId, int peakSize, int minimumExecutionQuantity, int stopPrice,
+                         String targetState) {
+    public enum Kind { NEW, UPDATE, DELETE, STATE }
+
+    public static FlowRecord newOrder(long requestId, String isin, long orderId, String side, int quantity, int price,
+                                      long brokerId, long shareholderId, int peakSize, int minimumExecutionQuantity, int stopPrice) {
+        return new FlowRecord(Kind.NEW, requestId, isin, orderId, side, quantity, price, brokerId, shareholderId,
+                peakSize, minimumExecutionQuantity, stopPrice, null);
+    }
+
+    public static FlowRecord updateOrder(long requestId, String isin, long orderId, String side, int quantity, int price,
+                                         long brokerId, long shareholderId, int peakSize, int stopPrice) {
+        return new FlowRecord(Kind.UPDATE, requestId, isin, orderId, side, quantity, price, brokerId, shareholderId,
+                peakSize, 0, stopPrice, null);
+    }
+
+    public static FlowRecord deleteOrder(long requestId, String isin, long orderId, String side) {
+        return new FlowRecord(Kind.DELETE, requestId, isin, orderId, side, 0, 0, 0, 0, 0, 0, 0, null);
+    }
+
+    public static FlowRecord changeMatchingState(String isin, String targetState) {
+        return new FlowRecord(Kind.STATE, 0, isin, 0, null, 0, 0, 0, 0, 0, 0, 0, targetState);
+    }
+
+    public String toCsv() {
+        return switch (kind) {
+            case NEW, UPDATE -> String.join(",", kind.name(), Long.toString(requestId), isin, Long.toString(orderId), side,
+                    Integer.toString(quantity), Integer.toString(price), Long.toString(brokerId), Long.toString(shareholderId),
+                    Integer.toString(peakSize), Integer.toString(minimumExecutionQuantity), Integer.toString(stopPrice));
+            case DELETE -> String.join(",", kind.name(), Long.toString(requestId), isin, Long.toString(orderId), side);
+            case STATE -> String.join(",", kind.name(), isin, targetState);
+        };
+    }
+
+    public static FlowRecord fromCsv(String[] fields) {
+        Kind kind = Kind.valueOf(fields[0]);
+        return switch (kind) {
+            case NEW, UPDATE -> new FlowRecord(kind, Long.parseLong(fields[1]), fields[2], Long.parseLong(fields[3]), fields[4],
+                    Integer.parseInt(fields[5]), Integer.parseInt(fields[6]), Long.parseLong(fields[7]), Long.parseLong(fields[8]),
+                    Integer.parseInt(fields[9]), Integer.parseInt(fields[10]), Integer.parseInt(fields[11]), null);
+            case DELETE -> deleteOrder(Long.parseLong(fields[1]), fields[2], Long.parseLong(fields[3]), fields[4]);
+            case STATE -> changeMatchingState(fields[1], fields[2]);
+        };
+    }
+}
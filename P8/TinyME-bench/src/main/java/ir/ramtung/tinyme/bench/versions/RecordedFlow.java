@@ -0,0 +1,131 @@
+package ir.ramtung.tinyme.bench.versions;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class RecordedFlow {
+    public record SecuritySpec(String isin, int tickSize, int lotSize, int lastTradePrice) {
+    }
+
+    public record BrokerSpec(long brokerId, long credit) {
+    }
+
+    public record ShareholderSpec(long shareholderId, int position) {
+    }
+
+    public record Mix(double deleteShare, double updateShare, double icebergShare, double stopShare) {
+        public static final Mix DEFAULT = new Mix(0.1, 0.1, 0.1, 0.05);
+    }
+
+    private final List<SecuritySpec> securities = new ArrayList<>();
+    private final List<BrokerSpec> brokers = new ArrayList<>();
+    private final List<ShareholderSpec> shareholders = new ArrayList<>();
+    private final List<FlowRecord> requests = new ArrayList<>();
+
+    public List<SecuritySpec> getSecurities() {
+        return securities;
+    }
+
+    public List<BrokerSpec> getBrokers() {
+        return brokers;
+    }
+
+    public List<ShareholderSpec> getShareholders() {
+        return shareholders;
+    }
+
+    public List<FlowRecord> getRequests() {
+        return requests;
+    }
+
+    public RecordedFlow withRequests(List<FlowRecord> subset) {
+        RecordedFlow flow = new RecordedFlow();
+        flow.securities.addAll(securities);
+        flow.brokers.addAll(brokers);
+        flow.shareholders.addAll(shareholders);
+        flow.requests.addAll(subset);
+        return flow;
+    }
+
+    public static RecordedFlow read(Path file) throws IOException {
+        RecordedFlow flow = new RecordedFlow();
+        for (String line : Files.readAllLines(file)) {
+            if (line.isBlank() || line.startsWith("#"))
+                continue;
+            String[] fields = line.split(",");
+            switch (fields[0]) {
+                case "SECURITY" -> flow.securities.add(new SecuritySpec(fields[1], Integer.parseInt(fields[2]),
+                        Integer.parseInt(fields[3]), Integer.parseInt(fields[4])));
+                case "BROKER" -> flow.brokers.add(new BrokerSpec(Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                case "SHAREHOLDER" -> flow.shareholders.add(new ShareholderSpec(Long.parseLong(fields[1]), Integer.parseInt(fields[2])));
+                default -> flow.requests.add(FlowRecord.fromCsv(fields));
+            }
+        }
+        return flow;
+    }
+
+    public void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (SecuritySpec security : securities)
+                writer.write("SECURITY," + security.isin() + "," + security.tickSize() + "," + security.lotSize() + "," + security.lastTradePrice() + "\n");
+            for (BrokerSpec broker : brokers)
+                writer.write("BROKER," + broker.brokerId() + "," + broker.credit() + "\n");
+            for (ShareholderSpec shareholder : shareholders)
+                writer.write("SHAREHOLDER," + shareholder.shareholderId() + "," + shareholder.position() + "\n");
+            for (FlowRecord request : requests)
+                writer.write(request.toCsv() + "\n");
+        }
+    }
+
+    public static RecordedFlow synthetic(long seed, int requestCount) {
+        return synthetic(seed, requestCount, Mix.DEFAULT);
+    }
+
+    public static RecordedFlow synthetic(long seed, int requestCount, Mix mix) {
+        Random random = new Random(seed);
+        RecordedFlow flow = new RecordedFlow();
+        int[] mids = new int[4];
+        for (int i = 0; i < mids.length; i++) {
+            mids[i] = 10_000 * (i + 1);
+            flow.securities.add(new SecuritySpec("SEC" + i, 1, 1, mids[i]));
+        }
+        for (int i = 1; i <= 10; i++) {
+            flow.brokers.add(new BrokerSpec(i, 1_000_000_000_000L));
+            flow.shareholders.add(new ShareholderSpec(i, 100_000_000));
+        }
+
+        List<FlowRecord> live = new ArrayList<>();
+        long orderId = 1;
+        for (long requestId = 1; requestId <= requestCount; requestId++) {
+            int security = random.nextInt(mids.length);
+            mids[security] = Math.max(100, mids[security] + random.nextInt(5) - 2);
+            String isin = "SEC" + security;
+            double dice = random.nextDouble();
+            if (dice < mix.deleteShare() && !live.isEmpty()) {
+                FlowRecord target = live.remove(random.nextInt(live.size()));
+                flow.requests.add(FlowRecord.deleteOrder(requestId, target.isin(), target.orderId(), target.side()));
+            } else if (dice < mix.deleteShare() + mix.updateShare() && !live.isEmpty()) {
+                FlowRecord target = live.get(random.nextInt(live.size()));
+                flow.requests.add(FlowRecord.updateOrder(requestId, target.isin(), target.orderId(), target.side(),
+                        target.quantity() + 10, target.price(), target.brokerId(), target.shareholderId(), target.peakSize(), target.stopPrice()));
+            } else {
+                String side = random.nextBoolean() ? "BUY" : "SELL";
+                int offset = random.nextInt(20) - 5;
+                int price = side.equals("BUY") ? mids[security] - offset : mids[security] + offset;
+                int quantity = 10 * (1 + random.nextInt(100));
+                int peakSize = random.nextDouble() < mix.icebergShare() ? quantity / 5 : 0;
+                int stopPrice = peakSize == 0 && random.nextDouble() < mix.stopShare() ? (side.equals("BUY") ? price + 5 : price - 5) : 0;
+                FlowRecord order = FlowRecord.newOrder(requestId, isin, orderId++, side, quantity, price,
+                        1 + random.nextInt(10), 1 + random.nextInt(10), peakSize, 0, stopPrice);
+                flow.requests.add(order);
+                live.add(order);
+            }
+        }
+        return flow;
+    }
+}
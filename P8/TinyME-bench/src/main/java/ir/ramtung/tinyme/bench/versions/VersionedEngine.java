@@ -0,0 +1,354 @@
+package ir.ramtung.tinyme.bench.versions;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessagePostProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class VersionedEngine {
+    private static final Logger ENGINE_LOGGER = Logger.getLogger("ir.ramtung.tinyme");
+    private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(2024, 1, 1, 9, 0);
+    private static final Set<String> REQUIRED_COMPONENTS = Set.of("securityRepository", "brokerRepository",
+            "shareholderRepository", "eventPublisher");
+
+    public record PreparedRequest(Method handler, Object[] arguments) {
+        PreparedRequest(Method handler, Object request) {
+            this(handler, new Object[]{request});
+        }
+    }
+
+    private final String name;
+    private final ClassLoader loader;
+    private final Class<?> sideClass;
+    private final Class<?> enterOrderRqClass;
+    private final Class<?> deleteOrderRqClass;
+    private final Class<?> changeMatchingStateRqClass;
+    private final Class<?> matchingStateClass;
+    private final JmsTemplate jmsTemplate;
+    private final Properties configuration;
+    private final Map<String, Object> components = new HashMap<>();
+    private final SortedMap<String, String> settings = new TreeMap<>();
+    private final SortedSet<String> unwired = new TreeSet<>();
+    private Object orderHandler;
+    private long publishedEvents;
+    private long failedRequests;
+
+    static {
+        ENGINE_LOGGER.setLevel(Level.OFF);
+    }
+
+    private VersionedEngine(String name, URLClassLoader loader, Map<String, String> overrides) throws IOException, ClassNotFoundException {
+        this.name = name;
+        this.loader = loader;
+        configuration = new Properties();
+        URL properties = loader.findResource("application.properties");
+        if (properties != null) {
+            try (InputStream in = properties.openStream()) {
+                configuration.load(in);
+            }
+        }
+        configuration.putAll(overrides);
+        sideClass = loader.loadClass("ir.ramtung.tinyme.domain.entity.Side");
+        enterOrderRqClass = loader.loadClass("ir.ramtung.tinyme.messaging.request.EnterOrderRq");
+        deleteOrderRqClass = loader.loadClass("ir.ramtung.tinyme.messaging.request.DeleteOrderRq");
+        changeMatchingStateRqClass = optionalClass("ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq");
+        matchingStateClass = optionalClass("ir.ramtung.tinyme.messaging.request.MatchingState");
+        jmsTemplate = new JmsTemplate() {
+            @Override
+            public void convertAndSend(String destinationName, Object message) {
+                publishedEvents++;
+            }
+
+            @Override
+            public void convertAndSend(String destinationName, Object message, MessagePostProcessor postProcessor) {
+                publishedEvents++;
+            }
+        };
+    }
+
+    public static VersionedEngine load(String name, Path engineClasses, Map<String, String> overrides) throws IOException, ClassNotFoundException {
+        if (!Files.isDirectory(engineClasses))
+            throw new IllegalArgumentException(name + ": " + engineClasses + " not found; compile that version first");
+        URLClassLoader loader = new EngineClassLoader(new URL[]{engineClasses.toUri().toURL()}, VersionedEngine.class.getClassLoader());
+        return new VersionedEngine(name, loader, overrides);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The configuration values the handler was wired with, or an empty map for a version wired through its shortest
+     * constructor.
+     */
+    public SortedMap<String, String> getSettings() {
+        return settings;
+    }
+
+    /**
+     * Collaborators left at the builder's no-op default because the replay cannot construct them.
+     */
+    public SortedSet<String> getUnwired() {
+        return unwired;
+    }
+
+    public long getPublishedEvents() {
+        return publishedEvents;
+    }
+
+    public long getFailedRequests() {
+        return failedRequests;
+    }
+
+    public void reset(RecordedFlow flow) throws ReflectiveOperationException {
+        components.clear();
+        settings.clear();
+        unwired.clear();
+        orderHandler = newOrderHandler();
+        Object securityRepository = components.get("SecurityRepository");
+        Object brokerRepository = components.get("BrokerRepository");
+        Object shareholderRepository = components.get("ShareholderRepository");
+
+        List<Object> securities = new ArrayList<>();
+        for (RecordedFlow.SecuritySpec spec : flow.getSecurities()) {
+            Object security = build("ir.ramtung.tinyme.domain.entity.Security", Map.of("isin", spec.isin(),
+                    "tickSize", spec.tickSize(), "lotSize", spec.lotSize(), "lastTradePrice", spec.lastTradePrice()));
+            invoke(securityRepository, "addSecurity", security);
+            securities.add(security);
+        }
+        for (RecordedFlow.BrokerSpec spec : flow.getBrokers()) {
+            Object broker = build("ir.ramtung.tinyme.domain.entity.Broker", Map.of("brokerId", spec.brokerId(), "credit", spec.credit()));
+            invoke(brokerRepository, "addBroker", broker);
+        }
+        for (RecordedFlow.ShareholderSpec spec : flow.getShareholders()) {
+            Object shareholder = build("ir.ramtung.tinyme.domain.entity.Shareholder", Map.of("shareholderId", spec.shareholderId()));
+            for (Object security : securities)
+                invoke(shareholder, "incPosition", security, spec.position());
+            invoke(shareholderRepository, "addShareholder", shareholder);
+        }
+    }
+
+    public List<PreparedRequest> prepare(List<FlowRecord> records) throws ReflectiveOperationException {
+        List<PreparedRequest> prepared = new ArrayList<>(records.size());
+        for (FlowRecord record : records)
+            prepared.add(prepare(record));
+        return prepared;
+    }
+
+    public void handle(PreparedRequest request) throws IllegalAccessException {
+        try {
+            request.handler().invoke(orderHandler, request.arguments());
+        } catch (InvocationTargetException e) {
+            failedRequests++;
+        }
+    }
+
+    private PreparedRequest prepare(FlowRecord record) throws ReflectiveOperationException {
+        return switch (record.kind()) {
+            case NEW, UPDATE -> enterOrder(record);
+            case DELETE -> new PreparedRequest(handler("handleDeleteOrder", deleteOrderRqClass),
+                    deleteOrderRqClass.getConstructor(long.class, String.class, sideClass, long.class)
+                            .newInstance(record.requestId(), record.isin(), side(record.side()), record.orderId()));
+            case STATE -> changeMatchingState(record);
+        };
+    }
+
+    private PreparedRequest enterOrder(FlowRecord record) throws ReflectiveOperationException {
+        String factory = record.kind() == FlowRecord.Kind.NEW ? "createNewOrderRq" : "createUpdateOrderRq";
+        Object[] common = {record.requestId(), record.isin(), record.orderId(), ENTRY_TIME, side(record.side()),
+                record.quantity(), record.price(), record.brokerId(), record.shareholderId(), record.peakSize(),
+                record.minimumExecutionQuantity()};
+        Object request;
+        if (record.stopPrice() == 0) {
+            request = staticMethod(enterOrderRqClass, factory, common.length).invoke(null, common);
+        } else {
+            Method withStop = staticMethod(enterOrderRqClass, factory, common.length + 2);
+            if (withStop == null)
+                return null;
+            Object[] args = Arrays.copyOf(common, common.length + 2);
+            args[common.length] = record.stopPrice();
+            args[common.length + 1] = false;
+            request = withStop.invoke(null, args);
+        }
+        return new PreparedRequest(handler("handleEnterOrder", enterOrderRqClass), request);
+    }
+
+    private PreparedRequest changeMatchingState(FlowRecord record) throws ReflectiveOperationException {
+        if (changeMatchingStateRqClass == null)
+            return null;
+        Object state = enumConstant(matchingStateClass, record.targetState());
+        Object request = changeMatchingStateRqClass.getConstructor(String.class, matchingStateClass).newInstance(record.isin(), state);
+        return new PreparedRequest(handler("handleChangeMatchingState", changeMatchingStateRqClass), request);
+    }
+
+    private Object newOrderHandler() throws ReflectiveOperationException {
+        Class<?> handlerClass = loader.loadClass("ir.ramtung.tinyme.domain.service.OrderHandler");
+        if (Arrays.stream(handlerClass.getMethods()).anyMatch(method -> method.getName().equals("builder")))
+            return buildOrderHandler(handlerClass);
+        Constructor<?> constructor = Arrays.stream(handlerClass.getConstructors())
+                .min(Comparator.comparingInt(Constructor::getParameterCount))
+                .orElseThrow();
+        Object[] args = new Object[constructor.getParameterCount()];
+        for (int i = 0; i < args.length; i++)
+            args[i] = component(constructor.getParameterTypes()[i]);
+        return constructor.newInstance(args);
+    }
+
+    /**
+     * Wires a handler the way the version's application.properties, overlaid with the benchmark's settings, would:
+     * each optional collaborator comes from its Spring constructor with the configured values. A collaborator that needs infrastructure the replay lacks, such
+     * as the JMX monitor's JMS template, keeps the builder's no-op default.
+     */
+    private Object buildOrderHandler(Class<?> handlerClass) throws ReflectiveOperationException {
+        Object builder = handlerClass.getMethod("builder").invoke(null);
+        List<Method> setters = Arrays.stream(builder.getClass().getMethods())
+                .filter(method -> method.getParameterCount() == 1 && method.getReturnType() == builder.getClass())
+                .toList();
+        for (Method setter : setters) {
+            if (REQUIRED_COMPONENTS.contains(setter.getName()))
+                setter.invoke(builder, component(setter.getParameterTypes()[0]));
+        }
+        for (Method setter : setters) {
+            if (REQUIRED_COMPONENTS.contains(setter.getName()))
+                continue;
+            Object component = configured(setter.getParameterTypes()[0]);
+            if (component != null)
+                setter.invoke(builder, component);
+            else
+                unwired.add(setter.getName());
+        }
+        return builder.getClass().getMethod("build").invoke(builder);
+    }
+
+    private Object configured(Class<?> type) throws ReflectiveOperationException {
+        if (!components.containsKey(type.getSimpleName()))
+            components.put(type.getSimpleName(), instantiate(type));
+        return components.get(type.getSimpleName());
+    }
+
+    private Object instantiate(Class<?> type) throws ReflectiveOperationException {
+        Constructor<?> constructor = springConstructor(type);
+        if (constructor == null)
+            return null;
+        Map<String, String> used = new HashMap<>();
+        Object[] args = new Object[constructor.getParameterCount()];
+        for (int i = 0; i < args.length; i++) {
+            Parameter parameter = constructor.getParameters()[i];
+            Value value = parameter.getAnnotation(Value.class);
+            args[i] = value != null ? setting(value.value(), parameter.getType(), used) : configured(parameter.getType());
+            if (args[i] == null)
+                return null;
+        }
+        settings.putAll(used);
+        return constructor.newInstance(args);
+    }
+
+    private static Constructor<?> springConstructor(Class<?> type) {
+        Constructor<?>[] constructors = type.getConstructors();
+        for (Constructor<?> constructor : constructors) {
+            if (constructor.isAnnotationPresent(Autowired.class))
+                return constructor;
+        }
+        for (Constructor<?> constructor : constructors) {
+            if (Arrays.stream(constructor.getParameters()).anyMatch(parameter -> parameter.isAnnotationPresent(Value.class)))
+                return constructor;
+        }
+        return constructors.length == 1 && constructors[0].getParameterCount() == 0 ? constructors[0] : null;
+    }
+
+    private Object setting(String placeholder, Class<?> type, Map<String, String> used) {
+        String expression = placeholder.substring(2, placeholder.length() - 1);
+        int separator = expression.indexOf(':');
+        String key = separator < 0 ? expression : expression.substring(0, separator);
+        String text = configuration.getProperty(key, separator < 0 ? null : expression.substring(separator + 1));
+        if (text == null)
+            return null;
+        used.put(key, text);
+        if (type == boolean.class)
+            return Boolean.parseBoolean(text);
+        if (type == int.class)
+            return Integer.parseInt(text);
+        if (type == long.class)
+            return Long.parseLong(text);
+        if (type == int[].class)
+            return Arrays.stream(text.split(",")).mapToInt(field -> Integer.parseInt(field.trim())).toArray();
+        if (type.isEnum())
+            return enumConstant(type, text);
+        return text;
+    }
+
+    private Object component(Class<?> type) throws ReflectiveOperationException {
+        Object component = type.getSimpleName().equals("EventPublisher")
+                ? type.getConstructor(JmsTemplate.class).newInstance(jmsTemplate)
+                : type.getConstructor().newInstance();
+        components.put(type.getSimpleName(), component);
+        return component;
+    }
+
+    private Object build(String className, Map<String, Object> properties) throws ReflectiveOperationException {
+        Object builder = loader.loadClass(className).getMethod("builder").invoke(null);
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            for (Method method : builder.getClass().getMethods()) {
+                if (method.getName().equals(property.getKey()) && method.getParameterCount() == 1) {
+                    method.invoke(builder, property.getValue());
+                    break;
+                }
+            }
+        }
+        return builder.getClass().getMethod("build").invoke(builder);
+    }
+
+    private static void invoke(Object target, String methodName, Object... args) throws ReflectiveOperationException {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(methodName) && method.getParameterCount() == args.length) {
+                method.invoke(target, args);
+                return;
+            }
+        }
+        throw new NoSuchMethodException(target.getClass().getName() + "." + methodName);
+    }
+
+    private Method handler(String methodName, Class<?> requestClass) throws ReflectiveOperationException {
+        return orderHandler.getClass().getMethod(methodName, requestClass);
+    }
+
+    private static Method staticMethod(Class<?> type, String methodName, int parameterCount) {
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(methodName) && method.getParameterCount() == parameterCount)
+                return method;
+        }
+        return null;
+    }
+
+    private Object side(String side) {
+        return enumConstant(sideClass, side);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumConstant(Class<?> enumClass, String name) {
+        return Enum.valueOf((Class<? extends Enum>) enumClass, name);
+    }
+
+    private Class<?> optionalClass(String className) {
+        try {
+            return loader.loadClass(className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
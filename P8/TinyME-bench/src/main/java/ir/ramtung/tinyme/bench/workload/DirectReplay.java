@@ -0,0 +1,64 @@
+package ir.ramtung.tinyme.bench.workload;
+
+import ir.ramtung.tinyme.bench.loadgen.FlowRequests;
+import ir.ramtung.tinyme.bench.versions.FlowRecord;
+import ir.ramtung.tinyme.bench.versions.RecordedFlow;
+import ir.ramtung.tinyme.domain.service.AuctionMatcher;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class DirectReplay {
+    private final Map<String, Long> eventCounts = new TreeMap<>();
+    private final OrderHandler orderHandler;
+
+    public DirectReplay(RecordedFlow flow) {
+        SecurityRepository securityRepository = new SecurityRepository();
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        ReferenceData.seed(flow, securityRepository, brokerRepository, shareholderRepository);
+        EventPublisher eventPublisher = new EventPublisher(null) {
+            @Override
+            public void publish(Event event) {
+                eventCounts.merge(event.getClass().getSimpleName(), 1L, Long::sum);
+            }
+        };
+        orderHandler = OrderHandler.builder()
+                .securityRepository(securityRepository)
+                .brokerRepository(brokerRepository)
+                .shareholderRepository(shareholderRepository)
+                .eventPublisher(eventPublisher)
+                .build();
+    }
+
+    public Map<String, Long> getEventCounts() {
+        return eventCounts;
+    }
+
+    public long replay(List<FlowRecord> records) {
+        LocalDateTime entryTime = LocalDateTime.now();
+        long start = System.nanoTime();
+        for (FlowRecord record : records) {
+            Object request = FlowRequests.toRequest(record, entryTime);
+            if (request instanceof EnterOrderRq enterOrderRq)
+                orderHandler.handleEnterOrder(enterOrderRq);
+            else if (request instanceof DeleteOrderRq deleteOrderRq)
+                orderHandler.handleDeleteOrder(deleteOrderRq);
+            else
+                orderHandler.handleChangeMatchingState((ChangeMatchingStateRq) request);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,71 @@
+package ir.ramtung.tinyme.bench.workload;
+
+import ir.ramtung.tinyme.bench.versions.RecordedFlow;
+import ir.ramtung.tinyme.domain.entity.Broker;
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.entity.Shareholder;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReferenceData {
+    private ReferenceData() {
+    }
+
+    public static void seed(RecordedFlow flow, SecurityRepository securityRepository, BrokerRepository brokerRepository,
+                            ShareholderRepository shareholderRepository) {
+        securityRepository.clear();
+        brokerRepository.clear();
+        shareholderRepository.clear();
+
+        List<Security> securities = new ArrayList<>();
+        for (RecordedFlow.SecuritySpec spec : flow.getSecurities()) {
+            Security security = Security.builder().isin(spec.isin()).tickSize(spec.tickSize()).lotSize(spec.lotSize())
+                    .lastTradePrice(spec.lastTradePrice()).build();
+            securityRepository.addSecurity(security);
+            securities.add(security);
+        }
+        for (RecordedFlow.BrokerSpec spec : flow.getBrokers())
+            brokerRepository.addBroker(Broker.builder().brokerId(spec.brokerId()).credit(spec.credit()).build());
+        for (RecordedFlow.ShareholderSpec spec : flow.getShareholders()) {
+            Shareholder shareholder = Shareholder.builder().shareholderId(spec.shareholderId()).build();
+            for (Security security : securities)
+                shareholder.incPosition(security, spec.position());
+            shareholderRepository.addShareholder(shareholder);
+        }
+    }
+
+    public static void write(RecordedFlow flow, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(directory.resolve("security.csv")))) {
+            writer.println("isin,tickSize,lotSize");
+            for (RecordedFlow.SecuritySpec security : flow.getSecurities())
+                writer.println(security.isin() + "," + security.tickSize() + "," + security.lotSize());
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(directory.resolve("broker.csv")))) {
+            writer.println("brokerId,name,credit");
+            for (RecordedFlow.BrokerSpec broker : flow.getBrokers())
+                writer.println(broker.brokerId() + ",broker" + broker.brokerId() + "," + broker.credit());
+        }
+        try (PrintWriter shareholders = new PrintWriter(Files.newBufferedWriter(directory.resolve("shareholder.csv")));
+             PrintWriter positions = new PrintWriter(Files.newBufferedWriter(directory.resolve("position.csv")))) {
+            shareholders.println("shareholderId,name");
+            positions.println("shareholderId,isin,positions");
+            for (RecordedFlow.ShareholderSpec shareholder : flow.getShareholders()) {
+                shareholders.println(shareholder.shareholderId() + ",shareholder" + shareholder.shareholderId());
+                for (RecordedFlow.SecuritySpec security : flow.getSecurities())
+                    positions.println(shareholder.shareholderId() + "," + security.isin() + "," + shareholder.position());
+            }
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(directory.resolve("orderbook.csv")))) {
+            writer.println("orderId,isin,side,quantity,price,minimumExecutionQuantity,brokerId,shareholderId,entryTime,peakSize,displayedQuantity,stopPrice");
+        }
+    }
+}
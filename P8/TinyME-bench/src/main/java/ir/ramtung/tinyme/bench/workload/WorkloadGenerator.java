@@ -0,0 +1,158 @@
+package ir.ramtung.tinyme.bench.workload;
+
+import ir.ramtung.tinyme.bench.versions.FlowRecord;
+import ir.ramtung.tinyme.bench.versions.RecordedFlow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class WorkloadGenerator {
+    private static final int[] TICK_SIZES = {1, 5, 10};
+    private static final int[] LOT_SIZES = {1, 10, 100};
+
+    private final WorkloadProfile profile;
+    private final Random random;
+    private final double[] cumulativeActivity;
+    private final int[] tickSizes;
+    private final int[] lotSizes;
+    private final int[] midTicks;
+    private final int[] auctionRemaining;
+    private final List<FlowRecord> live = new ArrayList<>();
+    private long nextOrderId = 1;
+
+    public WorkloadGenerator(long seed, WorkloadProfile profile) {
+        this.profile = profile;
+        this.random = new Random(seed);
+        int count = profile.securities();
+        cumulativeActivity = new double[count];
+        tickSizes = new int[count];
+        lotSizes = new int[count];
+        midTicks = new int[count];
+        auctionRemaining = new int[count];
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += 1 / Math.pow(i + 1, profile.zipfExponent());
+            cumulativeActivity[i] = total;
+            tickSizes[i] = TICK_SIZES[random.nextInt(TICK_SIZES.length)];
+            lotSizes[i] = LOT_SIZES[random.nextInt(LOT_SIZES.length)];
+            midTicks[i] = (1_000 + random.nextInt(99_000)) / tickSizes[i];
+        }
+        for (int i = 0; i < count; i++)
+            cumulativeActivity[i] /= total;
+    }
+
+    public static RecordedFlow generate(long seed, WorkloadProfile profile, int requestCount) {
+        return new WorkloadGenerator(seed, profile).generate(requestCount);
+    }
+
+    public RecordedFlow generate(int requestCount) {
+        RecordedFlow flow = new RecordedFlow();
+        for (int i = 0; i < profile.securities(); i++)
+            flow.getSecurities().add(new RecordedFlow.SecuritySpec(isin(i), tickSizes[i], lotSizes[i], midTicks[i] * tickSizes[i]));
+        for (int i = 1; i <= profile.brokers(); i++)
+            flow.getBrokers().add(new RecordedFlow.BrokerSpec(i, 1_000_000_000_000_000L));
+        for (int i = 1; i <= profile.shareholders(); i++)
+            flow.getShareholders().add(new RecordedFlow.ShareholderSpec(i, 1_000_000_000));
+
+        List<FlowRecord> requests = flow.getRequests();
+        for (long requestId = 1; requestId <= requestCount; requestId++) {
+            int security = pickSecurity();
+            walk(security);
+            if (auctionRemaining[security] == 0 && random.nextDouble() < profile.auctionShare()) {
+                auctionRemaining[security] = profile.auctionLength();
+                requests.add(FlowRecord.changeMatchingState(isin(security), "AUCTION"));
+            }
+            double dice = random.nextDouble();
+            if (dice < profile.deleteShare() && !live.isEmpty())
+                requests.add(delete(requestId));
+            else if (dice < profile.deleteShare() + profile.updateShare() && !live.isEmpty())
+                requests.add(update(requestId));
+            else
+                requests.add(newOrder(requestId, security));
+            if (auctionRemaining[security] > 0 && --auctionRemaining[security] == 0)
+                requests.add(FlowRecord.changeMatchingState(isin(security), "CONTINUOUS"));
+        }
+        for (int i = 0; i < auctionRemaining.length; i++) {
+            if (auctionRemaining[i] > 0)
+                requests.add(FlowRecord.changeMatchingState(isin(i), "CONTINUOUS"));
+        }
+        return flow;
+    }
+
+    private int pickSecurity() {
+        int index = Arrays.binarySearch(cumulativeActivity, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, cumulativeActivity.length - 1);
+    }
+
+    private void walk(int security) {
+        int step = (int) Math.round(random.nextGaussian() * profile.volatilityTicks());
+        midTicks[security] = Math.max(10, midTicks[security] + step);
+    }
+
+    private FlowRecord newOrder(long requestId, int security) {
+        boolean buy = random.nextBoolean();
+        boolean auction = auctionRemaining[security] > 0;
+        int tick = tickSizes[security];
+        int lot = lotSizes[security];
+        int lots = 1 + (int) Math.min(profile.maxLots() - 1, -Math.log(1 - random.nextDouble()) * profile.maxLots() / 4);
+        int quantity = lots * lot;
+        int distance = random.nextDouble() < 0.2 ? -random.nextInt(3) : 1 + (int) Math.abs(random.nextGaussian() * 8);
+        int priceTicks = Math.max(1, buy ? midTicks[security] - distance : midTicks[security] + distance);
+
+        int peakSize = 0;
+        int minimumExecutionQuantity = 0;
+        int stopPrice = 0;
+        double kind = random.nextDouble();
+        if (kind < profile.icebergShare() && lots > 1) {
+            peakSize = Math.max(1, lots / 4) * lot;
+        } else if (kind < profile.icebergShare() + profile.stopShare() && !auction) {
+            int stopTicks = buy ? midTicks[security] + 1 + random.nextInt(5) : Math.max(1, midTicks[security] - 1 - random.nextInt(5));
+            stopPrice = stopTicks * tick;
+            priceTicks = Math.max(1, buy ? stopTicks + random.nextInt(3) : stopTicks - random.nextInt(3));
+        } else if (kind < profile.icebergShare() + profile.stopShare() + profile.meqShare() && !auction) {
+            minimumExecutionQuantity = (1 + random.nextInt(lots)) * lot;
+        }
+
+        FlowRecord order = FlowRecord.newOrder(requestId, isin(security), nextOrderId++, buy ? "BUY" : "SELL", quantity,
+                priceTicks * tick, 1 + random.nextInt(profile.brokers()), 1 + random.nextInt(profile.shareholders()),
+                peakSize, minimumExecutionQuantity, stopPrice);
+        if (distance > 0 || stopPrice != 0)
+            live.add(order);
+        return order;
+    }
+
+    private FlowRecord update(long requestId) {
+        int index = random.nextInt(live.size());
+        FlowRecord target = live.get(index);
+        int security = securityIndex(target.isin());
+        int price = target.price();
+        int quantity = target.quantity();
+        if (random.nextBoolean())
+            price = Math.max(tickSizes[security], price + (random.nextInt(5) - 2) * tickSizes[security]);
+        else
+            quantity += (1 + random.nextInt(5)) * lotSizes[security];
+        FlowRecord updated = new FlowRecord(FlowRecord.Kind.UPDATE, requestId, target.isin(), target.orderId(), target.side(),
+                quantity, price, target.brokerId(), target.shareholderId(), target.peakSize(),
+                target.minimumExecutionQuantity(), target.stopPrice(), null);
+        live.set(index, updated);
+        return updated;
+    }
+
+    private FlowRecord delete(long requestId) {
+        int index = random.nextInt(live.size());
+        FlowRecord target = live.get(index);
+        live.set(index, live.get(live.size() - 1));
+        live.remove(live.size() - 1);
+        return FlowRecord.deleteOrder(requestId, target.isin(), target.orderId(), target.side());
+    }
+
+    private static String isin(int security) {
+        return "SEC" + (security + 1);
+    }
+
+    private static int securityIndex(String isin) {
+        return Integer.parseInt(isin.substring(3)) - 1;
+    }
+}
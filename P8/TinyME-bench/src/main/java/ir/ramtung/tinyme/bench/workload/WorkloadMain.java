@@ -0,0 +1,104 @@
+package ir.ramtung.tinyme.bench.workload;
+
+import ir.ramtung.tinyme.bench.versions.FlowRecord;
+import ir.ramtung.tinyme.bench.versions.RecordedFlow;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class WorkloadMain {
+    private static final Logger ENGINE_LOGGER = Logger.getLogger("ir.ramtung.tinyme");
+
+    public static void main(String[] args) throws Exception {
+        WorkloadProfile defaults = WorkloadProfile.DEFAULT;
+        long seed = 42;
+        int requestCount = 1_000_000;
+        int securities = defaults.securities();
+        double zipfExponent = defaults.zipfExponent();
+        int brokers = defaults.brokers();
+        int shareholders = defaults.shareholders();
+        double deleteShare = defaults.deleteShare();
+        double updateShare = defaults.updateShare();
+        double icebergShare = defaults.icebergShare();
+        double stopShare = defaults.stopShare();
+        double meqShare = defaults.meqShare();
+        double auctionShare = defaults.auctionShare();
+        int auctionLength = defaults.auctionLength();
+        int volatilityTicks = defaults.volatilityTicks();
+        int maxLots = defaults.maxLots();
+        Path out = null;
+        Path referenceDirectory = null;
+        boolean replay = false;
+        for (int i = 0; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--requests" -> requestCount = Integer.parseInt(args[i + 1]);
+                case "--securities" -> securities = Integer.parseInt(args[i + 1]);
+                case "--zipf" -> zipfExponent = Double.parseDouble(args[i + 1]);
+                case "--brokers" -> brokers = Integer.parseInt(args[i + 1]);
+                case "--shareholders" -> shareholders = Integer.parseInt(args[i + 1]);
+                case "--delete-share" -> deleteShare = Double.parseDouble(args[i + 1]);
+                case "--update-share" -> updateShare = Double.parseDouble(args[i + 1]);
+                case "--iceberg-share" -> icebergShare = Double.parseDouble(args[i + 1]);
+                case "--stop-share" -> stopShare = Double.parseDouble(args[i + 1]);
+                case "--meq-share" -> meqShare = Double.parseDouble(args[i + 1]);
+                case "--auction-share" -> auctionShare = Double.parseDouble(args[i + 1]);
+                case "--auction-length" -> auctionLength = Integer.parseInt(args[i + 1]);
+                case "--volatility" -> volatilityTicks = Integer.parseInt(args[i + 1]);
+                case "--max-lots" -> maxLots = Integer.parseInt(args[i + 1]);
+                case "--out" -> out = Path.of(args[i + 1]);
+                case "--reference-dir" -> referenceDirectory = Path.of(args[i + 1]);
+                case "--replay" -> {
+                    replay = true;
+                    i--;
+                }
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        WorkloadProfile profile = new WorkloadProfile(securities, zipfExponent, brokers, shareholders, deleteShare,
+                updateShare, icebergShare, stopShare, meqShare, auctionShare, auctionLength, volatilityTicks, maxLots);
+        RecordedFlow flow = WorkloadGenerator.generate(seed, profile, requestCount);
+        describe(flow);
+
+        if (out != null) {
+            flow.write(out);
+            System.out.println("flow written to " + out);
+        }
+        if (referenceDirectory != null) {
+            ReferenceData.write(flow, referenceDirectory);
+            System.out.println("reference data written to " + referenceDirectory);
+        }
+        if (replay) {
+            ENGINE_LOGGER.setLevel(Level.OFF);
+            DirectReplay engine = new DirectReplay(flow);
+            long elapsed = engine.replay(flow.getRequests());
+            System.out.printf("replayed %d requests in %.1f ms (%.0f req/s)%n", flow.getRequests().size(), elapsed / 1e6,
+                    flow.getRequests().size() / (elapsed / 1e9));
+            for (Map.Entry<String, Long> entry : engine.getEventCounts().entrySet())
+                System.out.printf("  %-28s %d%n", entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void describe(RecordedFlow flow) {
+        long[] kinds = new long[FlowRecord.Kind.values().length];
+        long icebergs = 0;
+        long stops = 0;
+        long meqs = 0;
+        for (FlowRecord record : flow.getRequests()) {
+            kinds[record.kind().ordinal()]++;
+            if (record.kind() == FlowRecord.Kind.NEW) {
+                if (record.peakSize() != 0)
+                    icebergs++;
+                if (record.stopPrice() != 0)
+                    stops++;
+                if (record.minimumExecutionQuantity() != 0)
+                    meqs++;
+            }
+        }
+        System.out.printf("%d requests on %d securities: %d new (%d iceberg, %d stop-limit, %d MEQ), %d update, %d delete, %d state changes%n",
+                flow.getRequests().size(), flow.getSecurities().size(), kinds[FlowRecord.Kind.NEW.ordinal()], icebergs, stops, meqs,
+                kinds[FlowRecord.Kind.UPDATE.ordinal()], kinds[FlowRecord.Kind.DELETE.ordinal()], kinds[FlowRecord.Kind.STATE.ordinal()]);
+    }
+}
@@ -0,0 +1,17 @@
+package ir.ramtung.tinyme.bench.workload;
+
+public record WorkloadProfile(int securities, double zipfExponent, int brokers, int shareholders,
+                              double deleteShare, double updateShare, double icebergShare, double stopShare,
+                              double meqShare, double auctionShare, int auctionLength, int volatilityTicks, int maxLots) {
+    public static final WorkloadProfile DEFAULT = new WorkloadProfile(50, 1.1, 20, 200,
+            0.15, 0.2, 0.1, 0.05, 0.05, 0.0005, 200, 1, 50);
+
+    public WorkloadProfile {
+        if (securities <= 0 || brokers <= 0 || shareholders <= 0)
+            throw new IllegalArgumentException("securities, brokers and shareholders must be positive");
+        if (deleteShare + updateShare > 1)
+            throw new IllegalArgumentException("delete and update shares must not exceed 1");
+        if (auctionLength <= 0 || maxLots <= 0)
+            throw new IllegalArgumentException("auctionLength and maxLots must be positive");
+    }
+}
@@ -0,0 +1,248 @@
+package ir.ramtung.tinyme.client;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.TradeDTO;
+import ir.ramtung.tinyme.messaging.event.*;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import ir.ramtung.tinyme.messaging.request.OrderEntryType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a local replica of every security's book from the requests sent to {@code RQ} and the events read from
+ * {@code RS}. Order events carry only ids, so the replica pairs them with the request of the same id, which
+ * {@link #onRequest} must have seen first; an order event without one fails rather than leaving the replica behind.
+ * Activated stop orders are looked up in the book of the request being answered, as the engine activates them
+ * within that request.
+ * <p>
+ * Events are applied with their {@code RS} sequence number, and the replica's position is the last one applied.
+ * A gap fails, so the caller can have the missing events retransmitted from the position onwards, and events at or
+ * before the position are skipped. For recovery, take a {@link #snapshot()} now and then. After a restart,
+ * {@link #restore} it and replay the stream from the position after its own.
+ */
+public class BookBuilder {
+    private final Map<String, ClientBook> books = new HashMap<>();
+    private final LongObjectMap<Object> pendingRequests = new LongObjectMap<>();
+    private EnterOrderRq awaitingExecution;
+    private ClientBook currentBook;
+    private Side incomingSide;
+    private long position;
+
+    public ClientBook book(String isin) {
+        return books.get(isin);
+    }
+
+    public Collection<ClientBook> books() {
+        return books.values();
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    private ClientBook bookOf(String isin) {
+        return books.computeIfAbsent(isin, ClientBook::new);
+    }
+
+    public void onRequest(Object request) {
+        if (request instanceof EnterOrderRq enterOrderRq)
+            pendingRequests.put(enterOrderRq.getRequestId(), enterOrderRq);
+        else if (request instanceof DeleteOrderRq deleteOrderRq)
+            pendingRequests.put(deleteOrderRq.getRequestId(), deleteOrderRq);
+    }
+
+    public void onEvent(long sequence, Event event) {
+        if (sequence <= position)
+            return;
+        if (sequence != position + 1)
+            throw new IllegalStateException("Events " + (position + 1) + " to " + (sequence - 1) + " are missing");
+        position = sequence;
+        EnterOrderRq awaiting = awaitingExecution;
+        awaitingExecution = null;
+        if (event instanceof OrderExecutedEvent executed)
+            onExecuted(executed, awaiting);
+        else if (event instanceof OrderAcceptedEvent accepted)
+            onAccepted(accepted);
+        else if (event instanceof OrderActivatedEvent activated)
+            onActivated(activated);
+        else if (event instanceof OrderUpdatedEvent updated)
+            onUpdated(updated);
+        else if (event instanceof OrderDeletedEvent deleted)
+            onDeleted(deleted);
+        else if (event instanceof OrderRejectedEvent rejected)
+            pendingRequests.remove(rejected.getRequestId());
+        else if (event instanceof TradeEvent trade)
+            onAuctionTrade(trade);
+        else if (event instanceof SecurityStateChangedEvent stateChanged)
+            bookOf(stateChanged.getSecurityIsin()).matchingState = stateChanged.getState();
+        else if (event instanceof OpeningPriceEvent openingPrice)
+            bookOf(openingPrice.getSecurityIsin()).indicativeOpeningPrice = openingPrice.getOpeningPrice();
+    }
+
+    private Object requestOf(Event event, long requestId) {
+        Object request = pendingRequests.remove(requestId);
+        if (request == null)
+            throw new IllegalStateException("No request " + requestId + " was seen for " + event);
+        return request;
+    }
+
+    private void onAccepted(OrderAcceptedEvent event) {
+        EnterOrderRq request = (EnterOrderRq) requestOf(event, event.getRequestId());
+        currentBook = bookOf(request.getSecurityIsin());
+        incomingSide = request.getSide();
+        if (request.getMinimumExecutionQuantity() > 0 && request.getRequestType() == OrderEntryType.NEW_ORDER) {
+            // the engine accepts an order that missed its minimum too, but then publishes no execution for it
+            awaitingExecution = request;
+            return;
+        }
+        if (currentBook.order(request.getSide(), request.getOrderId()) == null)
+            currentBook.add(newOrder(request, currentBook.matchingState == MatchingState.AUCTION ? 0 : request.getPeakSize()));
+    }
+
+    // orders entered during an auction rest as plain orders, whatever their peak size
+    private static ClientOrder newOrder(EnterOrderRq request, int peakSize) {
+        return new ClientOrder(request.getOrderId(), request.getSide(), request.getPrice(), request.getQuantity(),
+                peakSize, request.getStopPrice(), request.getStopPrice() > 0);
+    }
+
+    private void onExecuted(OrderExecutedEvent event, EnterOrderRq awaiting) {
+        if (event.getTrades().isEmpty())
+            return;
+        ClientBook book = bookOf(event.getTrades().get(0).securityIsin());
+        if (awaiting != null && awaiting.getOrderId() == event.getOrderId())
+            book.add(newOrder(awaiting, awaiting.getPeakSize()));
+        currentBook = book;
+        TradeDTO first = event.getTrades().get(0);
+        Side side = first.buyOrderId() == first.sellOrderId() ? incomingSide
+                : first.buyOrderId() == event.getOrderId() ? Side.BUY : Side.SELL;
+        ClientOrder incoming = book.order(side, event.getOrderId());
+        if (incoming != null) {
+            book.hide(incoming);
+            incoming.inactive = false;
+        }
+        for (TradeDTO trade : event.getTrades()) {
+            if (incoming != null)
+                incoming.fillAsIncoming(trade.quantity());
+            fillResting(book, book.order(side.opposite(), side == Side.BUY ? trade.sellOrderId() : trade.buyOrderId()),
+                    trade.quantity());
+            book.lastTradePrice = trade.price();
+        }
+        if (incoming != null) {
+            incoming.replenish();
+            showOrRemove(book, incoming);
+        }
+    }
+
+    private static void showOrRemove(ClientBook book, ClientOrder order) {
+        if (order.quantity > 0)
+            book.show(order);
+        else
+            book.remove(order);
+    }
+
+    private void onActivated(OrderActivatedEvent event) {
+        if (currentBook == null)
+            return;
+        for (Side side : Side.values()) {
+            ClientOrder order = currentBook.order(side, event.getOrderId());
+            if (order != null && order.inactive) {
+                order.inactive = false;
+                currentBook.show(order);
+                incomingSide = side;
+                return;
+            }
+        }
+    }
+
+    private void onUpdated(OrderUpdatedEvent event) {
+        EnterOrderRq request = (EnterOrderRq) requestOf(event, event.getRequestId());
+        currentBook = bookOf(request.getSecurityIsin());
+        incomingSide = request.getSide();
+        ClientOrder order = currentBook.order(request.getSide(), request.getOrderId());
+        if (order == null)
+            return;
+        currentBook.hide(order);
+        if (order.inactive) {
+            order.stopPrice = request.getStopPrice();
+        } else if (currentBook.matchingState == MatchingState.CONTINUOUS && !losesPriority(order, request)) {
+            if (request.getPeakSize() < order.peakSize)
+                order.displayedQuantity = Math.min(order.displayedQuantity, request.getPeakSize());
+            order.quantity = request.getQuantity();
+            order.peakSize = request.getPeakSize();
+            currentBook.show(order);
+            return;
+        }
+        order.price = request.getPrice();
+        order.quantity = request.getQuantity();
+        order.peakSize = request.getPeakSize();
+        order.replenish();
+        currentBook.show(order);
+    }
+
+    private static boolean losesPriority(ClientOrder order, EnterOrderRq request) {
+        return request.getQuantity() > order.quantity || request.getPrice() != order.price
+                || (order.peakSize > 0 && request.getPeakSize() > order.peakSize);
+    }
+
+    private void onDeleted(OrderDeletedEvent event) {
+        DeleteOrderRq request = (DeleteOrderRq) requestOf(event, event.getRequestId());
+        currentBook = bookOf(request.getSecurityIsin());
+        ClientOrder order = currentBook.order(request.getSide(), request.getOrderId());
+        if (order != null)
+            currentBook.remove(order);
+    }
+
+    private void onAuctionTrade(TradeEvent event) {
+        ClientBook book = bookOf(event.getSecurityIsin());
+        currentBook = book;
+        fillInAuction(book, book.order(Side.BUY, event.getBuyId()), event.getQuantity());
+        fillInAuction(book, book.order(Side.SELL, event.getSellId()), event.getQuantity());
+        book.lastTradePrice = event.getPrice();
+    }
+
+    // the engine leaves orders that an uncross emptied in its queues, where an update can bring them back
+    private static void fillInAuction(ClientBook book, ClientOrder order, int quantity) {
+        if (order == null)
+            return;
+        book.hide(order);
+        order.fillAsResting(quantity);
+        book.show(order);
+    }
+
+    private static void fillResting(ClientBook book, ClientOrder order, int quantity) {
+        if (order == null)
+            return;
+        book.hide(order);
+        order.fillAsResting(quantity);
+        showOrRemove(book, order);
+    }
+
+    public BookBuilderSnapshot snapshot() {
+        List<ClientBookSnapshot> bookSnapshots = new ArrayList<>(books.size());
+        for (ClientBook book : books.values())
+            bookSnapshots.add(book.snapshot());
+        List<Object> pending = new ArrayList<>(pendingRequests.size());
+        pendingRequests.forEach(pending::add);
+        return new BookBuilderSnapshot(position, List.copyOf(bookSnapshots), List.copyOf(pending), awaitingExecution,
+                currentBook == null ? null : currentBook.getIsin(), incomingSide);
+    }
+
+    public void restore(BookBuilderSnapshot snapshot) {
+        books.clear();
+        pendingRequests.clear();
+        for (ClientBookSnapshot bookSnapshot : snapshot.books())
+            books.put(bookSnapshot.isin(), ClientBook.of(bookSnapshot));
+        for (Object request : snapshot.pendingRequests())
+            onRequest(request);
+        awaitingExecution = snapshot.awaitingExecution();
+        currentBook = snapshot.currentIsin() == null ? null : bookOf(snapshot.currentIsin());
+        incomingSide = snapshot.incomingSide();
+        position = snapshot.position();
+    }
+}
@@ -0,0 +1,14 @@
+package ir.ramtung.tinyme.client;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+
+import java.util.List;
+
+/**
+ * Everything a {@link BookBuilder} needs to resume: its books, the requests still waiting for an answer,
+ * what it knew about the request being answered, and the sequence number of the last event it applied.
+ */
+public record BookBuilderSnapshot(long position, List<ClientBookSnapshot> books, List<Object> pendingRequests,
+                                  EnterOrderRq awaitingExecution, String currentIsin, Side incomingSide) {
+}
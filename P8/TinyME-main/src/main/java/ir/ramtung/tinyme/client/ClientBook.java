@@ -0,0 +1,102 @@
+package ir.ramtung.tinyme.client;
+
+import ir.ramtung.tinyme.domain.entity.OrderView;
+import ir.ramtung.tinyme.domain.entity.PriceLevel;
+import ir.ramtung.tinyme.domain.entity.PriceLevelCache;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The local replica of one security's book. Every order change goes through {@link #hide} and {@link #show},
+ * so the per-level totals stay current without rescanning orders.
+ */
+@Getter
+public class ClientBook {
+    private final String isin;
+    MatchingState matchingState = MatchingState.CONTINUOUS;
+    int lastTradePrice;
+    int indicativeOpeningPrice;
+    @Getter(AccessLevel.NONE)
+    private final PriceLevelCache bids = new PriceLevelCache(Side.BUY);
+    @Getter(AccessLevel.NONE)
+    private final PriceLevelCache asks = new PriceLevelCache(Side.SELL);
+    @Getter(AccessLevel.NONE)
+    private final LongObjectMap<ClientOrder> buyOrders = new LongObjectMap<>();
+    @Getter(AccessLevel.NONE)
+    private final LongObjectMap<ClientOrder> sellOrders = new LongObjectMap<>();
+
+    ClientBook(String isin) {
+        this.isin = isin;
+    }
+
+    private PriceLevelCache levels(Side side) {
+        return side == Side.BUY ? bids : asks;
+    }
+
+    private LongObjectMap<ClientOrder> orders(Side side) {
+        return side == Side.BUY ? buyOrders : sellOrders;
+    }
+
+    public ClientOrder order(Side side, long orderId) {
+        return orders(side).get(orderId);
+    }
+
+    public int orderCount() {
+        return buyOrders.size() + sellOrders.size();
+    }
+
+    void add(ClientOrder order) {
+        orders(order.getSide()).put(order.getOrderId(), order);
+        show(order);
+    }
+
+    void remove(ClientOrder order) {
+        hide(order);
+        orders(order.getSide()).remove(order.getOrderId());
+    }
+
+    void hide(ClientOrder order) {
+        if (!order.inactive && order.getDisplayedQuantity() > 0)
+            levels(order.getSide()).add(order.price, -order.getDisplayedQuantity(), -1);
+    }
+
+    void show(ClientOrder order) {
+        if (!order.inactive && order.getDisplayedQuantity() > 0)
+            levels(order.getSide()).add(order.price, order.getDisplayedQuantity(), 1);
+    }
+
+    public PriceLevel bestLevel(Side side) {
+        PriceLevelCache levels = levels(side);
+        return levels.size() == 0 ? null : levels.level(0);
+    }
+
+    public List<PriceLevel> topLevels(Side side, int count) {
+        return levels(side).top(count);
+    }
+
+    public List<PriceLevel> priceLevels(Side side) {
+        return topLevels(side, Integer.MAX_VALUE);
+    }
+
+    ClientBookSnapshot snapshot() {
+        List<OrderView> orders = new ArrayList<>(orderCount());
+        buyOrders.forEach(order -> orders.add(order.view()));
+        sellOrders.forEach(order -> orders.add(order.view()));
+        return new ClientBookSnapshot(isin, matchingState, lastTradePrice, indicativeOpeningPrice, List.copyOf(orders));
+    }
+
+    static ClientBook of(ClientBookSnapshot snapshot) {
+        ClientBook book = new ClientBook(snapshot.isin());
+        book.matchingState = snapshot.matchingState();
+        book.lastTradePrice = snapshot.lastTradePrice();
+        book.indicativeOpeningPrice = snapshot.indicativeOpeningPrice();
+        for (OrderView view : snapshot.orders())
+            book.add(ClientOrder.of(view));
+        return book;
+    }
+}
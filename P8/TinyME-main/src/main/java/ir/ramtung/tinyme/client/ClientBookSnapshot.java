@@ -0,0 +1,10 @@
+package ir.ramtung.tinyme.client;
+
+import ir.ramtung.tinyme.domain.entity.OrderView;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+
+import java.util.List;
+
+public record ClientBookSnapshot(String isin, MatchingState matchingState, int lastTradePrice,
+                                 int indicativeOpeningPrice, List<OrderView> orders) {
+}
@@ -0,0 +1,58 @@
+package ir.ramtung.tinyme.client;
+
+import ir.ramtung.tinyme.domain.entity.OrderView;
+import ir.ramtung.tinyme.domain.entity.Side;
+import lombok.Getter;
+
+@Getter
+public class ClientOrder {
+    private final long orderId;
+    private final Side side;
+    int price;
+    int quantity;
+    int displayedQuantity;
+    int peakSize;
+    int stopPrice;
+    boolean inactive;
+
+    ClientOrder(long orderId, Side side, int price, int quantity, int peakSize, int stopPrice, boolean inactive) {
+        this.orderId = orderId;
+        this.side = side;
+        this.price = price;
+        this.quantity = quantity;
+        this.peakSize = peakSize;
+        this.stopPrice = stopPrice;
+        this.inactive = inactive;
+        replenish();
+    }
+
+    public int getDisplayedQuantity() {
+        return peakSize == 0 ? quantity : displayedQuantity;
+    }
+
+    void replenish() {
+        displayedQuantity = peakSize == 0 ? quantity : Math.min(quantity, peakSize);
+    }
+
+    void fillAsIncoming(int amount) {
+        quantity -= amount;
+    }
+
+    void fillAsResting(int amount) {
+        quantity -= amount;
+        displayedQuantity -= amount;
+        if (displayedQuantity <= 0)
+            replenish();
+    }
+
+    public OrderView view() {
+        return new OrderView(orderId, side, price, getDisplayedQuantity(), quantity, peakSize, stopPrice, inactive);
+    }
+
+    static ClientOrder of(OrderView view) {
+        ClientOrder order = new ClientOrder(view.orderId(), view.side(), view.price(), view.totalQuantity(),
+                view.peakSize(), view.stopPrice(), view.inactive());
+        order.displayedQuantity = view.quantity();
+        return order;
+    }
+}
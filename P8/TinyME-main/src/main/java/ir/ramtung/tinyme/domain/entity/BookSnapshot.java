@@ -0,0 +1,43 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+
+import java.util.List;
+
+/**
+ * An immutable copy of a security's book, built by the matching thread after a request and read by query threads.
+ * Each side copies only the price levels that changed since the previous snapshot and shares the rest with it.
+ */
+public record BookSnapshot(long version, long buyVersion, long sellVersion, MatchingState matchingState,
+                           int lastTradePrice, int indicativeOpeningPrice, SideSnapshot buySide, SideSnapshot sellSide) {
+    public static final BookSnapshot EMPTY = new BookSnapshot(0, -1, -1, MatchingState.CONTINUOUS, 0, 0,
+            SideSnapshot.EMPTY, SideSnapshot.EMPTY);
+
+    public static BookSnapshot of(Security security, BookSnapshot previous) {
+        OrderBook orderBook = security.getOrderBook();
+        long buyVersion = orderBook.getChangedLevels(Side.BUY).getVersion();
+        long sellVersion = orderBook.getChangedLevels(Side.SELL).getVersion();
+        boolean buyChanged = buyVersion != previous.buyVersion;
+        boolean sellChanged = sellVersion != previous.sellVersion;
+        if (!buyChanged && !sellChanged && security.getMatchingState() == previous.matchingState
+                && security.getLastTradePrice() == previous.lastTradePrice
+                && security.getIndicativeOpeningPrice() == previous.indicativeOpeningPrice)
+            return previous;
+        return new BookSnapshot(previous.version + 1, buyVersion, sellVersion, security.getMatchingState(),
+                security.getLastTradePrice(), security.getIndicativeOpeningPrice(),
+                buyChanged ? previous.buySide.update(orderBook, Side.BUY, previous.buyVersion) : previous.buySide,
+                sellChanged ? previous.sellSide.update(orderBook, Side.SELL, previous.sellVersion) : previous.sellSide);
+    }
+
+    public SideSnapshot side(Side side) {
+        return side == Side.BUY ? buySide : sellSide;
+    }
+
+    public List<PriceLevel> levels(Side side) {
+        return side(side).levels();
+    }
+
+    public OrderView order(Side side, long orderId) {
+        return side(side).order(orderId);
+    }
+}
@@ -0,0 +1,63 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public class ChangedLevels {
+    private static final int CAPACITY = 32;
+
+    private final int[] prices = new int[CAPACITY];
+    private int size;
+    private boolean overflowed;
+    private long version;
+    private long clearedVersion;
+
+    public void add(int price) {
+        version++;
+        if (overflowed)
+            return;
+        for (int i = 0; i < size; i++) {
+            if (prices[i] == price)
+                return;
+        }
+        if (size == CAPACITY)
+            overflowed = true;
+        else
+            prices[size++] = price;
+    }
+
+    public void addAll() {
+        version++;
+        overflowed = true;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The version at the last {@link #clear()}. The changed prices cover every change made after it.
+     */
+    public long getClearedVersion() {
+        return clearedVersion;
+    }
+
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    public boolean isEmpty() {
+        return size == 0 && !overflowed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int price(int index) {
+        return prices[index];
+    }
+
+    public void clear() {
+        clearedVersion = version;
+        size = 0;
+        overflowed = false;
+    }
+}
@@ -21,14 +21,16 @@ public class IcebergOrder extends Order {
     public Order snapshot() {
         return IcebergOrder.builder().orderId(orderId).security(security).side(side).quantity(quantity).price(price).
                 minimumExecutionQuantity(minimumExecutionQuantity).broker(broker).
-                shareholder(shareholder).entryTime(entryTime).peakSize(peakSize).status(OrderStatus.SNAPSHOT).stopPrice(stopPrice).build();
+                shareholder(shareholder).entryTime(entryTime).entryTimeNanos(entryTimeNanos).sequence(sequence).
+                peakSize(peakSize).status(OrderStatus.SNAPSHOT).stopPrice(stopPrice).build();
    }
 
     @Override
     public Order snapshotWithQuantity(int newQuantity) {
         return IcebergOrder.builder().orderId(orderId).security(security).side(side).quantity(newQuantity).price(price).
                 minimumExecutionQuantity(minimumExecutionQuantity).broker(broker).
-                shareholder(shareholder).entryTime(entryTime).peakSize(peakSize).status(OrderStatus.SNAPSHOT).stopPrice(stopPrice).build();
+                shareholder(shareholder).entryTime(entryTime).entryTimeNanos(entryTimeNanos).sequence(sequence).
+                peakSize(peakSize).status(OrderStatus.SNAPSHOT).stopPrice(stopPrice).build();
     }
 
     @Override
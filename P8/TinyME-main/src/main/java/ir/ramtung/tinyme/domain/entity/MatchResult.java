@@ -5,17 +5,21 @@ import java.util.List;
 import java.util.Objects;
 
 public final class MatchResult {
-    private final MatchingOutcome outcome;
-    private final Order remainder;
+    private MatchingOutcome outcome;
+    private Order remainder;
     private final LinkedList<Trade> trades;
-    private final String securityIsin;
-    private final int openingPrice;
-    private final int tradableQuantity;
+    private String securityIsin;
+    private int openingPrice;
+    private int tradableQuantity;
 
     public static MatchResult executed(Order remainder, List<Trade> trades) {
         return new MatchResult(MatchingOutcome.EXECUTED, remainder, new LinkedList<>(trades));
     }
 
+    public static MatchResult empty() {
+        return new MatchResult(MatchingOutcome.EXECUTED, null, new LinkedList<>());
+    }
+
     public static MatchResult notEnoughCredit() {
         return new MatchResult(MatchingOutcome.NOT_ENOUGH_CREDIT, null, new LinkedList<>());
     }
@@ -44,6 +48,10 @@ public final class MatchResult {
         return new MatchResult(MatchingOutcome.OPENING_PRICE_BEEN_SET, null, new LinkedList<>(), securityIsin, openingPrice, tradableQuantity);
     }
 
+    public static MatchResult openingPriceDeferred(String securityIsin) {
+        return new MatchResult(MatchingOutcome.OPENING_PRICE_DEFERRED, null, new LinkedList<>(), securityIsin, 0, 0);
+    }
+
     private MatchResult(MatchingOutcome outcome, Order remainder, LinkedList<Trade> trades) {
         this.outcome = outcome;
         this.remainder = remainder;
@@ -62,6 +70,20 @@ public final class MatchResult {
         this.tradableQuantity = tradableQuantity;
     }
 
+    public MatchResult reset(MatchingOutcome outcome, Order remainder) {
+        this.outcome = outcome;
+        this.remainder = remainder;
+        this.securityIsin = "";
+        this.openingPrice = 0;
+        this.tradableQuantity = 0;
+        return this;
+    }
+
+    public void clear() {
+        reset(null, null);
+        trades.clear();
+    }
+
     public MatchingOutcome outcome() { return outcome; }
 
     public Order remainder() {
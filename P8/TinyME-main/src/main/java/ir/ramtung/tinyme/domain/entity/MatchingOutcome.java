@@ -9,5 +9,6 @@ public enum MatchingOutcome {
     STOP_LIMIT_ORDER_ACCEPTED,
     STOP_LIMIT_ORDER_ACTIVATED,
     OPENING_PRICE_BEEN_SET,
+    OPENING_PRICE_DEFERRED,
     INVALID_ORDER_IN_AUCTION_STATE
 }
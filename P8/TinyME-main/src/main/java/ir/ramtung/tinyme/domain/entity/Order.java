@@ -1,6 +1,7 @@
 package ir.ramtung.tinyme.domain.entity;
 
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -23,12 +24,25 @@ public class Order {
     protected int minimumExecutionQuantity;
     protected Broker broker;
     protected Shareholder shareholder;
-    @Builder.Default
-    protected LocalDateTime entryTime = LocalDateTime.now();
+    protected LocalDateTime entryTime;
+    protected long entryTimeNanos;
+    protected long sequence;
     @Builder.Default
     protected OrderStatus status = OrderStatus.NEW;
     protected int stopPrice;
     protected boolean inactive;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    boolean resting;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    int levelPrice;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    int levelQuantity;
 
     public boolean shouldActivate() {
         return (stopPrice != 0 && side == Side.BUY && stopPrice <= security.getLastTradePrice()) ||
@@ -38,13 +52,15 @@ public class Order {
     public Order snapshot() {
         return Order.builder().orderId(orderId).security(security).side(side).quantity(quantity).price(price).
                 minimumExecutionQuantity(minimumExecutionQuantity).broker(broker).
-                shareholder(shareholder).entryTime(entryTime).status(OrderStatus.SNAPSHOT).stopPrice(stopPrice).build();
+                shareholder(shareholder).entryTime(entryTime).entryTimeNanos(entryTimeNanos).sequence(sequence).
+                status(OrderStatus.SNAPSHOT).stopPrice(stopPrice).build();
     }
 
     public Order snapshotWithQuantity(int newQuantity) {
         return Order.builder().orderId(orderId).security(security).side(side).quantity(newQuantity).price(price).
                 minimumExecutionQuantity(minimumExecutionQuantity).broker(broker).
-                shareholder(shareholder).entryTime(entryTime).status(OrderStatus.SNAPSHOT).stopPrice(stopPrice).build();
+                shareholder(shareholder).entryTime(entryTime).entryTimeNanos(entryTimeNanos).sequence(sequence).
+                status(OrderStatus.SNAPSHOT).stopPrice(stopPrice).build();
     }
 
     public boolean matches(Order other) {
@@ -60,19 +76,28 @@ public class Order {
         quantity -= amount;
     }
 
+    public void increaseQuantity(int amount) {
+        assert amount >= 0;
+        quantity += amount;
+    }
+
     public void makeQuantityZero() {
         quantity = 0;
     }
 
     public boolean queuesBefore(Order order) {
         if (!inactive) {
-            if (order.getSide() == Side.BUY) {
+            if (price == order.getPrice()) {
+                return sequence < order.getSequence();
+            } else if (order.getSide() == Side.BUY) {
                 return price > order.getPrice();
             } else {
                 return price < order.getPrice();
             }
         } else {
-            if (order.getSide() == Side.BUY) {
+            if (stopPrice == order.getStopPrice()) {
+                return sequence < order.getSequence();
+            } else if (order.getSide() == Side.BUY) {
                 return stopPrice > order.getStopPrice();
             } else {
                 return stopPrice < order.getStopPrice();
@@ -80,6 +105,14 @@ public class Order {
         }
     }
 
+    public void stampSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public void stampEntryTime(long entryTimeNanos) {
+        this.entryTimeNanos = entryTimeNanos;
+    }
+
     public void queue() {
         status = OrderStatus.QUEUED;
     }
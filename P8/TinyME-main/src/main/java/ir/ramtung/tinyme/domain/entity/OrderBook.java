@@ -1,18 +1,33 @@
 package ir.ramtung.tinyme.domain.entity;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.*;
 
 @Getter
 public class OrderBook {
+    private static final int MAX_UNSETTLED_ORDERS = 1024;
+
     private final LinkedList<Order> buyQueue;
     private final LinkedList<Order> sellQueue;
     private final LinkedList<Order> inactiveBuyQueue;
     private final LinkedList<Order> inactiveSellQueue;
     public final LinkedList<Order> activeQueue;
+    private final ChangedLevels changedBuyLevels;
+    private final ChangedLevels changedSellLevels;
+    @Getter(AccessLevel.NONE)
+    private final PriceLevelCache buyLevels;
+    @Getter(AccessLevel.NONE)
+    private final PriceLevelCache sellLevels;
+    @Getter(AccessLevel.NONE)
+    private final ArrayList<Order> unsettledOrders;
+    @Getter(AccessLevel.NONE)
+    private boolean levelsStale;
 
     private final Map<Side, Map<Boolean, LinkedList<Order>>> queues;
+    private long lastSequence;
+    private int activationBacklog;
 
     public OrderBook() {
         buyQueue = new LinkedList<>();
@@ -20,6 +35,11 @@ public class OrderBook {
         inactiveBuyQueue = new LinkedList<>();
         inactiveSellQueue = new LinkedList<>();
         activeQueue = new LinkedList<>();
+        changedBuyLevels = new ChangedLevels();
+        changedSellLevels = new ChangedLevels();
+        buyLevels = new PriceLevelCache(Side.BUY);
+        sellLevels = new PriceLevelCache(Side.SELL);
+        unsettledOrders = new ArrayList<>();
 
         queues = new HashMap<>();
 
@@ -45,6 +65,15 @@ public class OrderBook {
     }
 
     public void enqueue(Order order) {
+        order.stampSequence(++lastSequence);
+        insertByPriority(order);
+    }
+
+    public void restore(Order order) {
+        insertByPriority(order);
+    }
+
+    private void insertByPriority(Order order) {
         List<Order> queue = getQueue(order.getSide(), order.isInactive());
         ListIterator<Order> it = queue.listIterator();
         while (it.hasNext()) {
@@ -55,6 +84,8 @@ public class OrderBook {
         }
         order.queue();
         it.add(order);
+        order.resting = true;
+        markLevelChanged(order);
     }
 
     private LinkedList<Order> getQueue(Side side, boolean inactive) {
@@ -95,8 +126,11 @@ public class OrderBook {
         var queue = getQueue(side, inactive);
         var it = queue.listIterator();
         while (it.hasNext()) {
-            if (it.next().getOrderId() == orderId) {
+            Order order = it.next();
+            if (order.getOrderId() == orderId) {
                 it.remove();
+                order.resting = false;
+                markLevelChanged(order);
                 return;
             }
         }
@@ -104,33 +138,37 @@ public class OrderBook {
 
     public Order matchWithFirst(Order newOrder) {
         var queue = (newOrder.getSide() == Side.BUY ? sellQueue : buyQueue);
-        if (newOrder.matches(queue.getFirst()))
-            return queue.getFirst();
-        else
+        if (!newOrder.matches(queue.getFirst()))
             return null;
+        markLevelChanged(queue.getFirst());
+        return queue.getFirst();
     }
 
     public Order auctionMatchWithFirst(Order newOrder, int openPrice) {
         var queue = (newOrder.getSide() == Side.BUY ? sellQueue : buyQueue);
-        if (queue.getFirst().isProposedPriceGood(openPrice))
-            return queue.getFirst();
-        else
+        if (!queue.getFirst().isProposedPriceGood(openPrice))
             return null;
+        markLevelChanged(queue.getFirst());
+        return queue.getFirst();
     }
 
     public void putBack(Order order) {
         LinkedList<Order> queue = getQueue(order.getSide(), order.isInactive());
         order.queue();
         queue.addFirst(order);
+        order.resting = true;
+        markLevelChanged(order);
     }
 
-    public void restoreSellOrder(Order sellOrder) {
+    public void restoreSellOrder(Order sellOrder, int tradedQuantity) {
         removeByOrderId(Side.SELL, sellOrder.getOrderId(), sellOrder.isInactive());
+        sellOrder.increaseQuantity(tradedQuantity);
         putBack(sellOrder);
     }
 
-    public void restoreBuyOrder(Order buyOrder) {
+    public void restoreBuyOrder(Order buyOrder, int tradedQuantity) {
         removeByOrderId(Side.BUY, buyOrder.getOrderId(), buyOrder.isInactive());
+        buyOrder.increaseQuantity(tradedQuantity);
         putBack(buyOrder);
     }
 
@@ -139,7 +177,94 @@ public class OrderBook {
     }
 
     public void removeFirst(Side side) {
-        (side == Side.BUY ? buyQueue : sellQueue).removeFirst();
+        Order order = (side == Side.BUY ? buyQueue : sellQueue).removeFirst();
+        order.resting = false;
+        markLevelChanged(order);
+    }
+
+    public ChangedLevels getChangedLevels(Side side) {
+        return side == Side.BUY ? changedBuyLevels : changedSellLevels;
+    }
+
+    /**
+     * Called whenever an order enters, leaves or is about to change in the book. The per-level cache catches up
+     * with the marked orders when it is next read, since the quantity usually changes right after the mark.
+     */
+    public void markLevelChanged(Order order) {
+        getChangedLevels(order.getSide()).add(order.getPrice());
+        if (unsettledOrders.size() == MAX_UNSETTLED_ORDERS)
+            settleLevels();
+        unsettledOrders.add(order);
+    }
+
+    public void markAllLevelsChanged() {
+        changedBuyLevels.addAll();
+        changedSellLevels.addAll();
+        levelsStale = true;
+    }
+
+    private PriceLevelCache levelCache(Side side) {
+        return side == Side.BUY ? buyLevels : sellLevels;
+    }
+
+    private void settleLevels() {
+        if (levelsStale) {
+            rebuildLevels();
+            return;
+        }
+        for (int i = 0; i < unsettledOrders.size(); i++)
+            settle(unsettledOrders.get(i));
+        unsettledOrders.clear();
+    }
+
+    private void settle(Order order) {
+        PriceLevelCache levels = levelCache(order.getSide());
+        if (order.levelQuantity > 0) {
+            levels.add(order.levelPrice, -order.levelQuantity, -1);
+            order.levelQuantity = 0;
+        }
+        if (order.resting && !order.isInactive() && order.getQuantity() > 0) {
+            order.levelPrice = order.getPrice();
+            order.levelQuantity = order.getQuantity();
+            levels.add(order.levelPrice, order.levelQuantity, 1);
+        }
+    }
+
+    private void rebuildLevels() {
+        for (int i = 0; i < unsettledOrders.size(); i++)
+            unsettledOrders.get(i).levelQuantity = 0;
+        unsettledOrders.clear();
+        buyLevels.clear();
+        sellLevels.clear();
+        for (Order order : buyQueue) {
+            order.levelQuantity = 0;
+            settle(order);
+        }
+        for (Order order : sellQueue) {
+            order.levelQuantity = 0;
+            settle(order);
+        }
+        levelsStale = false;
+    }
+
+    public PriceLevel priceLevel(Side side, int price) {
+        settleLevels();
+        return levelCache(side).find(price);
+    }
+
+    public PriceLevel bestLevel(Side side) {
+        settleLevels();
+        PriceLevelCache levels = levelCache(side);
+        return levels.size() == 0 ? null : levels.level(0);
+    }
+
+    public List<PriceLevel> topLevels(Side side, int count) {
+        settleLevels();
+        return levelCache(side).top(count);
+    }
+
+    public List<PriceLevel> priceLevels(Side side) {
+        return topLevels(side, Integer.MAX_VALUE);
     }
 
     public int totalSellQuantityByShareholder(Shareholder shareholder) {
@@ -149,27 +274,37 @@ public class OrderBook {
                 .sum();
     }
 
-    public List<Order> activateOrder() {
+    /**
+     * Activates at most {@code limit} triggered stop-limit orders. The rest stay in the inactive queues, where they
+     * remain visible and can be deleted or updated, and are counted in the activation backlog until a later call.
+     */
+    public List<Order> activateOrder(int limit) {
         List<Order> activatedOrders = new LinkedList<>();
-        activateOrders(inactiveBuyQueue, activatedOrders);
-        activateOrders(inactiveSellQueue, activatedOrders);
+        activationBacklog = 0;
+        activateOrders(inactiveBuyQueue, activatedOrders, limit);
+        activateOrders(inactiveSellQueue, activatedOrders, limit);
         return activatedOrders;
     }
 
-    private void activateOrders(LinkedList<Order> queue, List<Order> activatedOrders) {
+    private void activateOrders(LinkedList<Order> queue, List<Order> activatedOrders, int limit) {
         var it = queue.listIterator();
         while (it.hasNext()) {
             Order order = it.next();
-            if (order.shouldActivate()) {
-                removeByOrderId(order.getSide(), order.getOrderId(), order.isInactive());
-                if (order.getSide() == Side.BUY) {
-                    order.getBroker().increaseCreditBy(order.getValue());
-                }
-                enqueueInActiveQueue(order);
-                order.activate();
-                it = queue.listIterator();
-                activatedOrders.add(order);
+            if (!order.shouldActivate())
+                continue;
+            if (activatedOrders.size() >= limit) {
+                activationBacklog++;
+                continue;
+            }
+            it.remove();
+            order.resting = false;
+            markLevelChanged(order);
+            if (order.getSide() == Side.BUY) {
+                order.getBroker().increaseCreditBy(order.getValue());
             }
+            enqueueInActiveQueue(order);
+            order.activate();
+            activatedOrders.add(order);
         }
     }
 
@@ -0,0 +1,10 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public record OrderView(long orderId, Side side, int price, int quantity, int totalQuantity, int peakSize,
+                        int stopPrice, boolean inactive) {
+    public static OrderView of(Order order) {
+        return new OrderView(order.getOrderId(), order.getSide(), order.getPrice(), order.getQuantity(),
+                order.getTotalQuantity(), order instanceof IcebergOrder iceberg ? iceberg.getPeakSize() : 0,
+                order.getStopPrice(), order.isInactive());
+    }
+}
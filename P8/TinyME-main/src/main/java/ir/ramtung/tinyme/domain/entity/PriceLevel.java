@@ -0,0 +1,4 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public record PriceLevel(Side side, int price, int quantity, int orders) {
+}
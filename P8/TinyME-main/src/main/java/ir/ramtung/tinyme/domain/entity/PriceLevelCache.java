@@ -0,0 +1,114 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Displayed quantity and order count per price level of one side, best level first.
+ * Levels are kept in parallel arrays, so reading the top N levels is O(N) and a change to an existing level
+ * is a binary search; adding or dropping a level shifts the levels behind it.
+ */
+public class PriceLevelCache {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Side side;
+    private int[] prices = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private int[] orders = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public PriceLevelCache(Side side) {
+        this.side = side;
+    }
+
+    public void add(int price, int quantity, int orderCount) {
+        int index = indexOf(price);
+        if (index < 0) {
+            index = -index - 1;
+            insertAt(index, price);
+        }
+        quantities[index] += quantity;
+        orders[index] += orderCount;
+        if (orders[index] == 0)
+            removeAt(index);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int price(int index) {
+        return prices[index];
+    }
+
+    public int quantity(int index) {
+        return quantities[index];
+    }
+
+    public int orders(int index) {
+        return orders[index];
+    }
+
+    public PriceLevel level(int index) {
+        return new PriceLevel(side, prices[index], quantities[index], orders[index]);
+    }
+
+    public PriceLevel find(int price) {
+        int index = indexOf(price);
+        return index < 0 ? null : level(index);
+    }
+
+    public List<PriceLevel> top(int count) {
+        int levels = Math.min(count, size);
+        List<PriceLevel> top = new ArrayList<>(levels);
+        for (int i = 0; i < levels; i++)
+            top.add(level(i));
+        return top;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private boolean ahead(int price, int other) {
+        return side == Side.BUY ? price > other : price < other;
+    }
+
+    private int indexOf(int price) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (prices[middle] == price)
+                return middle;
+            if (ahead(prices[middle], price))
+                low = middle + 1;
+            else
+                high = middle - 1;
+        }
+        return -(low + 1);
+    }
+
+    private void insertAt(int index, int price) {
+        if (size == prices.length) {
+            prices = Arrays.copyOf(prices, 2 * size);
+            quantities = Arrays.copyOf(quantities, 2 * size);
+            orders = Arrays.copyOf(orders, 2 * size);
+        }
+        System.arraycopy(prices, index, prices, index + 1, size - index);
+        System.arraycopy(quantities, index, quantities, index + 1, size - index);
+        System.arraycopy(orders, index, orders, index + 1, size - index);
+        prices[index] = price;
+        quantities[index] = 0;
+        orders[index] = 0;
+        size++;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+        System.arraycopy(quantities, index + 1, quantities, index, size - index - 1);
+        System.arraycopy(orders, index + 1, orders, index, size - index - 1);
+        size--;
+    }
+}
@@ -25,8 +25,15 @@ public class Security {
     private int lotSize = 1;
     @Builder.Default
     private OrderBook orderBook = new OrderBook();
+    @Builder.Default
+    private TradeTape tradeTape = new TradeTape();
+    @Builder.Default
+    @Setter
+    private volatile BookSnapshot bookSnapshot = BookSnapshot.EMPTY;
     @Setter
     private int lastTradePrice;
+    @Setter
+    private int indicativeOpeningPrice;
     @Builder.Default
     @Setter
     private MatchingState matchingState = MatchingState.CONTINUOUS;
@@ -39,18 +46,18 @@ public class Security {
         return trades;
     }
 
-    public LinkedList<MatchResult> newOrder(EnterOrderRq enterOrderRq, Broker broker, Shareholder shareholder, ContinuousMatcher continuousMatcher, AuctionMatcher auctionMatcher) {
+    public LinkedList<MatchResult> newOrder(EnterOrderRq enterOrderRq, Broker broker, Shareholder shareholder, ContinuousMatcher continuousMatcher, AuctionMatcher auctionMatcher, long entryTimeNanos) {
         if (enterOrderRq.getSide() == Side.SELL &&
                 !shareholder.hasEnoughPositionsOn(this,
                         orderBook.totalSellQuantityByShareholder(shareholder) + enterOrderRq.getQuantity()))
             return new LinkedList<>(List.of(MatchResult.notEnoughPositions()));
         if (matchingState == MatchingState.CONTINUOUS)
-            return newContinuousOrder(enterOrderRq, broker, shareholder, continuousMatcher);
+            return newContinuousOrder(enterOrderRq, broker, shareholder, continuousMatcher, entryTimeNanos);
         else
-            return new LinkedList<>(List.of(newAuctionOrder(enterOrderRq, broker, shareholder, auctionMatcher)));
+            return new LinkedList<>(List.of(newAuctionOrder(enterOrderRq, broker, shareholder, auctionMatcher, entryTimeNanos)));
     }
 
-    private MatchResult newAuctionOrder(EnterOrderRq enterOrderRq, Broker broker, Shareholder shareholder, AuctionMatcher auctionMatcher) {
+    private MatchResult newAuctionOrder(EnterOrderRq enterOrderRq, Broker broker, Shareholder shareholder, AuctionMatcher auctionMatcher, long entryTimeNanos) {
         if (enterOrderRq.getStopPrice() != 0 || enterOrderRq.getMinimumExecutionQuantity() != 0)
             return MatchResult.invalidOrderInAuctionState();
         if (enterOrderRq.getSide() == Side.BUY && !broker.hasEnoughCredit(enterOrderRq.getValue()))
@@ -58,16 +65,16 @@ public class Security {
         Order order = Order.builder().orderId(enterOrderRq.getOrderId()).security(this).
                 side(enterOrderRq.getSide()).quantity(enterOrderRq.getQuantity()).price(enterOrderRq.getPrice()).
                 minimumExecutionQuantity(enterOrderRq.getMinimumExecutionQuantity()).broker(broker).
-                shareholder(shareholder).entryTime(enterOrderRq.getEntryTime()).status(OrderStatus.NEW).
+                shareholder(shareholder).entryTime(enterOrderRq.getEntryTime()).entryTimeNanos(entryTimeNanos).status(OrderStatus.NEW).
                 stopPrice(enterOrderRq.getStopPrice()).inactive(enterOrderRq.getStopPrice() > 0).build();
         if (order.getSide() == Side.BUY)
             order.getBroker().decreaseCreditBy(order.getValue());
         return auctionMatcher.updateOpeningPriceWithNewOrder(order);
     }
 
-    private LinkedList<MatchResult> newContinuousOrder(EnterOrderRq enterOrderRq, Broker broker, Shareholder shareholder, ContinuousMatcher continuousMatcher) {
+    private LinkedList<MatchResult> newContinuousOrder(EnterOrderRq enterOrderRq, Broker broker, Shareholder shareholder, ContinuousMatcher continuousMatcher, long entryTimeNanos) {
         LinkedList<MatchResult> matchResults = new LinkedList<>();
-        Order order = buildOrder(enterOrderRq, broker, shareholder);
+        Order order = buildOrder(enterOrderRq, broker, shareholder, entryTimeNanos);
         if (enterOrderRq.getPeakSize() == 0 && !checkCredit(order, broker, matchResults)) {
             return matchResults;
         }
@@ -80,19 +87,19 @@ public class Security {
         return matchResults;
     }
 
-    private Order buildOrder(EnterOrderRq enterOrderRq, Broker broker, Shareholder shareholder) {
+    private Order buildOrder(EnterOrderRq enterOrderRq, Broker broker, Shareholder shareholder, long entryTimeNanos) {
         if (enterOrderRq.getPeakSize() == 0) {
             return Order.builder().orderId(enterOrderRq.getOrderId()).security(this).side(enterOrderRq.getSide()).
                     quantity(enterOrderRq.getQuantity()).price(enterOrderRq.getPrice()).
                     minimumExecutionQuantity(enterOrderRq.getMinimumExecutionQuantity()).broker(broker).
-                    shareholder(shareholder).entryTime(enterOrderRq.getEntryTime()).status(OrderStatus.NEW).
+                    shareholder(shareholder).entryTime(enterOrderRq.getEntryTime()).entryTimeNanos(entryTimeNanos).status(OrderStatus.NEW).
                     stopPrice(enterOrderRq.getStopPrice()).inactive(enterOrderRq.getStopPrice() > 0).build();
         }
         else {
             return IcebergOrder.builder().orderId(enterOrderRq.getOrderId()).security(this).side(enterOrderRq.getSide()).
                     quantity(enterOrderRq.getQuantity()).price(enterOrderRq.getPrice()).
                     minimumExecutionQuantity(enterOrderRq.getMinimumExecutionQuantity()).broker(broker).
-                    shareholder(shareholder).entryTime(enterOrderRq.getEntryTime()).peakSize(enterOrderRq.getPeakSize()).
+                    shareholder(shareholder).entryTime(enterOrderRq.getEntryTime()).entryTimeNanos(entryTimeNanos).peakSize(enterOrderRq.getPeakSize()).
                     stopPrice(enterOrderRq.getStopPrice()).inactive(enterOrderRq.getStopPrice() > 0).build();
         }
     }
@@ -163,6 +170,7 @@ public class Security {
                 return MatchResult.notEnoughCredit();
             order.getBroker().decreaseCreditBy(updateOrderRq.getValue());
         }
+        orderBook.markLevelChanged(order);
         order.updateFromRequest(updateOrderRq);
         orderBook.removeByOrderId(order.getSide(), order.getOrderId(), false);
         return auctionMatcher.updateOpeningPriceWithNewOrder(order);
@@ -218,6 +226,7 @@ public class Security {
             order.getBroker().increaseCreditBy(order.getValue());
         }
         Order originalOrder = order.snapshot();
+        orderBook.markLevelChanged(order);
         order.updateFromRequest(updateOrderRq);
         if (!losesPriority) {
             priorityLoss(updateOrderRq, order, matchResults);
@@ -232,7 +241,7 @@ public class Security {
         continuousMatcher.clearMatchResults();
         matchResults.addAll(continuousMatcher.execute(order));
         if (matchResults.getFirst().outcome() != MatchingOutcome.EXECUTED) {
-            orderBook.enqueue(originalOrder);
+            orderBook.restore(originalOrder);
             if (updateOrderRq.getSide() == Side.BUY) {
                 originalOrder.getBroker().decreaseCreditBy(originalOrder.getValue());
             }
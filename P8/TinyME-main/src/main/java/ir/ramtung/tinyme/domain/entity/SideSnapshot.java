@@ -0,0 +1,113 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.util.*;
+
+/**
+ * One side of a {@link BookSnapshot}: its price levels in book order, each holding the active and inactive orders
+ * at that price. An update copies only the levels named by the side's {@link ChangedLevels} and shares every other
+ * level with the previous snapshot, so its cost follows the size of the change rather than the size of the book.
+ */
+public final class SideSnapshot {
+    public static final SideSnapshot EMPTY = new SideSnapshot(new Level[0]);
+
+    private record Level(int price, PriceLevel priceLevel, OrderView[] orders) {
+    }
+
+    private final Level[] levels;
+
+    private SideSnapshot(Level[] levels) {
+        this.levels = levels;
+    }
+
+    public static SideSnapshot of(OrderBook orderBook, Side side) {
+        Map<Integer, List<OrderView>> orders = new TreeMap<>(bookOrder(side));
+        for (Order order : side == Side.BUY ? orderBook.getBuyQueue() : orderBook.getSellQueue())
+            orders.computeIfAbsent(order.getPrice(), price -> new ArrayList<>()).add(OrderView.of(order));
+        for (Order order : side == Side.BUY ? orderBook.getInactiveBuyQueue() : orderBook.getInactiveSellQueue())
+            orders.computeIfAbsent(order.getPrice(), price -> new ArrayList<>()).add(OrderView.of(order));
+        Level[] levels = new Level[orders.size()];
+        int size = 0;
+        for (Map.Entry<Integer, List<OrderView>> entry : orders.entrySet())
+            levels[size++] = level(orderBook, side, entry.getKey(), entry.getValue());
+        return new SideSnapshot(levels);
+    }
+
+    /**
+     * Returns this side brought up to date with the book, given the {@link ChangedLevels} version it was taken at.
+     * Falls back to a full copy when the changed prices no longer cover everything since then.
+     */
+    public SideSnapshot update(OrderBook orderBook, Side side, long sinceVersion) {
+        ChangedLevels changed = orderBook.getChangedLevels(side);
+        if (changed.isOverflowed() || sinceVersion < changed.getClearedVersion())
+            return of(orderBook, side);
+        if (changed.isEmpty())
+            return this;
+
+        TreeMap<Integer, List<OrderView>> orders = new TreeMap<>(bookOrder(side));
+        for (int i = 0; i < changed.size(); i++)
+            orders.put(changed.price(i), new ArrayList<>());
+        Comparator<Integer> bookOrder = bookOrder(side);
+        int lastChanged = orders.lastKey();
+        for (Order order : side == Side.BUY ? orderBook.getBuyQueue() : orderBook.getSellQueue()) {
+            if (bookOrder.compare(order.getPrice(), lastChanged) > 0)
+                break;
+            List<OrderView> level = orders.get(order.getPrice());
+            if (level != null)
+                level.add(OrderView.of(order));
+        }
+        for (Order order : side == Side.BUY ? orderBook.getInactiveBuyQueue() : orderBook.getInactiveSellQueue()) {
+            List<OrderView> level = orders.get(order.getPrice());
+            if (level != null)
+                level.add(OrderView.of(order));
+        }
+
+        List<Level> merged = new ArrayList<>(levels.length + orders.size());
+        int index = 0;
+        for (Map.Entry<Integer, List<OrderView>> entry : orders.entrySet()) {
+            int price = entry.getKey();
+            while (index < levels.length && bookOrder.compare(levels[index].price(), price) < 0)
+                merged.add(levels[index++]);
+            if (index < levels.length && levels[index].price() == price)
+                index++;
+            if (!entry.getValue().isEmpty())
+                merged.add(level(orderBook, side, price, entry.getValue()));
+        }
+        while (index < levels.length)
+            merged.add(levels[index++]);
+        return new SideSnapshot(merged.toArray(new Level[0]));
+    }
+
+    private static Level level(OrderBook orderBook, Side side, int price, List<OrderView> orders) {
+        return new Level(price, orderBook.priceLevel(side, price), orders.toArray(new OrderView[0]));
+    }
+
+    private static Comparator<Integer> bookOrder(Side side) {
+        return side == Side.BUY ? Comparator.reverseOrder() : Comparator.naturalOrder();
+    }
+
+    public List<PriceLevel> levels() {
+        List<PriceLevel> priceLevels = new ArrayList<>(levels.length);
+        for (Level level : levels) {
+            if (level.priceLevel() != null)
+                priceLevels.add(level.priceLevel());
+        }
+        return priceLevels;
+    }
+
+    public OrderView order(long orderId) {
+        for (Level level : levels) {
+            for (OrderView order : level.orders()) {
+                if (order.orderId() == orderId)
+                    return order;
+            }
+        }
+        return null;
+    }
+
+    public List<OrderView> orders() {
+        List<OrderView> orders = new ArrayList<>();
+        for (Level level : levels)
+            orders.addAll(Arrays.asList(level.orders()));
+        return orders;
+    }
+}
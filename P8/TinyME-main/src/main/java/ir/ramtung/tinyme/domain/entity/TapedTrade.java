@@ -0,0 +1,4 @@
+package ir.ramtung.tinyme.domain.entity;
+
+public record TapedTrade(long sequence, long timeMillis, int price, int quantity, long buyOrderId, long sellOrderId) {
+}
@@ -1,11 +1,15 @@
 package ir.ramtung.tinyme.domain.entity;
 
-import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 
-@Builder
+/**
+ * The compact fields of one fill: the order ids and the parties whose credit and positions it settles. It stays a
+ * mutable class rather than a record because the opt-in {@link ir.ramtung.tinyme.domain.service.Recycler} pools
+ * instances and refills them through {@link #reset}. Equality compares the current field values, as the matcher tests
+ * expect; a trade must not be kept, compared or used as a hash key after it has been released to the pool.
+ */
 @Getter
 @EqualsAndHashCode
 @ToString
@@ -13,22 +17,41 @@ public class Trade {
     Security security;
     private int price;
     private int quantity;
-    private Order buy;
-    private Order sell;
+    private long buyOrderId;
+    private long sellOrderId;
+    private Broker buyBroker;
+    private Broker sellBroker;
+    private Shareholder buyShareholder;
+    private Shareholder sellShareholder;
+
+    public Trade() {
+    }
 
     public Trade(Security security, int price, int quantity, Order order1, Order order2) {
+        reset(security, price, quantity, order1, order2);
+    }
+
+    public Trade reset(Security security, int price, int quantity, Order order1, Order order2) {
         this.security = security;
         this.price = price;
         this.quantity = quantity;
-        Order snapshot1 = order1.snapshot();
-        Order snapshot2 = order2.snapshot();
-        if (order1.getSide() == Side.BUY) {
-            this.buy = snapshot1;
-            this.sell = snapshot2;
-        } else {
-            this.buy = snapshot2;
-            this.sell = snapshot1;
-        }
+        Order buy = order1.getSide() == Side.BUY ? order1 : order2;
+        Order sell = order1.getSide() == Side.BUY ? order2 : order1;
+        this.buyOrderId = buy.getOrderId();
+        this.sellOrderId = sell.getOrderId();
+        this.buyBroker = buy.getBroker();
+        this.sellBroker = sell.getBroker();
+        this.buyShareholder = buy.getShareholder();
+        this.sellShareholder = sell.getShareholder();
+        return this;
+    }
+
+    public void clear() {
+        security = null;
+        buyBroker = null;
+        sellBroker = null;
+        buyShareholder = null;
+        sellShareholder = null;
     }
 
     public long getTradedValue() {
@@ -36,15 +59,20 @@ public class Trade {
     }
 
     public void increaseSellersCredit() {
-        sell.getBroker().increaseCreditBy(getTradedValue());
+        sellBroker.increaseCreditBy(getTradedValue());
     }
 
     public void decreaseBuyersCredit() {
-        buy.getBroker().decreaseCreditBy(getTradedValue());
+        buyBroker.decreaseCreditBy(getTradedValue());
     }
 
     public boolean buyerHasEnoughCredit() {
-        return buy.getBroker().hasEnoughCredit(getTradedValue());
+        return buyBroker.hasEnoughCredit(getTradedValue());
+    }
+
+    public void updatePositions() {
+        buyShareholder.incPosition(security, quantity);
+        sellShareholder.decPosition(security, quantity);
     }
 
 }
@@ -0,0 +1,70 @@
+package ir.ramtung.tinyme.domain.entity;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The last trades of a security, kept in preallocated arrays. The matching thread is the only writer;
+ * readers on other threads copy a snapshot and drop any slot the writer may have reached while they were copying.
+ * One spare slot lets a reader always get {@code capacity} intact trades.
+ */
+public class TradeTape {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final int slots;
+    private final long[] timeMillis;
+    private final int[] prices;
+    private final int[] quantities;
+    private final long[] buyOrderIds;
+    private final long[] sellOrderIds;
+    private volatile long written;
+
+    public TradeTape() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TradeTape(int capacity) {
+        this.capacity = capacity;
+        slots = capacity + 1;
+        timeMillis = new long[slots];
+        prices = new int[slots];
+        quantities = new int[slots];
+        buyOrderIds = new long[slots];
+        sellOrderIds = new long[slots];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public void record(Trade trade, long timeMillis) {
+        long sequence = written;
+        int slot = (int) (sequence % slots);
+        this.timeMillis[slot] = timeMillis;
+        prices[slot] = trade.getPrice();
+        quantities[slot] = trade.getQuantity();
+        buyOrderIds[slot] = trade.getBuyOrderId();
+        sellOrderIds[slot] = trade.getSellOrderId();
+        written = sequence + 1;
+    }
+
+    public List<TapedTrade> recent(int count) {
+        long end = written;
+        long begin = Math.max(0, end - Math.min(count, capacity));
+        List<TapedTrade> trades = new ArrayList<>((int) (end - begin));
+        for (long sequence = end - 1; sequence >= begin; sequence--) {
+            int slot = (int) (sequence % slots);
+            trades.add(new TapedTrade(sequence + 1, timeMillis[slot], prices[slot], quantities[slot], buyOrderIds[slot], sellOrderIds[slot]));
+        }
+        VarHandle.acquireFence();
+        long overwritten = written - capacity;
+        trades.removeIf(trade -> trade.sequence() <= overwritten);
+        return trades;
+    }
+}
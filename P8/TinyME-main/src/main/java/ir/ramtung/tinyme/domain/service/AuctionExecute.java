@@ -2,6 +2,7 @@ package ir.ramtung.tinyme.domain.service;
 
 import ir.ramtung.tinyme.domain.entity.*;
 import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.LinkedList;
@@ -9,6 +10,16 @@ import java.util.LinkedList;
 @Getter
 @Service
 public class AuctionExecute {
+    private final Recycler recycler;
+
+    public AuctionExecute() {
+        this(Recycler.disabled());
+    }
+
+    @Autowired
+    public AuctionExecute(Recycler recycler) {
+        this.recycler = recycler;
+    }
 
     public LinkedList<Trade> match(Order order, int openingPrice) {
         OrderBook orderBook = order.getSecurity().getOrderBook();
@@ -21,6 +32,8 @@ public class AuctionExecute {
                     break;
                 trades.add(applyTrade(order, matchingOrder, openingPrice));
                 dequeueEmptyOrder(order, matchingOrder, orderBook);
+                if (order.getQuantity() == 0 && order instanceof IcebergOrder icebergOrder)
+                    icebergOrder.replenish();
             }
         }
         return trades;
@@ -28,7 +41,7 @@ public class AuctionExecute {
 
     private void increaseBuyerBrokersCredit(Order order, int openingPrice) {
         if (order.getSide() == Side.BUY)
-            order.getBroker().increaseCreditBy((long) Math.abs(order.getPrice() - openingPrice) * order.getQuantity());
+            order.getBroker().increaseCreditBy((long) Math.abs(order.getPrice() - openingPrice) * order.getTotalQuantity());
     }
 
     public LinkedList<Order> chooseSide(OrderBook orderBook, int openingPrice) {
@@ -39,11 +52,10 @@ public class AuctionExecute {
     }
 
     private Trade applyTrade(Order order, Order matchingOrder, int openingPrice) {
-        Trade trade = new Trade(order.getSecurity(), openingPrice, Math.min(order.getQuantity(), matchingOrder.getQuantity()),
+        Trade trade = recycler.newTrade(order.getSecurity(), openingPrice, Math.min(order.getQuantity(), matchingOrder.getQuantity()),
                 order, matchingOrder);
         trade.increaseSellersCredit();
-        trade.getBuy().getShareholder().incPosition(trade.getSecurity(), trade.getQuantity());
-        trade.getSell().getShareholder().decPosition(trade.getSecurity(), trade.getQuantity());
+        trade.updatePositions();
         return trade;
     }
 
@@ -59,7 +71,7 @@ public class AuctionExecute {
             }
         } else {
             matchingOrder.decreaseQuantity(order.getQuantity());
-            order.makeQuantityZero();
+            order.decreaseQuantity(order.getQuantity());
         }
     }
 
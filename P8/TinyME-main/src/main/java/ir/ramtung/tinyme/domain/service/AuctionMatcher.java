@@ -4,7 +4,10 @@ import ir.ramtung.tinyme.domain.entity.Trade;
 import ir.ramtung.tinyme.domain.entity.Order;
 import ir.ramtung.tinyme.domain.entity.Security;
 import ir.ramtung.tinyme.domain.entity.MatchResult;
+import ir.ramtung.tinyme.monitoring.jfr.AuctionUncrossEvent;
+import ir.ramtung.tinyme.monitoring.jfr.OpeningPriceCalculationEvent;
 import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.LinkedList;
@@ -15,9 +18,29 @@ import java.util.List;
 public class AuctionMatcher {
     private int openingPrice;
     private int tradableQuantity;
+    private final Recycler recycler;
+    private final OpeningPriceFeed openingPriceFeed;
+
+    public AuctionMatcher() {
+        this(Recycler.disabled());
+    }
+
+    public AuctionMatcher(Recycler recycler) {
+        this(recycler, OpeningPriceFeed.disabled());
+    }
+
+    @Autowired
+    public AuctionMatcher(Recycler recycler, OpeningPriceFeed openingPriceFeed) {
+        this.recycler = recycler;
+        this.openingPriceFeed = openingPriceFeed;
+    }
 
     public LinkedList<Trade> execute(Security security) {
-        AuctionExecute exe = new AuctionExecute();
+        AuctionUncrossEvent event = new AuctionUncrossEvent();
+        event.begin();
+        int buyOrders = security.getOrderBook().getBuyQueue().size();
+        int sellOrders = security.getOrderBook().getSellQueue().size();
+        AuctionExecute exe = new AuctionExecute(recycler);
         LinkedList<Trade> trades = new LinkedList<>();
         List<Integer> tradableQuantityOpeningPrice = new updateOpeningPrice().findOpeningPrice(security);
         tradableQuantity = tradableQuantityOpeningPrice.get(0);
@@ -25,16 +48,41 @@ public class AuctionMatcher {
         LinkedList<Order> chosenSide = exe.chooseSide(security.getOrderBook() , openingPrice);
         for (Order order : chosenSide)
             trades.addAll(exe.match(order , openingPrice));
+        security.getOrderBook().markAllLevelsChanged();
+        security.setIndicativeOpeningPrice(0);
+        if (event.shouldCommit()) {
+            event.isin = security.getIsin();
+            event.openingPrice = openingPrice;
+            event.tradableQuantity = tradableQuantity;
+            event.trades = trades.size();
+            event.buyOrders = buyOrders;
+            event.sellOrders = sellOrders;
+            event.commit();
+        }
         return trades;
     }
 
     public MatchResult updateOpeningPriceWithNewOrder(Order order) {
+        if (openingPriceFeed.isConflated()) {
+            order.getSecurity().getOrderBook().enqueue(order);
+            openingPriceFeed.changed(order.getSecurity());
+            return MatchResult.openingPriceDeferred(order.getSecurity().getIsin());
+        }
+        OpeningPriceCalculationEvent event = new OpeningPriceCalculationEvent();
+        event.begin();
         order.getSecurity().getOrderBook().enqueue(order);
         List<Integer> tradableQuantityOpeningPrice = new updateOpeningPrice().findOpeningPrice(order.getSecurity());
         tradableQuantity = tradableQuantityOpeningPrice.get(0);
         openingPrice = tradableQuantityOpeningPrice.get(1);
+        order.getSecurity().setIndicativeOpeningPrice(openingPrice);
+        if (event.shouldCommit()) {
+            event.isin = order.getSecurity().getIsin();
+            event.openingPrice = openingPrice;
+            event.tradableQuantity = tradableQuantity;
+            event.buyOrders = order.getSecurity().getOrderBook().getBuyQueue().size();
+            event.sellOrders = order.getSecurity().getOrderBook().getSellQueue().size();
+            event.commit();
+        }
         return MatchResult.openingPriceHasBeenSet(order.getSecurity().getIsin(), openingPrice, tradableQuantity);
     }
-
-
 }
@@ -0,0 +1,146 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.Trade;
+import ir.ramtung.tinyme.messaging.event.BarEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+@Component
+public class BarAggregator {
+    private final boolean enabled;
+    private final int[] intervalSeconds;
+    private final long[] intervalMillis;
+    private final LongSupplier clock;
+    private final Map<String, Bar[]> bars = new HashMap<>();
+    private final List<BarEvent> completed = new ArrayList<>();
+    private long nextBoundary = Long.MAX_VALUE;
+
+    private static class Bar {
+        long start;
+        int open;
+        int high;
+        int low;
+        int close;
+        long volume;
+        long turnover;
+        int trades;
+
+        void add(long start, int price, int quantity) {
+            if (trades == 0) {
+                this.start = start;
+                open = price;
+                high = price;
+                low = price;
+            }
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+            close = price;
+            volume += quantity;
+            turnover += (long) price * quantity;
+            trades++;
+        }
+
+        void reset() {
+            volume = 0;
+            turnover = 0;
+            trades = 0;
+        }
+    }
+
+    @Autowired
+    public BarAggregator(@Value("${bars.enabled:false}") boolean enabled, @Value("${bars.intervalSeconds:60}") int[] intervalSeconds) {
+        this(enabled, intervalSeconds, System::currentTimeMillis);
+    }
+
+    public BarAggregator(boolean enabled, int[] intervalSeconds, LongSupplier clock) {
+        this.enabled = enabled;
+        this.intervalSeconds = intervalSeconds.clone();
+        this.intervalMillis = Arrays.stream(intervalSeconds).mapToLong(seconds -> seconds * 1000L).toArray();
+        this.clock = clock;
+    }
+
+    public static BarAggregator disabled() {
+        return new BarAggregator(false, new int[0], System::currentTimeMillis);
+    }
+
+    public void onTrade(Trade trade) {
+        if (!enabled)
+            return;
+        long now = clock.getAsLong();
+        closeDue(now);
+        String isin = trade.getSecurity().getIsin();
+        Bar[] securityBars = bars.get(isin);
+        if (securityBars == null) {
+            securityBars = new Bar[intervalMillis.length];
+            for (int i = 0; i < securityBars.length; i++)
+                securityBars[i] = new Bar();
+            bars.put(isin, securityBars);
+        }
+        for (int i = 0; i < intervalMillis.length; i++) {
+            Bar bar = securityBars[i];
+            long start = now - now % intervalMillis[i];
+            if (bar.trades > 0 && bar.start != start)
+                complete(isin, i, bar);
+            bar.add(start, trade.getPrice(), trade.getQuantity());
+            nextBoundary = Math.min(nextBoundary, start + intervalMillis[i]);
+        }
+    }
+
+    public void closeDue() {
+        if (enabled)
+            closeDue(clock.getAsLong());
+    }
+
+    public List<BarEvent> drainCompleted() {
+        if (completed.isEmpty())
+            return List.of();
+        List<BarEvent> drained = new ArrayList<>(completed);
+        completed.clear();
+        return drained;
+    }
+
+    public BarEvent openBar(String isin, int intervalSeconds) {
+        Bar[] securityBars = bars.get(isin);
+        for (int i = 0; securityBars != null && i < this.intervalSeconds.length; i++) {
+            if (this.intervalSeconds[i] == intervalSeconds && securityBars[i].trades > 0)
+                return toEvent(isin, i, securityBars[i]);
+        }
+        return null;
+    }
+
+    private void closeDue(long now) {
+        if (now < nextBoundary)
+            return;
+        nextBoundary = Long.MAX_VALUE;
+        for (Map.Entry<String, Bar[]> entry : bars.entrySet()) {
+            Bar[] securityBars = entry.getValue();
+            for (int i = 0; i < securityBars.length; i++) {
+                Bar bar = securityBars[i];
+                if (bar.trades == 0)
+                    continue;
+                if (bar.start + intervalMillis[i] <= now)
+                    complete(entry.getKey(), i, bar);
+                else
+                    nextBoundary = Math.min(nextBoundary, bar.start + intervalMillis[i]);
+            }
+        }
+    }
+
+    private void complete(String isin, int interval, Bar bar) {
+        completed.add(toEvent(isin, interval, bar));
+        bar.reset();
+    }
+
+    private BarEvent toEvent(String isin, int interval, Bar bar) {
+        LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochMilli(bar.start), ZoneId.systemDefault());
+        return new BarEvent(isin, intervalSeconds[interval], start, bar.open, bar.high, bar.low, bar.close,
+                bar.volume, bar.turnover, (double) bar.turnover / bar.volume, bar.trades);
+    }
+}
@@ -0,0 +1,75 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.BookSnapshot;
+import ir.ramtung.tinyme.domain.entity.PriceLevel;
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.event.BookSnapshotEvent;
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.event.OrderStatusEvent;
+import ir.ramtung.tinyme.messaging.request.BookSnapshotRq;
+import ir.ramtung.tinyme.messaging.request.OrderStatusRq;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Answers book queries from the last snapshot the matching thread published, so queries never touch the order book.
+ * While snapshots are disabled there is nothing to answer from, and queries are rejected.
+ */
+@Service
+public class BookQueryHandler {
+    private final SecurityRepository securityRepository;
+    private final EventPublisher eventPublisher;
+    private final BookSnapshots bookSnapshots;
+
+    public BookQueryHandler(SecurityRepository securityRepository, EventPublisher eventPublisher, BookSnapshots bookSnapshots) {
+        this.securityRepository = securityRepository;
+        this.eventPublisher = eventPublisher;
+        this.bookSnapshots = bookSnapshots;
+    }
+
+    public void handleBookSnapshotRq(BookSnapshotRq bookSnapshotRq) {
+        Security security = securityRepository.findSecurityByIsin(bookSnapshotRq.getSecurityIsin());
+        List<String> errors = new LinkedList<>();
+        if (!bookSnapshots.isEnabled())
+            errors.add(Message.BOOK_SNAPSHOTS_DISABLED);
+        if (security == null)
+            errors.add(Message.UNKNOWN_SECURITY_ISIN);
+        if (bookSnapshotRq.getDepth() <= 0)
+            errors.add(Message.INVALID_BOOK_DEPTH);
+        if (!errors.isEmpty()) {
+            eventPublisher.publish(new OrderRejectedEvent(bookSnapshotRq.getRequestId(), 0, errors));
+            return;
+        }
+        BookSnapshot snapshot = security.getBookSnapshot();
+        eventPublisher.publish(new BookSnapshotEvent(bookSnapshotRq.getRequestId(), security.getIsin(), snapshot.version(),
+                snapshot.matchingState(), snapshot.lastTradePrice(), snapshot.indicativeOpeningPrice(),
+                top(snapshot.levels(Side.BUY), bookSnapshotRq.getDepth()), top(snapshot.levels(Side.SELL), bookSnapshotRq.getDepth())));
+    }
+
+    public void handleOrderStatusRq(OrderStatusRq orderStatusRq) {
+        Security security = securityRepository.findSecurityByIsin(orderStatusRq.getSecurityIsin());
+        List<String> errors = new LinkedList<>();
+        if (!bookSnapshots.isEnabled())
+            errors.add(Message.BOOK_SNAPSHOTS_DISABLED);
+        if (security == null)
+            errors.add(Message.UNKNOWN_SECURITY_ISIN);
+        if (!errors.isEmpty()) {
+            eventPublisher.publish(new OrderRejectedEvent(orderStatusRq.getRequestId(), orderStatusRq.getOrderId(), errors));
+            return;
+        }
+        BookSnapshot snapshot = security.getBookSnapshot();
+        eventPublisher.publish(new OrderStatusEvent(orderStatusRq.getRequestId(), security.getIsin(), snapshot.version(),
+                orderStatusRq.getSide(), orderStatusRq.getOrderId(),
+                snapshot.order(orderStatusRq.getSide(), orderStatusRq.getOrderId())));
+    }
+
+    private static List<PriceLevel> top(List<PriceLevel> levels, int depth) {
+        return levels.size() <= depth ? levels : levels.subList(0, depth);
+    }
+}
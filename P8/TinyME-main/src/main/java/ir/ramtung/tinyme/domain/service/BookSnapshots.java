@@ -0,0 +1,32 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.BookSnapshot;
+import ir.ramtung.tinyme.domain.entity.Security;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BookSnapshots {
+    private final boolean enabled;
+
+    public BookSnapshots(@Value("${snapshots.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static BookSnapshots disabled() {
+        return new BookSnapshots(false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void update(Security security) {
+        if (!enabled)
+            return;
+        BookSnapshot previous = security.getBookSnapshot();
+        BookSnapshot snapshot = BookSnapshot.of(security, previous);
+        if (snapshot != previous)
+            security.setBookSnapshot(snapshot);
+    }
+}
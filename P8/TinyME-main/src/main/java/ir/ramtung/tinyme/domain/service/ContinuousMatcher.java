@@ -1,31 +1,72 @@
 package ir.ramtung.tinyme.domain.service;
 
 import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.monitoring.jfr.MatchSweepEvent;
+import ir.ramtung.tinyme.monitoring.jfr.RollbackEvent;
+import ir.ramtung.tinyme.monitoring.jfr.StopActivationEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 
 @Service
 public class ContinuousMatcher {
+    public static final int DEFAULT_ACTIVATION_BUDGET = 10_000;
+
     private LinkedList<MatchResult> matchResults = new LinkedList<>();
+    private final ArrayList<Order> sweptOrders = new ArrayList<>();
+    private final Recycler recycler;
+    private final int activationBudget;
+    private int remainingBudget;
+    private long activationNanos;
+
+    public ContinuousMatcher() {
+        this(Recycler.disabled());
+    }
+
+    public ContinuousMatcher(Recycler recycler) {
+        this(recycler, DEFAULT_ACTIVATION_BUDGET);
+    }
+
+    @Autowired
+    public ContinuousMatcher(Recycler recycler, @Value("${matching.activationBudget:" + DEFAULT_ACTIVATION_BUDGET + "}") int activationBudget) {
+        this.recycler = recycler;
+        this.activationBudget = activationBudget;
+    }
 
     public MatchResult match(Order newOrder) {
+        MatchSweepEvent event = new MatchSweepEvent();
+        event.begin();
         OrderBook orderBook = newOrder.getSecurity().getOrderBook();
-        LinkedList<Trade> trades = new LinkedList<>();
+        MatchResult result = recycler.newMatchResult();
+        LinkedList<Trade> trades = result.trades();
+        int levels = 0;
+        int levelPrice = 0;
+        sweptOrders.clear();
 
         while (orderBook.hasOrderOfType(newOrder.getSide().opposite()) && newOrder.getQuantity() > 0) {
             Order matchingOrder = orderBook.matchWithFirst(newOrder);
             if (matchingOrder == null)
                 break;
+            if (levels == 0 || matchingOrder.getPrice() != levelPrice) {
+                levels++;
+                levelPrice = matchingOrder.getPrice();
+            }
 
-            Trade trade = new Trade(newOrder.getSecurity(), matchingOrder.getPrice(), Math.min(newOrder.getQuantity(), matchingOrder.getQuantity()), newOrder, matchingOrder);
+            Trade trade = recycler.newTrade(newOrder.getSecurity(), matchingOrder.getPrice(), Math.min(newOrder.getQuantity(), matchingOrder.getQuantity()), newOrder, matchingOrder);
             if (newOrder.getSide() == Side.BUY) {
                 if (trade.buyerHasEnoughCredit())
                     trade.decreaseBuyersCredit();
                 else {
+                    recycler.release(trade);
+                    int tradeCount = trades.size();
                     buyerRollbackTrades(newOrder, trades);
+                    recycler.release(result);
+                    commitSweep(event, newOrder, levels, tradeCount, 0, MatchingOutcome.NOT_ENOUGH_CREDIT);
                     return MatchResult.notEnoughCredit();
                 }
             }
@@ -33,8 +74,11 @@ public class ContinuousMatcher {
             trades.add(trade);
 
             if (newOrder.getQuantity() >= matchingOrder.getQuantity()) {
-                newOrder.decreaseQuantity(matchingOrder.getQuantity());
+                int tradedQuantity = matchingOrder.getQuantity();
+                newOrder.decreaseQuantity(tradedQuantity);
+                matchingOrder.decreaseQuantity(tradedQuantity);
                 orderBook.removeFirst(matchingOrder.getSide());
+                sweptOrders.add(matchingOrder);
                 orderBook.handleIcebergOrder(matchingOrder, orderBook);
             } else {
                 matchingOrder.decreaseQuantity(newOrder.getQuantity());
@@ -42,7 +86,23 @@ public class ContinuousMatcher {
             }
         }
         int SumOfTradesQuantities = getSumOfTradesQuantities(trades);
-        return validateMinimumExecutionQuantity(SumOfTradesQuantities, newOrder, trades);
+        int tradeCount = trades.size();
+        MatchResult validated = validateMinimumExecutionQuantity(SumOfTradesQuantities, newOrder, result);
+        commitSweep(event, newOrder, levels, tradeCount, SumOfTradesQuantities, validated.outcome());
+        return validated;
+    }
+
+    private static void commitSweep(MatchSweepEvent event, Order order, int levels, int trades, int tradedQuantity, MatchingOutcome outcome) {
+        if (!event.shouldCommit())
+            return;
+        event.orderId = order.getOrderId();
+        event.isin = order.getSecurity().getIsin();
+        event.side = order.getSide().name();
+        event.levels = levels;
+        event.trades = trades;
+        event.tradedQuantity = tradedQuantity;
+        event.outcome = outcome.name();
+        event.commit();
     }
 
     private void rollbackTrades(Order newOrder, LinkedList<Trade> trades) {
@@ -55,40 +115,106 @@ public class ContinuousMatcher {
 
     private void buyerRollbackTrades(Order newOrder, LinkedList<Trade> trades) {
         assert newOrder.getSide() == Side.BUY;
+        RollbackEvent event = new RollbackEvent();
+        event.begin();
         newOrder.getBroker().increaseCreditBy(trades.stream().mapToLong(Trade::getTradedValue).sum());
-        trades.forEach(trade -> trade.getSell().getBroker().decreaseCreditBy(trade.getTradedValue()));
+        trades.forEach(trade -> trade.getSellBroker().decreaseCreditBy(trade.getTradedValue()));
 
         ListIterator<Trade> it = trades.listIterator(trades.size());
         while (it.hasPrevious()) {
-            newOrder.getSecurity().getOrderBook().restoreSellOrder(it.previous().getSell());
+            Trade trade = it.previous();
+            OrderBook orderBook = newOrder.getSecurity().getOrderBook();
+            orderBook.restoreSellOrder(restingOrder(orderBook, Side.SELL, trade.getSellOrderId()), trade.getQuantity());
         }
+        commitRollback(event, newOrder, trades);
     }
 
     private void sellerRollbackTrades(Order newOrder, LinkedList<Trade> trades) {
         assert newOrder.getSide() == Side.SELL;
+        RollbackEvent event = new RollbackEvent();
+        event.begin();
         newOrder.getBroker().decreaseCreditBy(trades.stream().mapToLong(Trade::getTradedValue).sum());
-        trades.forEach(trade -> trade.getBuy().getBroker().increaseCreditBy(trade.getTradedValue()));
+        trades.forEach(trade -> trade.getBuyBroker().increaseCreditBy(trade.getTradedValue()));
 
         ListIterator<Trade> it = trades.listIterator(trades.size());
         while (it.hasPrevious()) {
-            newOrder.getSecurity().getOrderBook().restoreBuyOrder(it.previous().getBuy());
+            Trade trade = it.previous();
+            OrderBook orderBook = newOrder.getSecurity().getOrderBook();
+            orderBook.restoreBuyOrder(restingOrder(orderBook, Side.BUY, trade.getBuyOrderId()), trade.getQuantity());
         }
+        commitRollback(event, newOrder, trades);
+    }
+
+    // a resting order that the sweep filled completely is no longer in the book, but in the swept orders
+    private Order restingOrder(OrderBook orderBook, Side side, long orderId) {
+        Order order = orderBook.findByOrderId(side, orderId, false);
+        if (order != null)
+            return order;
+        for (int i = sweptOrders.size() - 1; i >= 0; i--) {
+            if (sweptOrders.get(i).getOrderId() == orderId)
+                return sweptOrders.get(i);
+        }
+        throw new IllegalStateException("Order " + orderId + " traded in this sweep is missing");
+    }
+
+    private void commitRollback(RollbackEvent event, Order order, LinkedList<Trade> trades) {
+        if (!event.shouldCommit())
+            return;
+        event.orderId = order.getOrderId();
+        event.isin = order.getSecurity().getIsin();
+        event.side = order.getSide().name();
+        event.trades = trades.size();
+        event.quantity = getSumOfTradesQuantities(trades);
+        event.commit();
     }
 
     public LinkedList<MatchResult> execute(Order order) {
+        OrderBook orderBook = order.getSecurity().getOrderBook();
+        remainingBudget = activationBudget;
+        executeOne(order);
+        if (orderBook.getActivationBacklog() > 0)
+            activate(order.getSecurity());
+        if (orderBook.getActiveQueue().isEmpty())
+            return matchResults;
+        StopActivationEvent event = new StopActivationEvent();
+        event.begin();
+        long cascadeStart = System.nanoTime();
+        while (!orderBook.getActiveQueue().isEmpty()) {
+            remainingBudget--;
+            executeOne(orderBook.getActiveQueue().removeFirst());
+        }
+        activationNanos += System.nanoTime() - cascadeStart;
+        if (event.shouldCommit()) {
+            event.isin = order.getSecurity().getIsin();
+            event.executed = activationBudget - remainingBudget;
+            event.backlog = orderBook.getActivationBacklog();
+            event.inactiveOrders = orderBook.getInactiveBuyQueue().size() + orderBook.getInactiveSellQueue().size();
+            event.commit();
+        }
+        return matchResults;
+    }
+
+    public long takeActivationNanos() {
+        long nanos = activationNanos;
+        activationNanos = 0;
+        return nanos;
+    }
+
+    private void executeOne(Order order) {
         MatchResult result = match(order);
 
-        if (result.outcome() == MatchingOutcome.NOT_ENOUGH_CREDIT) {
+        if (result.outcome() != MatchingOutcome.EXECUTED) {
             matchResults.add(result);
-            return matchResults;
+            return;
         }
 
         if (result.remainder().getQuantity() > 0) {
             if (order.getSide() == Side.BUY) {
                 if (!order.getBroker().hasEnoughCredit(order.getValue())) {
                     buyerRollbackTrades(order, result.trades());
+                    recycler.release(result);
                     matchResults.add(MatchResult.notEnoughCredit());
-                    return matchResults;
+                    return;
                 }
                 order.getBroker().decreaseCreditBy(order.getValue());
             }
@@ -97,16 +223,12 @@ public class ContinuousMatcher {
         managePositionForTrades(result.trades());
         matchResults.add(result);
         activator(result);
-        executeActivates(result);
-        return matchResults;
     }
 
     private static void managePositionForTrades(LinkedList<Trade> trades) {
         if (!trades.isEmpty()) {
-            for (Trade trade : trades) {
-                trade.getBuy().getShareholder().incPosition(trade.getSecurity(), trade.getQuantity());
-                trade.getSell().getShareholder().decPosition(trade.getSecurity(), trade.getQuantity());
-            }
+            for (Trade trade : trades)
+                trade.updatePositions();
         }
     }
 
@@ -116,12 +238,13 @@ public class ContinuousMatcher {
                 .sum();
     }
 
-    private MatchResult validateMinimumExecutionQuantity(int SumOfTradesQuantities, Order newOrder, LinkedList<Trade> trades) {
+    private MatchResult validateMinimumExecutionQuantity(int SumOfTradesQuantities, Order newOrder, MatchResult result) {
         if (newOrder.getMinimumExecutionQuantity() > SumOfTradesQuantities) {
-            rollbackTrades(newOrder, trades);
+            rollbackTrades(newOrder, result.trades());
+            recycler.release(result);
             return MatchResult.notEnoughQuantitiesTraded();
         } else {
-            return MatchResult.executed(newOrder, trades);
+            return result.reset(MatchingOutcome.EXECUTED, newOrder);
         }
     }
 
@@ -133,20 +256,16 @@ public class ContinuousMatcher {
         if (!lastResult.trades().isEmpty()) {
             int lastPrice = lastResult.trades().getLast().getPrice();
             lastResult.remainder().getSecurity().setLastTradePrice(lastPrice);
-            List<Order> activatedOrders = lastResult.remainder().getSecurity().getOrderBook().activateOrder();
-            for (Order order : activatedOrders) {
-                MatchResult result = MatchResult.stopLimitOrderActivated(order);
-                matchResults.add(result);
-            }
+            activate(lastResult.remainder().getSecurity());
         }
     }
 
-    private void executeActivates(MatchResult result) {
-        var it = result.remainder().getSecurity().getOrderBook().getActiveQueue().listIterator();
-        if (it.hasNext()) {
-            Order order = it.next();
-            result.remainder().getSecurity().getOrderBook().dequeueFromActiveQueue(order);
-            execute(order);
+    private void activate(Security security) {
+        OrderBook orderBook = security.getOrderBook();
+        List<Order> activatedOrders = orderBook.activateOrder(remainingBudget - orderBook.getActiveQueue().size());
+        for (Order order : activatedOrders) {
+            MatchResult result = recycler.stopLimitOrderActivated(order);
+            matchResults.add(result);
         }
     }
 }
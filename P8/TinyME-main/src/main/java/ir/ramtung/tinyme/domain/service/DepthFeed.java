@@ -0,0 +1,97 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.messaging.PriceLevelUpdate;
+import ir.ramtung.tinyme.messaging.PriceLevelUpdate.Action;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+@Component
+public class DepthFeed {
+    private static final Comparator<PriceLevelUpdate> BOOK_ORDER = Comparator.comparing(PriceLevelUpdate::side)
+            .thenComparingInt(update -> update.side() == Side.BUY ? -update.price() : update.price());
+
+    private final boolean enabled;
+    private final Map<String, PublishedDepth> published = new HashMap<>();
+
+    private static class PublishedDepth {
+        final Map<Integer, PriceLevel> buy = new HashMap<>();
+        final Map<Integer, PriceLevel> sell = new HashMap<>();
+
+        Map<Integer, PriceLevel> side(Side side) {
+            return side == Side.BUY ? buy : sell;
+        }
+    }
+
+    public DepthFeed(@Value("${depth.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static DepthFeed disabled() {
+        return new DepthFeed(false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<PriceLevelUpdate> collect(Security security) {
+        OrderBook orderBook = security.getOrderBook();
+        if (!enabled || (orderBook.getChangedLevels(Side.BUY).isEmpty() && orderBook.getChangedLevels(Side.SELL).isEmpty())) {
+            orderBook.getChangedLevels(Side.BUY).clear();
+            orderBook.getChangedLevels(Side.SELL).clear();
+            return List.of();
+        }
+        PublishedDepth depth = published.computeIfAbsent(security.getIsin(), isin -> new PublishedDepth());
+        List<PriceLevelUpdate> updates = new ArrayList<>();
+        collect(orderBook, Side.BUY, depth.side(Side.BUY), updates);
+        collect(orderBook, Side.SELL, depth.side(Side.SELL), updates);
+        updates.sort(BOOK_ORDER);
+        return updates;
+    }
+
+    public List<PriceLevel> publishedLevels(String isin, Side side) {
+        PublishedDepth depth = published.get(isin);
+        if (depth == null)
+            return List.of();
+        List<PriceLevel> levels = new ArrayList<>(depth.side(side).values());
+        levels.sort(Comparator.comparingInt(level -> side == Side.BUY ? -level.price() : level.price()));
+        return levels;
+    }
+
+    public void clear() {
+        published.clear();
+    }
+
+    private void collect(OrderBook orderBook, Side side, Map<Integer, PriceLevel> published, List<PriceLevelUpdate> updates) {
+        ChangedLevels changed = orderBook.getChangedLevels(side);
+        if (changed.isOverflowed()) {
+            Map<Integer, PriceLevel> current = new HashMap<>();
+            for (PriceLevel level : orderBook.priceLevels(side))
+                current.put(level.price(), level);
+            for (Integer price : new ArrayList<>(published.keySet())) {
+                if (!current.containsKey(price))
+                    update(published, side, price, null, updates);
+            }
+            for (PriceLevel level : current.values())
+                update(published, side, level.price(), level, updates);
+        } else {
+            for (int i = 0; i < changed.size(); i++)
+                update(published, side, changed.price(i), orderBook.priceLevel(side, changed.price(i)), updates);
+        }
+        changed.clear();
+    }
+
+    private static void update(Map<Integer, PriceLevel> published, Side side, int price, PriceLevel level, List<PriceLevelUpdate> updates) {
+        PriceLevel previous = level == null ? published.remove(price) : published.put(price, level);
+        if (level == null) {
+            if (previous != null)
+                updates.add(new PriceLevelUpdate(Action.DELETE, side, price, 0, 0));
+        } else if (previous == null)
+            updates.add(new PriceLevelUpdate(Action.ADD, level));
+        else if (!previous.equals(level))
+            updates.add(new PriceLevelUpdate(Action.CHANGE, level));
+    }
+}
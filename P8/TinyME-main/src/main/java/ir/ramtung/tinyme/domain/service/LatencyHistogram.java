@@ -0,0 +1,77 @@
+package ir.ramtung.tinyme.domain.service;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int MAX_VALUE_BITS = 40;
+    public static final long HIGHEST_TRACKABLE_VALUE = (1L << MAX_VALUE_BITS) - 1;
+
+    private final long[] counts = new long[SUB_BUCKETS + (MAX_VALUE_BITS - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS];
+    @Getter
+    private long totalCount;
+    private long totalNanos;
+    @Getter
+    private long max;
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), HIGHEST_TRACKABLE_VALUE);
+        counts[indexOf(value)]++;
+        totalCount++;
+        totalNanos += value;
+        if (value > max)
+            max = value;
+    }
+
+    public long percentile(double percentile) {
+        if (totalCount == 0)
+            return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target)
+                return Math.min(highestValueAt(i), max);
+        }
+        return max;
+    }
+
+    public double mean() {
+        return totalCount == 0 ? 0 : (double) totalNanos / totalCount;
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        copy.totalCount = totalCount;
+        copy.totalNanos = totalNanos;
+        copy.max = max;
+        return copy;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalNanos = 0;
+        max = 0;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
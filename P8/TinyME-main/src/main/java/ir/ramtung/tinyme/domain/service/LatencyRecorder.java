@@ -0,0 +1,146 @@
+package ir.ramtung.tinyme.domain.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Formatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+// Requests are handled one at a time under the order handler's lock, so the histograms have a single writer. Other
+// threads go through requestReset and report, which the writer serves on its next recording.
+@Component
+public class LatencyRecorder {
+    public enum RequestType { NEW_ORDER, UPDATE_ORDER, DELETE_ORDER, CHANGE_MATCHING_STATE }
+
+    public enum Stage { VALIDATION, MATCHING, ACTIVATION, PUBLISHING, TOTAL }
+
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    @Getter
+    private final boolean enabled;
+    private final LatencyHistogram[][] histograms = new LatencyHistogram[RequestType.values().length][Stage.values().length];
+    private final AtomicBoolean resetRequested = new AtomicBoolean();
+    private final AtomicReference<CompletableFuture<LatencyHistogram[][]>> copyRequested = new AtomicReference<>();
+
+    public LatencyRecorder(@Value("${latency.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+        for (LatencyHistogram[] stages : histograms) {
+            for (int i = 0; i < stages.length; i++)
+                stages[i] = new LatencyHistogram();
+        }
+    }
+
+    public static LatencyRecorder disabled() {
+        return new LatencyRecorder(false);
+    }
+
+    public long now() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void record(RequestType type, Stage stage, long nanos) {
+        if (!enabled)
+            return;
+        if (copyRequested.get() != null || resetRequested.get())
+            serveRequests();
+        histograms[type.ordinal()][stage.ordinal()].record(nanos);
+    }
+
+    private void serveRequests() {
+        CompletableFuture<LatencyHistogram[][]> copy = copyRequested.getAndSet(null);
+        if (copy != null)
+            copy.complete(copy());
+        if (resetRequested.compareAndSet(true, false))
+            reset();
+    }
+
+    private LatencyHistogram[][] copy() {
+        LatencyHistogram[][] copy = new LatencyHistogram[histograms.length][];
+        for (int type = 0; type < histograms.length; type++) {
+            copy[type] = new LatencyHistogram[histograms[type].length];
+            for (int stage = 0; stage < histograms[type].length; stage++)
+                copy[type][stage] = histograms[type][stage].copy();
+        }
+        return copy;
+    }
+
+    public long lap(RequestType type, Stage stage, long since) {
+        long now = now();
+        record(type, stage, now - since);
+        return now;
+    }
+
+    public LatencyHistogram histogram(RequestType type, Stage stage) {
+        return histograms[type.ordinal()][stage.ordinal()];
+    }
+
+    public void reset() {
+        for (LatencyHistogram[] stages : histograms) {
+            for (LatencyHistogram histogram : stages)
+                histogram.reset();
+        }
+    }
+
+    /**
+     * Clears the histograms from a thread other than the writer. The reset is applied before the next recording.
+     */
+    public void requestReset() {
+        resetRequested.set(true);
+    }
+
+    /**
+     * Reports the histograms from a thread other than the writer. The writer copies them on its next recording, and
+     * the copy is formatted on the calling thread.
+     */
+    public String report(long timeoutMillis) {
+        if (!enabled)
+            return dump();
+        CompletableFuture<LatencyHistogram[][]> request = new CompletableFuture<>();
+        CompletableFuture<LatencyHistogram[][]> pending = copyRequested.compareAndExchange(null, request);
+        try {
+            return dump((pending != null ? pending : request).get(timeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            return "No request was handled within " + timeoutMillis + " ms to take the report\n";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Interrupted while waiting for the report\n";
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public String dump() {
+        return dump(histograms);
+    }
+
+    private static String dump(LatencyHistogram[][] histograms) {
+        Formatter formatter = new Formatter();
+        formatter.format("%-22s %-11s %10s %10s %10s %10s %10s %10s %10s%n", "request", "stage", "count",
+                "mean us", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        for (RequestType type : RequestType.values()) {
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram histogram = histograms[type.ordinal()][stage.ordinal()];
+                if (histogram.getTotalCount() == 0)
+                    continue;
+                formatter.format("%-22s %-11s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", type, stage,
+                        histogram.getTotalCount(), histogram.mean() / 1e3, histogram.percentile(50) / 1e3,
+                        histogram.percentile(90) / 1e3, histogram.percentile(99) / 1e3,
+                        histogram.percentile(99.9) / 1e3, histogram.getMax() / 1e3);
+            }
+        }
+        return formatter.toString();
+    }
+
+    @PreDestroy
+    public void logOnShutdown() {
+        if (enabled)
+            log.info("Request latencies:\n" + dump());
+    }
+}
@@ -0,0 +1,50 @@
+package ir.ramtung.tinyme.domain.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes market data that falls due with time rather than with a request, such as completed bars and conflated
+ * opening prices, so it goes out even when no orders arrive. The flush runs through {@link OrderHandler#flushMarketData()}, which excludes request handling.
+ */
+@Component
+public class MarketDataFlusher {
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final OrderHandler orderHandler;
+    private final ScheduledExecutorService scheduler;
+
+    public MarketDataFlusher(OrderHandler orderHandler, @Value("${marketData.flushMillis:100}") long flushMillis) {
+        this.orderHandler = orderHandler;
+        if (flushMillis <= 0) {
+            scheduler = null;
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "market-data-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        try {
+            orderHandler.flushMarketData();
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "Market data flush failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,51 @@
+package ir.ramtung.tinyme.domain.service;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+public class ObjectPool<T> {
+    private final ArrayDeque<T> free;
+    private final int capacity;
+    private final Supplier<T> factory;
+    @Getter
+    private long hits;
+    @Getter
+    private long misses;
+    @Getter
+    private long drops;
+
+    public ObjectPool(int capacity, Supplier<T> factory) {
+        this.free = new ArrayDeque<>(capacity);
+        this.capacity = capacity;
+        this.factory = factory;
+    }
+
+    public T acquire() {
+        T object = free.pollLast();
+        if (object == null) {
+            misses++;
+            return factory.get();
+        }
+        hits++;
+        return object;
+    }
+
+    public void release(T object) {
+        if (free.size() < capacity)
+            free.addLast(object);
+        else
+            drops++;
+    }
+
+    public int size() {
+        return free.size();
+    }
+
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+        drops = 0;
+    }
+}
@@ -0,0 +1,100 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.messaging.event.OpeningPriceEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Recomputes the indicative opening price of auctioning securities lazily. When conflated, order entries only mark
+ * their security as changed. The price is recomputed once the security's last recomputation is at least
+ * {@code intervalMillis} old, or once {@code batchSize} changes have piled up, and it is published only if it moved.
+ * Due prices are collected after every request and by {@link MarketDataFlusher} when no requests arrive.
+ * The uncross itself always computes the exact price from the book.
+ */
+@Component
+public class OpeningPriceFeed {
+    private final boolean conflated;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final LongSupplier clock;
+    private final updateOpeningPrice calculator = new updateOpeningPrice();
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    private final Map<String, Computed> computed = new HashMap<>();
+
+    private static class Pending {
+        final Security security;
+        int changes;
+
+        Pending(Security security) {
+            this.security = security;
+        }
+    }
+
+    private record Computed(long time, int openingPrice, int tradableQuantity) {
+    }
+
+    @Autowired
+    public OpeningPriceFeed(@Value("${auction.openingPrice.conflated:false}") boolean conflated,
+                            @Value("${auction.openingPrice.intervalMillis:100}") long intervalMillis,
+                            @Value("${auction.openingPrice.batchSize:0}") int batchSize) {
+        this(conflated, intervalMillis, batchSize, System::currentTimeMillis);
+    }
+
+    public OpeningPriceFeed(boolean conflated, long intervalMillis, int batchSize, LongSupplier clock) {
+        this.conflated = conflated;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    public static OpeningPriceFeed disabled() {
+        return new OpeningPriceFeed(false, 0, 0, System::currentTimeMillis);
+    }
+
+    public boolean isConflated() {
+        return conflated;
+    }
+
+    public void changed(Security security) {
+        pending.computeIfAbsent(security.getIsin(), isin -> new Pending(security)).changes++;
+    }
+
+    public void discard(Security security) {
+        pending.remove(security.getIsin());
+        computed.remove(security.getIsin());
+    }
+
+    public List<OpeningPriceEvent> collectDue() {
+        if (pending.isEmpty())
+            return List.of();
+        long now = clock.getAsLong();
+        List<OpeningPriceEvent> events = new ArrayList<>();
+        for (Iterator<Pending> it = pending.values().iterator(); it.hasNext(); ) {
+            Pending changes = it.next();
+            Computed last = computed.get(changes.security.getIsin());
+            if (last != null && now - last.time() < intervalMillis && (batchSize <= 0 || changes.changes < batchSize))
+                continue;
+            it.remove();
+            OpeningPriceEvent event = recompute(changes.security, last, now);
+            if (event != null)
+                events.add(event);
+        }
+        return events;
+    }
+
+    private OpeningPriceEvent recompute(Security security, Computed last, long now) {
+        List<Integer> tradableQuantityOpeningPrice = calculator.findOpeningPrice(security);
+        int tradableQuantity = tradableQuantityOpeningPrice.get(0);
+        int openingPrice = tradableQuantityOpeningPrice.get(1);
+        security.setIndicativeOpeningPrice(openingPrice);
+        computed.put(security.getIsin(), new Computed(now, openingPrice, tradableQuantity));
+        if (last != null && last.openingPrice() == openingPrice && last.tradableQuantity() == tradableQuantity)
+            return null;
+        return new OpeningPriceEvent(security.getIsin(), openingPrice, tradableQuantity);
+    }
+}
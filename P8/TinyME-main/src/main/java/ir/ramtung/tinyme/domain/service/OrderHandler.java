@@ -1,22 +1,29 @@
 package ir.ramtung.tinyme.domain.service;
 
 import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.LatencyRecorder.RequestType;
+import ir.ramtung.tinyme.domain.service.LatencyRecorder.Stage;
 import ir.ramtung.tinyme.messaging.Message;
 import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
 import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.PriceLevelUpdate;
 import ir.ramtung.tinyme.messaging.TradeDTO;
 import ir.ramtung.tinyme.messaging.event.*;
 import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
 import ir.ramtung.tinyme.messaging.request.OrderEntryType;
+import ir.ramtung.tinyme.monitoring.EngineMonitor;
+import ir.ramtung.tinyme.monitoring.jfr.OrderEntryEvent;
 import ir.ramtung.tinyme.repository.BrokerRepository;
 import ir.ramtung.tinyme.repository.SecurityRepository;
 import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,37 +34,174 @@ public class OrderHandler {
     EventPublisher eventPublisher;
     ContinuousMatcher continuousMatcher;
     AuctionMatcher auctionMatcher;
+    Recycler recycler;
+    LatencyRecorder latencyRecorder;
+    EngineMonitor engineMonitor;
+    DepthFeed depthFeed;
+    TopOfBookFeed topOfBookFeed;
+    BarAggregator barAggregator;
+    BookSnapshots bookSnapshots;
 
-    public OrderHandler(SecurityRepository securityRepository, BrokerRepository brokerRepository, ShareholderRepository shareholderRepository, EventPublisher eventPublisher, ContinuousMatcher continuousMatcher, AuctionMatcher auctionMatcher) {
+    @Autowired
+    public OrderHandler(SecurityRepository securityRepository, BrokerRepository brokerRepository, ShareholderRepository shareholderRepository, EventPublisher eventPublisher, ContinuousMatcher continuousMatcher, AuctionMatcher auctionMatcher, Recycler recycler, LatencyRecorder latencyRecorder, EngineMonitor engineMonitor, DepthFeed depthFeed, TopOfBookFeed topOfBookFeed, BarAggregator barAggregator, BookSnapshots bookSnapshots) {
         this.securityRepository = securityRepository;
         this.brokerRepository = brokerRepository;
         this.shareholderRepository = shareholderRepository;
         this.eventPublisher = eventPublisher;
         this.continuousMatcher = continuousMatcher;
         this.auctionMatcher = auctionMatcher;
+        this.recycler = recycler;
+        this.latencyRecorder = latencyRecorder;
+        this.engineMonitor = engineMonitor;
+        this.depthFeed = depthFeed;
+        this.topOfBookFeed = topOfBookFeed;
+        this.barAggregator = barAggregator;
+        this.bookSnapshots = bookSnapshots;
     }
 
-    public void handleChangeMatchingState(ChangeMatchingStateRq changeMatchingStateRq) {
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Wires a handler outside Spring. Every optional collaborator starts out as its disabled no-op, so callers only
+     * name the features they exercise.
+     */
+    public static class Builder {
+        private SecurityRepository securityRepository;
+        private BrokerRepository brokerRepository;
+        private ShareholderRepository shareholderRepository;
+        private EventPublisher eventPublisher;
+        private ContinuousMatcher continuousMatcher = new ContinuousMatcher();
+        private AuctionMatcher auctionMatcher = new AuctionMatcher();
+        private Recycler recycler = Recycler.disabled();
+        private LatencyRecorder latencyRecorder = LatencyRecorder.disabled();
+        private EngineMonitor engineMonitor = EngineMonitor.disabled();
+        private DepthFeed depthFeed = DepthFeed.disabled();
+        private TopOfBookFeed topOfBookFeed = TopOfBookFeed.disabled();
+        private BarAggregator barAggregator = BarAggregator.disabled();
+        private BookSnapshots bookSnapshots = BookSnapshots.disabled();
+
+        private Builder() {
+        }
+
+        public Builder securityRepository(SecurityRepository securityRepository) {
+            this.securityRepository = securityRepository;
+            return this;
+        }
+
+        public Builder brokerRepository(BrokerRepository brokerRepository) {
+            this.brokerRepository = brokerRepository;
+            return this;
+        }
+
+        public Builder shareholderRepository(ShareholderRepository shareholderRepository) {
+            this.shareholderRepository = shareholderRepository;
+            return this;
+        }
+
+        public Builder eventPublisher(EventPublisher eventPublisher) {
+            this.eventPublisher = eventPublisher;
+            return this;
+        }
+
+        public Builder continuousMatcher(ContinuousMatcher continuousMatcher) {
+            this.continuousMatcher = continuousMatcher;
+            return this;
+        }
+
+        public Builder auctionMatcher(AuctionMatcher auctionMatcher) {
+            this.auctionMatcher = auctionMatcher;
+            return this;
+        }
+
+        public Builder recycler(Recycler recycler) {
+            this.recycler = recycler;
+            return this;
+        }
+
+        public Builder latencyRecorder(LatencyRecorder latencyRecorder) {
+            this.latencyRecorder = latencyRecorder;
+            return this;
+        }
+
+        public Builder engineMonitor(EngineMonitor engineMonitor) {
+            this.engineMonitor = engineMonitor;
+            return this;
+        }
+
+        public Builder depthFeed(DepthFeed depthFeed) {
+            this.depthFeed = depthFeed;
+            return this;
+        }
+
+        public Builder topOfBookFeed(TopOfBookFeed topOfBookFeed) {
+            this.topOfBookFeed = topOfBookFeed;
+            return this;
+        }
+
+        public Builder barAggregator(BarAggregator barAggregator) {
+            this.barAggregator = barAggregator;
+            return this;
+        }
+
+        public Builder bookSnapshots(BookSnapshots bookSnapshots) {
+            this.bookSnapshots = bookSnapshots;
+            return this;
+        }
+
+        public OrderHandler build() {
+            return new OrderHandler(Objects.requireNonNull(securityRepository), Objects.requireNonNull(brokerRepository),
+                    Objects.requireNonNull(shareholderRepository), Objects.requireNonNull(eventPublisher),
+                    continuousMatcher, auctionMatcher, recycler, latencyRecorder, engineMonitor, depthFeed,
+                    topOfBookFeed, barAggregator, bookSnapshots);
+        }
+    }
+
+    public synchronized void handleChangeMatchingState(ChangeMatchingStateRq changeMatchingStateRq) {
+        long start = latencyRecorder.now();
         Security security = securityRepository.findSecurityByIsin(changeMatchingStateRq.getSecurityIsin());
+        auctionMatcher.getOpeningPriceFeed().discard(security);
         LinkedList<Trade> trades = security.changeState(changeMatchingStateRq, auctionMatcher);
+        long matched = lapMatching(RequestType.CHANGE_MATCHING_STATE, start);
         eventPublisher.publish(new SecurityStateChangedEvent(security.getIsin(), security.getMatchingState()));
-        for (Trade trade : trades)
-            eventPublisher.publish(new TradeEvent(security.getIsin(), trade.getPrice(), trade.getQuantity(), trade.getBuy().getOrderId(), trade.getSell().getOrderId()));
+        for (Trade trade : trades) {
+            eventPublisher.publish(new TradeEvent(security.getIsin(), trade.getPrice(), trade.getQuantity(), trade.getBuyOrderId(), trade.getSellOrderId()));
+            recordTrade(trade);
+        }
+        recycler.releaseTrades(trades);
+        publishMarketData(security);
+        latencyRecorder.lap(RequestType.CHANGE_MATCHING_STATE, Stage.PUBLISHING, matched);
+        latencyRecorder.lap(RequestType.CHANGE_MATCHING_STATE, Stage.TOTAL, start);
+        engineMonitor.requestHandled(security);
     }
 
-    public void handleEnterOrder(EnterOrderRq enterOrderRq) {
+    public synchronized void handleEnterOrder(EnterOrderRq enterOrderRq) {
+        RequestType type = enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER ? RequestType.NEW_ORDER : RequestType.UPDATE_ORDER;
+        long start = latencyRecorder.now();
+        long mark = start;
+        Stage stage = Stage.VALIDATION;
+        OrderEntryEvent entryEvent = new OrderEntryEvent();
+        entryEvent.begin();
+        String outcome = "FAILED";
+        int matchResultCount = 0;
+        Security security = securityRepository.findSecurityByIsin(enterOrderRq.getSecurityIsin());
         try {
-            validateEnterOrderRq(enterOrderRq);
-
-            Security security = securityRepository.findSecurityByIsin(enterOrderRq.getSecurityIsin());
             Broker broker = brokerRepository.findBrokerById(enterOrderRq.getBrokerId());
             Shareholder shareholder = shareholderRepository.findShareholderById(enterOrderRq.getShareholderId());
+            validateEnterOrderRq(enterOrderRq, security, broker, shareholder);
+            mark = latencyRecorder.lap(type, Stage.VALIDATION, mark);
+            stage = Stage.MATCHING;
 
             LinkedList<MatchResult> matchResults;
             if (enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER)
-                matchResults = security.newOrder(enterOrderRq, broker, shareholder, continuousMatcher, auctionMatcher);
+                matchResults = security.newOrder(enterOrderRq, broker, shareholder, continuousMatcher, auctionMatcher, batchTimeNanos());
             else
                 matchResults = security.updateOrder(enterOrderRq, continuousMatcher, auctionMatcher);
+            mark = lapMatching(type, mark);
+            stage = Stage.PUBLISHING;
+            matchResultCount = matchResults.size();
+            outcome = matchResults.isEmpty() ? "UPDATED" : matchResults.getFirst().outcome().name();
             if (matchResults.isEmpty()) {
                 eventPublisher.publish(new OrderUpdatedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
                 return;
@@ -74,12 +218,89 @@ public class OrderHandler {
                 eventPublisher.publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), List.of(Message.INVALID_ORDER_IN_AUCTION_STATE)));
             else
                 publishValidEvent(enterOrderRq, matchResult, matchResults);
+            recycle(matchResult, matchResults);
 
         } catch (InvalidRequestException ex) {
+            mark = stage == Stage.MATCHING ? lapMatching(type, mark) : latencyRecorder.lap(type, stage, mark);
+            stage = Stage.PUBLISHING;
+            outcome = "REJECTED";
             eventPublisher.publish(new OrderRejectedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), ex.getReasons()));
+        } finally {
+            publishMarketData(security);
+            if (stage == Stage.PUBLISHING)
+                latencyRecorder.lap(type, Stage.PUBLISHING, mark);
+            latencyRecorder.lap(type, Stage.TOTAL, start);
+            engineMonitor.requestHandled(security);
+            commitOrderEntry(entryEvent, enterOrderRq, outcome, matchResultCount);
         }
     }
 
+    private static void commitOrderEntry(OrderEntryEvent event, EnterOrderRq enterOrderRq, String outcome, int matchResults) {
+        if (!event.shouldCommit())
+            return;
+        event.requestId = enterOrderRq.getRequestId();
+        event.orderId = enterOrderRq.getOrderId();
+        event.isin = enterOrderRq.getSecurityIsin();
+        event.requestType = enterOrderRq.getRequestType().name();
+        event.side = enterOrderRq.getSide() == null ? null : enterOrderRq.getSide().name();
+        event.quantity = enterOrderRq.getQuantity();
+        event.price = enterOrderRq.getPrice();
+        event.outcome = outcome;
+        event.matchResults = matchResults;
+        event.commit();
+    }
+
+    private void recordTrades(List<Trade> trades) {
+        for (Trade trade : trades)
+            recordTrade(trade);
+    }
+
+    private void recordTrade(Trade trade) {
+        trade.getSecurity().getTradeTape().record(trade, System.currentTimeMillis());
+        barAggregator.onTrade(trade);
+    }
+
+    /**
+     * Publishes what has fallen due since the last request. Called by {@link MarketDataFlusher} between requests.
+     */
+    public synchronized void flushMarketData() {
+        publishDueBars();
+        publishDueOpeningPrices();
+    }
+
+    private void publishDueBars() {
+        barAggregator.closeDue();
+        for (BarEvent bar : barAggregator.drainCompleted())
+            eventPublisher.publishMarketData(bar);
+    }
+
+    private void publishDueOpeningPrices() {
+        for (OpeningPriceEvent openingPrice : auctionMatcher.getOpeningPriceFeed().collectDue())
+            eventPublisher.publish(openingPrice);
+    }
+
+    private void publishMarketData(Security security) {
+        publishDueBars();
+        publishDueOpeningPrices();
+        if (security == null)
+            return;
+        bookSnapshots.update(security);
+        BestBidOfferEvent bestBidOffer = topOfBookFeed.collect(security);
+        if (bestBidOffer != null)
+            eventPublisher.publishMarketData(bestBidOffer);
+        List<PriceLevelUpdate> updates = depthFeed.collect(security);
+        if (!updates.isEmpty())
+            eventPublisher.publishMarketData(new MarketDepthEvent(security.getIsin(), updates));
+    }
+
+    private long lapMatching(RequestType type, long since) {
+        long activationNanos = continuousMatcher.takeActivationNanos();
+        long now = latencyRecorder.lap(type, Stage.MATCHING, since + activationNanos);
+        if (activationNanos > 0)
+            latencyRecorder.record(type, Stage.ACTIVATION, activationNanos);
+        return now;
+    }
+
     private void publishValidEvent(EnterOrderRq enterOrderRq, MatchResult matchResult, LinkedList<MatchResult> matchResults) {
         if (enterOrderRq.getRequestType() == OrderEntryType.NEW_ORDER || matchResult.outcome() == MatchingOutcome.STOP_LIMIT_ORDER_ACCEPTED)
             eventPublisher.publish(new OrderAcceptedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
@@ -87,6 +308,7 @@ public class OrderHandler {
             eventPublisher.publish(new OrderUpdatedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId()));
         if (!matchResult.trades().isEmpty()) {
             eventPublisher.publish(new OrderExecutedEvent(enterOrderRq.getRequestId(), enterOrderRq.getOrderId(), matchResult.trades().stream().map(TradeDTO::new).collect(Collectors.toList())));
+            recordTrades(matchResult.trades());
             matchResults.removeFirst();
         }
         publishMatchResultsWithMoreThanOneEvent(matchResults);
@@ -98,8 +320,10 @@ public class OrderHandler {
         if (it.hasNext()) {
             while (it.hasNext()) {
                 matchResult = it.next();
-                if (!matchResult.trades().isEmpty())
+                if (!matchResult.trades().isEmpty()) {
                     eventPublisher.publish(new OrderExecutedEvent(1, matchResult.remainder().getOrderId(), matchResult.trades().stream().map(TradeDTO::new).collect(Collectors.toList())));
+                    recordTrades(matchResult.trades());
+                }
                 if (matchResult.outcome() == MatchingOutcome.STOP_LIMIT_ORDER_ACTIVATED)
                     eventPublisher.publish(new OrderActivatedEvent(matchResult.remainder().getOrderId()));
                 if (matchResult.outcome() == MatchingOutcome.OPENING_PRICE_BEEN_SET)
@@ -108,18 +332,42 @@ public class OrderHandler {
         }
     }
 
-    public void handleDeleteOrder(DeleteOrderRq deleteOrderRq) {
+    // wall-clock time is informational only, since priority comes from the book sequence, so millisecond precision
+    // from an allocation-free clock read is enough
+    private static long batchTimeNanos() {
+        return System.currentTimeMillis() * 1_000_000L;
+    }
+
+    private void recycle(MatchResult first, LinkedList<MatchResult> matchResults) {
+        if (matchResults.peekFirst() != first)
+            recycler.release(first);
+        recycler.releaseAll(matchResults);
+    }
+
+    public synchronized void handleDeleteOrder(DeleteOrderRq deleteOrderRq) {
+        long start = latencyRecorder.now();
+        long mark = start;
+        Stage stage = Stage.VALIDATION;
+        Security security = securityRepository.findSecurityByIsin(deleteOrderRq.getSecurityIsin());
         try {
-            validateDeleteOrderRq(deleteOrderRq);
-            Security security = securityRepository.findSecurityByIsin(deleteOrderRq.getSecurityIsin());
+            validateDeleteOrderRq(deleteOrderRq, security);
+            mark = latencyRecorder.lap(RequestType.DELETE_ORDER, Stage.VALIDATION, mark);
+            stage = Stage.MATCHING;
             security.deleteOrder(deleteOrderRq);
+            mark = latencyRecorder.lap(RequestType.DELETE_ORDER, Stage.MATCHING, mark);
             eventPublisher.publish(new OrderDeletedEvent(deleteOrderRq.getRequestId(), deleteOrderRq.getOrderId()));
         } catch (InvalidRequestException ex) {
+            mark = latencyRecorder.lap(RequestType.DELETE_ORDER, stage, mark);
             eventPublisher.publish(new OrderRejectedEvent(deleteOrderRq.getRequestId(), deleteOrderRq.getOrderId(), ex.getReasons()));
+        } finally {
+            publishMarketData(security);
+            latencyRecorder.lap(RequestType.DELETE_ORDER, Stage.PUBLISHING, mark);
+            latencyRecorder.lap(RequestType.DELETE_ORDER, Stage.TOTAL, start);
+            engineMonitor.requestHandled(security);
         }
     }
 
-    private void validateEnterOrderRq(EnterOrderRq enterOrderRq) throws InvalidRequestException {
+    private void validateEnterOrderRq(EnterOrderRq enterOrderRq, Security security, Broker broker, Shareholder shareholder) throws InvalidRequestException {
         List<String> errors = new LinkedList<>();
         if (enterOrderRq.getOrderId() <= 0)
             errors.add(Message.INVALID_ORDER_ID);
@@ -131,7 +379,6 @@ public class OrderHandler {
             errors.add(Message.ORDER_PRICE_NOT_POSITIVE);
         if (enterOrderRq.hasMinimumExecutionQuantityAndStopPrice() || enterOrderRq.hasPeakSizeAndStopPrice())
             errors.add(Message.NOT_ABLE_TO_CREATE_STOP_LIMIT_ORDER);
-        Security security = securityRepository.findSecurityByIsin(enterOrderRq.getSecurityIsin());
         if (security == null)
             errors.add(Message.UNKNOWN_SECURITY_ISIN);
         else {
@@ -140,9 +387,9 @@ public class OrderHandler {
             if (enterOrderRq.getPrice() % security.getTickSize() != 0)
                 errors.add(Message.PRICE_NOT_MULTIPLE_OF_TICK_SIZE);
         }
-        if (brokerRepository.findBrokerById(enterOrderRq.getBrokerId()) == null)
+        if (broker == null)
             errors.add(Message.UNKNOWN_BROKER_ID);
-        if (shareholderRepository.findShareholderById(enterOrderRq.getShareholderId()) == null)
+        if (shareholder == null)
             errors.add(Message.UNKNOWN_SHAREHOLDER_ID);
         if (enterOrderRq.getPeakSize() < 0 || enterOrderRq.getPeakSize() >= enterOrderRq.getQuantity())
             errors.add(Message.INVALID_PEAK_SIZE);
@@ -150,11 +397,11 @@ public class OrderHandler {
             throw new InvalidRequestException(errors);
     }
 
-    private void validateDeleteOrderRq(DeleteOrderRq deleteOrderRq) throws InvalidRequestException {
+    private void validateDeleteOrderRq(DeleteOrderRq deleteOrderRq, Security security) throws InvalidRequestException {
         List<String> errors = new LinkedList<>();
         if (deleteOrderRq.getOrderId() <= 0)
             errors.add(Message.INVALID_ORDER_ID);
-        if (securityRepository.findSecurityByIsin(deleteOrderRq.getSecurityIsin()) == null)
+        if (security == null)
             errors.add(Message.UNKNOWN_SECURITY_ISIN);
         if (!errors.isEmpty())
             throw new InvalidRequestException(errors);
@@ -0,0 +1,75 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Getter
+@Component
+public class Recycler {
+    private final boolean enabled;
+    private final ObjectPool<Trade> tradePool;
+    private final ObjectPool<MatchResult> matchResultPool;
+
+    public Recycler(@Value("${recycling.enabled:false}") boolean enabled,
+                    @Value("${recycling.poolCapacity:4096}") int poolCapacity) {
+        this.enabled = enabled;
+        this.tradePool = new ObjectPool<>(poolCapacity, Trade::new);
+        this.matchResultPool = new ObjectPool<>(poolCapacity, MatchResult::empty);
+    }
+
+    public static Recycler disabled() {
+        return new Recycler(false, 0);
+    }
+
+    public Trade newTrade(Security security, int price, int quantity, Order order1, Order order2) {
+        if (!enabled)
+            return new Trade(security, price, quantity, order1, order2);
+        return tradePool.acquire().reset(security, price, quantity, order1, order2);
+    }
+
+    public MatchResult newMatchResult() {
+        if (!enabled)
+            return MatchResult.empty();
+        return matchResultPool.acquire();
+    }
+
+    public MatchResult stopLimitOrderActivated(Order activated) {
+        if (!enabled)
+            return MatchResult.stopLimitOrderActivated(activated);
+        return matchResultPool.acquire().reset(MatchingOutcome.STOP_LIMIT_ORDER_ACTIVATED, activated);
+    }
+
+    public void release(Trade trade) {
+        if (!enabled)
+            return;
+        trade.clear();
+        tradePool.release(trade);
+    }
+
+    public void releaseTrades(List<Trade> trades) {
+        if (!enabled)
+            return;
+        for (Trade trade : trades)
+            release(trade);
+        trades.clear();
+    }
+
+    public void release(MatchResult matchResult) {
+        if (!enabled)
+            return;
+        releaseTrades(matchResult.trades());
+        matchResult.clear();
+        matchResultPool.release(matchResult);
+    }
+
+    public void releaseAll(List<MatchResult> matchResults) {
+        if (!enabled)
+            return;
+        for (MatchResult matchResult : matchResults)
+            release(matchResult);
+    }
+}
@@ -0,0 +1,55 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.OrderBook;
+import ir.ramtung.tinyme.domain.entity.PriceLevel;
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.entity.Side;
+import ir.ramtung.tinyme.messaging.event.BestBidOfferEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+public class TopOfBookFeed {
+    private static final PriceLevel NO_LEVEL = new PriceLevel(null, 0, 0, 0);
+
+    private final boolean enabled;
+    private final Map<String, BestBidOfferEvent> published = new HashMap<>();
+
+    public TopOfBookFeed(@Value("${bbo.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static TopOfBookFeed disabled() {
+        return new TopOfBookFeed(false);
+    }
+
+    public BestBidOfferEvent collect(Security security) {
+        if (!enabled)
+            return null;
+        OrderBook orderBook = security.getOrderBook();
+        PriceLevel bid = bestLevel(orderBook, Side.BUY);
+        PriceLevel ask = bestLevel(orderBook, Side.SELL);
+        BestBidOfferEvent last = published.get(security.getIsin());
+        if (last != null && last.getBidPrice() == bid.price() && last.getBidQuantity() == bid.quantity()
+                && last.getBidOrders() == bid.orders() && last.getAskPrice() == ask.price()
+                && last.getAskQuantity() == ask.quantity() && last.getAskOrders() == ask.orders()
+                && last.getLastTradePrice() == security.getLastTradePrice())
+            return null;
+        BestBidOfferEvent event = new BestBidOfferEvent(security.getIsin(), bid.price(), bid.quantity(), bid.orders(),
+                ask.price(), ask.quantity(), ask.orders(), security.getLastTradePrice());
+        published.put(security.getIsin(), event);
+        return event;
+    }
+
+    public BestBidOfferEvent lastPublished(String isin) {
+        return published.get(isin);
+    }
+
+    private static PriceLevel bestLevel(OrderBook orderBook, Side side) {
+        PriceLevel level = orderBook.bestLevel(side);
+        return level == null ? NO_LEVEL : level;
+    }
+}
@@ -0,0 +1,39 @@
+package ir.ramtung.tinyme.domain.service;
+
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.event.RecentTradesEvent;
+import ir.ramtung.tinyme.messaging.request.RecentTradesRq;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedList;
+import java.util.List;
+
+@Service
+public class TradeQueryHandler {
+    private final SecurityRepository securityRepository;
+    private final EventPublisher eventPublisher;
+
+    public TradeQueryHandler(SecurityRepository securityRepository, EventPublisher eventPublisher) {
+        this.securityRepository = securityRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public void handleRecentTradesRq(RecentTradesRq recentTradesRq) {
+        Security security = securityRepository.findSecurityByIsin(recentTradesRq.getSecurityIsin());
+        List<String> errors = new LinkedList<>();
+        if (security == null)
+            errors.add(Message.UNKNOWN_SECURITY_ISIN);
+        if (recentTradesRq.getCount() <= 0)
+            errors.add(Message.INVALID_TRADE_COUNT);
+        if (!errors.isEmpty()) {
+            eventPublisher.publish(new OrderRejectedEvent(recentTradesRq.getRequestId(), 0, errors));
+            return;
+        }
+        eventPublisher.publish(new RecentTradesEvent(recentTradesRq.getRequestId(), security.getIsin(),
+                security.getTradeTape().recent(recentTradesRq.getCount())));
+    }
+}
@@ -14,6 +14,8 @@ import java.util.List;
 public class updateOpeningPrice {
 
     public List<Integer> findOpeningPrice(Security security) {
+        if (security.getOrderBook().getBuyQueue().isEmpty() || security.getOrderBook().getSellQueue().isEmpty())
+            return new ArrayList<>(List.of(0, 0));
         int maxLimit = security.getOrderBook().findMaxSellQueuePrice();
         int minLimit = security.getOrderBook().findMinBuyQueuePrice();
         if (maxLimit < minLimit) {
@@ -1,25 +1,163 @@
 package ir.ramtung.tinyme.messaging;
 
 import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.fanout.MarketDataServer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.jms.TextMessage;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MessageConversionException;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 @Component
 public class EventPublisher {
+    public static final String SEQUENCE_PROPERTY = "sequenceNumber";
+    public static final String RETRANSMITTED_PROPERTY = "retransmitted";
+
     private final Logger log = Logger.getLogger(this.getClass().getName());
     private final JmsTemplate jmsTemplate;
     @Value("${responseQueue}")
     private String responseQueue;
+    @Value("${marketDataQueue:MD}")
+    private String marketDataQueue;
+    private final AtomicLong publishedEvents = new AtomicLong();
+    private final AtomicLong publishedMarketDataEvents = new AtomicLong();
+    private final EventRing responseRing;
+    private final EventRing marketDataRing;
+    private final Object responseLock = new Object();
+    private final Object marketDataLock = new Object();
+    private final MarketDataServer marketDataServer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     public EventPublisher(JmsTemplate jmsTemplate) {
+        this(jmsTemplate, 0);
+    }
+
+    public EventPublisher(JmsTemplate jmsTemplate, int retransmissionCapacity) {
+        this(jmsTemplate, retransmissionCapacity, MarketDataServer.disabled());
+    }
+
+    @Autowired
+    public EventPublisher(JmsTemplate jmsTemplate, @Value("${retransmission.capacity:0}") int retransmissionCapacity,
+                          MarketDataServer marketDataServer) {
         this.jmsTemplate = jmsTemplate;
+        this.responseRing = new EventRing(retransmissionCapacity);
+        this.marketDataRing = new EventRing(retransmissionCapacity);
+        this.marketDataServer = marketDataServer;
     }
 
     public void publish(Event event) {
         log.info("Published : " + event);
-        jmsTemplate.convertAndSend(responseQueue, event);
+        send(responseQueue, event, publishedEvents, responseRing, responseLock, null);
+    }
+
+    public void publishMarketData(Event event) {
+        send(marketDataQueue, event, publishedMarketDataEvents, marketDataRing, marketDataLock,
+                marketDataServer.isEnabled() ? marketDataServer : null);
+    }
+
+    /**
+     * Numbers the event and sends it under the stream's publish lock, so live events reach the queue in sequence order
+     * whichever thread publishes them. When the stream is retained or fanned out, the event is also stored in the ring
+     * under the ring's lock. A retransmission takes only the ring's lock, so it never holds up live events.
+     */
+    private void send(String destination, Event event, AtomicLong published, EventRing ring, Object lock,
+                      MarketDataServer fanout) {
+        if (!ring.isEnabled() && fanout == null) {
+            synchronized (lock) {
+                long sequence = published.incrementAndGet();
+                jmsTemplate.convertAndSend(destination, event, message -> {
+                    message.setLongProperty(SEQUENCE_PROPERTY, sequence);
+                    return message;
+                });
+            }
+            return;
+        }
+        String type = event.getClass().getName();
+        String payload = encoded(event);
+        synchronized (lock) {
+            long sequence;
+            synchronized (ring) {
+                sequence = published.get() + 1;
+                ring.add(sequence, type, payload);
+                if (fanout != null)
+                    fanout.publish(sequence, type, payload, event);
+                published.set(sequence);
+            }
+            send(destination, sequence, type, payload, false);
+        }
+    }
+
+    private String encoded(Event event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Could not encode " + event, e);
+        }
+    }
+
+    private void send(String destination, long sequence, String type, String payload, boolean retransmitted) {
+        jmsTemplate.send(destination, session -> {
+            TextMessage message = session.createTextMessage(payload);
+            message.setStringProperty(MessagingConfig.TYPE_ID_PROPERTY, type);
+            message.setLongProperty(SEQUENCE_PROPERTY, sequence);
+            if (retransmitted)
+                message.setBooleanProperty(RETRANSMITTED_PROPERTY, true);
+            return message;
+        });
+    }
+
+    /**
+     * Sends the retained events {@code fromSequence} to {@code toSequence} of a stream again, with their original
+     * sequence numbers. The range is copied out of the ring under its lock and sent after releasing it, outside the
+     * stream's publish lock.
+     *
+     * @return {@code false} if some of them are no longer retained, in which case nothing is sent
+     */
+    public boolean retransmit(EventStream stream, long fromSequence, long toSequence) {
+        EventRing ring = ring(stream);
+        String destination = stream == EventStream.RESPONSE ? responseQueue : marketDataQueue;
+        int count;
+        long[] sequences;
+        String[] types;
+        String[] payloads;
+        synchronized (ring) {
+            if (!ring.isEnabled() || !ring.contains(fromSequence, toSequence))
+                return false;
+            count = (int) (toSequence - fromSequence + 1);
+            sequences = new long[count];
+            types = new String[count];
+            payloads = new String[count];
+            int[] next = {0};
+            ring.forEach(fromSequence, toSequence, (sequence, type, payload) -> {
+                sequences[next[0]] = sequence;
+                types[next[0]] = type;
+                payloads[next[0]++] = payload;
+            });
+        }
+        for (int i = 0; i < count; i++)
+            send(destination, sequences[i], types[i], payloads[i], true);
+        return true;
+    }
+
+    private EventRing ring(EventStream stream) {
+        return stream == EventStream.RESPONSE ? responseRing : marketDataRing;
+    }
+
+    public long getLastSequence(EventStream stream) {
+        return stream == EventStream.RESPONSE ? publishedEvents.get() : publishedMarketDataEvents.get();
+    }
+
+    public long getPublishedEvents() {
+        return publishedEvents.get();
+    }
+
+    public long getPublishedMarketDataEvents() {
+        return publishedMarketDataEvents.get();
     }
 }
@@ -0,0 +1,64 @@
+package ir.ramtung.tinyme.messaging;
+
+/**
+ * Keeps the last encoded events of one stream in preallocated slots, indexed by sequence number. The oldest event
+ * is overwritten once the ring is full.
+ */
+public class EventRing {
+    private final long[] sequences;
+    private final String[] types;
+    private final String[] payloads;
+    private final int mask;
+    private long lastSequence;
+
+    public interface Frame<E extends Exception> {
+        void accept(long sequence, String type, String payload) throws E;
+    }
+
+    public EventRing(int capacity) {
+        int slots = capacity <= 1 ? Math.max(capacity, 0) : Integer.highestOneBit(capacity - 1) << 1;
+        sequences = new long[slots];
+        types = new String[slots];
+        payloads = new String[slots];
+        mask = slots - 1;
+    }
+
+    public boolean isEnabled() {
+        return sequences.length > 0;
+    }
+
+    public int capacity() {
+        return sequences.length;
+    }
+
+    public void add(long sequence, String type, String payload) {
+        lastSequence = sequence;
+        if (!isEnabled())
+            return;
+        int slot = (int) (sequence & mask);
+        sequences[slot] = sequence;
+        types[slot] = type;
+        payloads[slot] = payload;
+    }
+
+    public long firstSequence() {
+        if (!isEnabled() || lastSequence == 0)
+            return lastSequence + 1;
+        return Math.max(1, lastSequence - sequences.length + 1);
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public boolean contains(long fromSequence, long toSequence) {
+        return fromSequence >= firstSequence() && toSequence <= lastSequence && fromSequence <= toSequence;
+    }
+
+    public <E extends Exception> void forEach(long fromSequence, long toSequence, Frame<E> frame) throws E {
+        for (long sequence = fromSequence; sequence <= toSequence; sequence++) {
+            int slot = (int) (sequence & mask);
+            frame.accept(sequences[slot], types[slot], payloads[slot]);
+        }
+    }
+}
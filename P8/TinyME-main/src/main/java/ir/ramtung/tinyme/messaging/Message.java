@@ -19,4 +19,10 @@ public class Message {
     public static final String INVALID_UPDATE_STOP_PRICE = "Invalid update stop price";
     public static final String NOT_ABLE_TO_CREATE_STOP_LIMIT_ORDER = "Invalid stop limit order";
     public static final String INVALID_ORDER_IN_AUCTION_STATE = "Invalid order in auction state";
+    public static final String INVALID_TRADE_COUNT = "Requested trade count is not positive";
+    public static final String INVALID_BOOK_DEPTH = "Requested book depth is not positive";
+    public static final String BOOK_SNAPSHOTS_DISABLED = "Book snapshots are disabled";
+    public static final String UNKNOWN_EVENT_STREAM = "Unknown event stream";
+    public static final String INVALID_SEQUENCE_RANGE = "Requested sequence range is invalid";
+    public static final String EVENTS_NO_LONGER_RETAINED = "Requested events are no longer retained";
 }
@@ -8,11 +8,13 @@ import org.springframework.jms.support.converter.MessageType;
 
 @Configuration
 public class MessagingConfig {
+    public static final String TYPE_ID_PROPERTY = "_type";
+
     @Bean
     public MessageConverter jacksonJmsMessageConverter() {
         MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
         converter.setTargetType(MessageType.TEXT);
-        converter.setTypeIdPropertyName("_type");
+        converter.setTypeIdPropertyName(TYPE_ID_PROPERTY);
         return converter;
     }
 }
@@ -0,0 +1,18 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.domain.entity.PriceLevel;
+import ir.ramtung.tinyme.domain.entity.Side;
+
+public record PriceLevelUpdate(
+    Action action,
+    Side side,
+    int price,
+    int quantity,
+    int orders) {
+
+    public enum Action { ADD, CHANGE, DELETE }
+
+    public PriceLevelUpdate(Action action, PriceLevel level) {
+        this(action, level.side(), level.price(), level.quantity(), level.orders());
+    }
+}
@@ -3,7 +3,13 @@ package ir.ramtung.tinyme.messaging;
 import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
 import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
 import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.RecentTradesRq;
+import ir.ramtung.tinyme.messaging.request.BookSnapshotRq;
+import ir.ramtung.tinyme.messaging.request.OrderStatusRq;
+import ir.ramtung.tinyme.messaging.request.RetransmitRq;
 import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.domain.service.TradeQueryHandler;
+import ir.ramtung.tinyme.domain.service.BookQueryHandler;
 import org.springframework.jms.annotation.JmsListener;
 import org.springframework.stereotype.Component;
 
@@ -13,9 +19,16 @@ import java.util.logging.Logger;
 public class RequestDispatcher {
     private final Logger log = Logger.getLogger(this.getClass().getName());
     private final OrderHandler orderHandler;
+    private final TradeQueryHandler tradeQueryHandler;
+    private final BookQueryHandler bookQueryHandler;
+    private final RetransmitHandler retransmitHandler;
 
-    public RequestDispatcher(OrderHandler orderHandler) {
+    public RequestDispatcher(OrderHandler orderHandler, TradeQueryHandler tradeQueryHandler, BookQueryHandler bookQueryHandler,
+                             RetransmitHandler retransmitHandler) {
         this.orderHandler = orderHandler;
+        this.tradeQueryHandler = tradeQueryHandler;
+        this.bookQueryHandler = bookQueryHandler;
+        this.retransmitHandler = retransmitHandler;
     }
 
     @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.EnterOrderRq'")
@@ -35,4 +48,28 @@ public class RequestDispatcher {
         log.info("Received message: " + changeMatchingStateRq);
         orderHandler.handleChangeMatchingState(changeMatchingStateRq);
     }
+
+    @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.RecentTradesRq'")
+    public void receiveRecentTradesRq(RecentTradesRq recentTradesRq) {
+        log.info("Received message: " + recentTradesRq);
+        tradeQueryHandler.handleRecentTradesRq(recentTradesRq);
+    }
+
+    @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.BookSnapshotRq'")
+    public void receiveBookSnapshotRq(BookSnapshotRq bookSnapshotRq) {
+        log.info("Received message: " + bookSnapshotRq);
+        bookQueryHandler.handleBookSnapshotRq(bookSnapshotRq);
+    }
+
+    @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.OrderStatusRq'")
+    public void receiveOrderStatusRq(OrderStatusRq orderStatusRq) {
+        log.info("Received message: " + orderStatusRq);
+        bookQueryHandler.handleOrderStatusRq(orderStatusRq);
+    }
+
+    @JmsListener(destination = "${requestQueue}", selector = "_type='ir.ramtung.tinyme.messaging.request.RetransmitRq'")
+    public void receiveRetransmitRq(RetransmitRq retransmitRq) {
+        log.info("Received message: " + retransmitRq);
+        retransmitHandler.handleRetransmitRq(retransmitRq);
+    }
 }
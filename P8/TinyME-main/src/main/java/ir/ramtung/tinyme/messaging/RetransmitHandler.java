@@ -0,0 +1,35 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.event.RetransmitEvent;
+import ir.ramtung.tinyme.messaging.request.RetransmitRq;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedList;
+import java.util.List;
+
+@Component
+public class RetransmitHandler {
+    private final EventPublisher eventPublisher;
+
+    public RetransmitHandler(EventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    public void handleRetransmitRq(RetransmitRq retransmitRq) {
+        List<String> errors = new LinkedList<>();
+        if (retransmitRq.getStream() == null)
+            errors.add(Message.UNKNOWN_EVENT_STREAM);
+        else if (retransmitRq.getFromSequence() <= 0 || retransmitRq.getToSequence() < retransmitRq.getFromSequence()
+                || retransmitRq.getToSequence() > eventPublisher.getLastSequence(retransmitRq.getStream()))
+            errors.add(Message.INVALID_SEQUENCE_RANGE);
+        else if (!eventPublisher.retransmit(retransmitRq.getStream(), retransmitRq.getFromSequence(), retransmitRq.getToSequence()))
+            errors.add(Message.EVENTS_NO_LONGER_RETAINED);
+        if (!errors.isEmpty()) {
+            eventPublisher.publish(new OrderRejectedEvent(retransmitRq.getRequestId(), 0, errors));
+            return;
+        }
+        eventPublisher.publish(new RetransmitEvent(retransmitRq.getRequestId(), retransmitRq.getStream(),
+                retransmitRq.getFromSequence(), retransmitRq.getToSequence()));
+    }
+}
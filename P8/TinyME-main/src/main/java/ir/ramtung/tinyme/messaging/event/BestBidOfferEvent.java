@@ -0,0 +1,21 @@
+package ir.ramtung.tinyme.messaging.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+@NoArgsConstructor
+public class BestBidOfferEvent extends Event {
+    private String securityIsin;
+    private int bidPrice;
+    private int bidQuantity;
+    private int bidOrders;
+    private int askPrice;
+    private int askQuantity;
+    private int askOrders;
+    private int lastTradePrice;
+}
@@ -0,0 +1,25 @@
+package ir.ramtung.tinyme.messaging.event;
+
+import ir.ramtung.tinyme.domain.entity.PriceLevel;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSnapshotEvent extends Event {
+    private long requestId;
+    private String securityIsin;
+    private long version;
+    private MatchingState matchingState;
+    private int lastTradePrice;
+    private int indicativeOpeningPrice;
+    private List<PriceLevel> bids;
+    private List<PriceLevel> asks;
+}
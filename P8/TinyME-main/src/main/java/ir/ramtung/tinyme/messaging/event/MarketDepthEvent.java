@@ -0,0 +1,18 @@
+package ir.ramtung.tinyme.messaging.event;
+
+import ir.ramtung.tinyme.messaging.PriceLevelUpdate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+@NoArgsConstructor
+public class MarketDepthEvent extends Event {
+    private String securityIsin;
+    private List<PriceLevelUpdate> updates;
+}
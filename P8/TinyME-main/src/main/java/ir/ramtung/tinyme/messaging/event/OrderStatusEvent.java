@@ -0,0 +1,21 @@
+package ir.ramtung.tinyme.messaging.event;
+
+import ir.ramtung.tinyme.domain.entity.OrderView;
+import ir.ramtung.tinyme.domain.entity.Side;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusEvent extends Event {
+    private long requestId;
+    private String securityIsin;
+    private long version;
+    private Side side;
+    private long orderId;
+    private OrderView order;
+}
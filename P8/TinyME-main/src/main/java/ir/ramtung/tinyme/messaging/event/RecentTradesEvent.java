@@ -0,0 +1,19 @@
+package ir.ramtung.tinyme.messaging.event;
+
+import ir.ramtung.tinyme.domain.entity.TapedTrade;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecentTradesEvent extends Event {
+    private long requestId;
+    private String securityIsin;
+    private List<TapedTrade> trades;
+}
@@ -0,0 +1,18 @@
+package ir.ramtung.tinyme.messaging.event;
+
+import ir.ramtung.tinyme.messaging.EventStream;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+@NoArgsConstructor
+public class RetransmitEvent extends Event {
+    private long requestId;
+    private EventStream stream;
+    private long fromSequence;
+    private long toSequence;
+}
@@ -0,0 +1,80 @@
+package ir.ramtung.tinyme.messaging.fanout;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One market data event as the fan-out server writes it: a 4-byte length of the rest of the frame, the 8-byte
+ * sequence number, a 2-byte length of the type name, the type name and the JSON payload, both in UTF-8.
+ */
+public record MarketDataFrame(long sequence, String type, String payload) {
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Short.BYTES;
+
+    /**
+     * Encodes frames straight into a direct arena buffer, so an event is written once and costs no byte arrays. Each
+     * frame is a read-only slice of the arena. A full arena is replaced rather than reused, as queued slices still
+     * point into it, and is freed once none of its frames are queued anymore. Not thread-safe.
+     */
+    static final class Encoder {
+        static final int ARENA_BYTES = 1 << 20;
+
+        private final int arenaBytes;
+        private final Map<String, byte[]> typeNames = new HashMap<>();
+        private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer arena;
+        private ByteBuffer readOnlyArena;
+
+        Encoder() {
+            this(ARENA_BYTES);
+        }
+
+        Encoder(int arenaBytes) {
+            this.arenaBytes = arenaBytes;
+        }
+
+        ByteBuffer encode(long sequence, String type, String payload) {
+            byte[] typeBytes = typeNames.get(type);
+            if (typeBytes == null) {
+                typeBytes = type.getBytes(StandardCharsets.UTF_8);
+                typeNames.put(type, typeBytes);
+            }
+            int maxBytes = HEADER_BYTES + typeBytes.length + (int) Math.ceil(payload.length() * utf8.maxBytesPerChar());
+            if (arena == null || arena.remaining() < maxBytes) {
+                arena = ByteBuffer.allocateDirect(Math.max(arenaBytes, maxBytes));
+                readOnlyArena = arena.asReadOnlyBuffer();
+            }
+            int start = arena.position();
+            arena.position(start + Integer.BYTES);
+            arena.putLong(sequence).putShort((short) typeBytes.length).put(typeBytes);
+            utf8.reset();
+            utf8.encode(CharBuffer.wrap(payload), arena, true);
+            utf8.flush(arena);
+            int length = arena.position() - start;
+            arena.putInt(start, length - Integer.BYTES);
+            return readOnlyArena.slice(start, length);
+        }
+    }
+
+    /**
+     * Reads the next frame from {@code buffer}, or returns {@code null} and leaves it untouched if the frame is not
+     * complete yet.
+     */
+    public static MarketDataFrame read(ByteBuffer buffer) {
+        if (buffer.remaining() < Integer.BYTES || buffer.remaining() < Integer.BYTES + buffer.getInt(buffer.position()))
+            return null;
+        int length = buffer.getInt();
+        long sequence = buffer.getLong();
+        byte[] type = new byte[buffer.getShort()];
+        buffer.get(type);
+        byte[] payload = new byte[length - Long.BYTES - Short.BYTES - type.length];
+        buffer.get(payload);
+        return new MarketDataFrame(sequence, new String(type, StandardCharsets.UTF_8), new String(payload, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,222 @@
+package ir.ramtung.tinyme.messaging.fanout;
+
+import ir.ramtung.tinyme.messaging.event.BestBidOfferEvent;
+import ir.ramtung.tinyme.messaging.event.Event;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fans the market data stream out to local TCP subscribers as {@link MarketDataFrame}s. Each event is encoded once
+ * into a direct buffer, and every subscriber queues its own view of that frame. A single selector thread drains the
+ * queues with gathering writes, so the publishing thread never waits for a subscriber. Events are published by one
+ * thread at a time, as {@link ir.ramtung.tinyme.messaging.EventPublisher} does under its ring lock.
+ * <p>
+ * A subscriber that falls behind is handled by the {@link SlowSubscriberPolicy}. Best bid/offer frames of a security
+ * are conflated while one is still unsent, and other frames are dropped once the queue is full. Subscribers detect
+ * either from the gap in sequence numbers, and can fill it with a retransmit request.
+ */
+@Component
+public class MarketDataServer {
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    private final boolean enabled;
+    private final int subscriberFrames;
+    private final SlowSubscriberPolicy slowSubscriberPolicy;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Queue<Subscriber> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final ByteBuffer scratch = ByteBuffer.allocate(256);
+    private final MarketDataFrame.Encoder encoder = new MarketDataFrame.Encoder();
+    private final Map<String, Integer> conflationKeys = new HashMap<>();
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread writer;
+    private volatile boolean running;
+
+    @Autowired
+    public MarketDataServer(@Value("${fanout.enabled:false}") boolean enabled, @Value("${fanout.port:0}") int port,
+                            @Value("${fanout.subscriberFrames:4096}") int subscriberFrames,
+                            @Value("${fanout.slowSubscriber:CONFLATE}") SlowSubscriberPolicy slowSubscriberPolicy) {
+        this.enabled = enabled;
+        this.subscriberFrames = subscriberFrames;
+        this.slowSubscriberPolicy = slowSubscriberPolicy;
+        if (!enabled) {
+            selector = null;
+            serverChannel = null;
+            writer = null;
+            return;
+        }
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        running = true;
+        writer = new Thread(this::run, "market-data-fanout");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static MarketDataServer disabled() {
+        return new MarketDataServer(false, 0, 0, SlowSubscriberPolicy.CONFLATE);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPort() {
+        return serverChannel == null ? 0 : serverChannel.socket().getLocalPort();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getDroppedFrames() {
+        long dropped = 0;
+        for (Subscriber subscriber : subscribers)
+            dropped += subscriber.getDroppedFrames();
+        return dropped;
+    }
+
+    public void publish(long sequence, String type, String payload, Event event) {
+        if (!enabled || subscribers.isEmpty())
+            return;
+        ByteBuffer frame = encoder.encode(sequence, type, payload);
+        int key = conflationKey(event);
+        boolean wakeup = false;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.offer(frame.duplicate(), key, slowSubscriberPolicy)) {
+                ready.add(subscriber);
+                wakeup = true;
+            }
+        }
+        if (wakeup && wakeupPending.compareAndSet(false, true))
+            selector.wakeup();
+    }
+
+    // best bid/offer frames are conflated per security, under a small dense key so subscribers can index by it
+    private int conflationKey(Event event) {
+        if (!(event instanceof BestBidOfferEvent bestBidOffer))
+            return Subscriber.NO_KEY;
+        Integer key = conflationKeys.get(bestBidOffer.getSecurityIsin());
+        if (key == null) {
+            key = conflationKeys.size();
+            conflationKeys.put(bestBidOffer.getSecurityIsin(), key);
+        }
+        return key;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                wakeupPending.set(false);
+                for (Subscriber subscriber; (subscriber = ready.poll()) != null; )
+                    write(subscriber);
+                for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid())
+                        continue;
+                    if (key.isAcceptable())
+                        accept();
+                    else if (key.isReadable() || key.isWritable())
+                        service(key);
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running)
+                    log.log(Level.WARNING, "Market data fan-out failed", e);
+                return;
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null)
+            return;
+        channel.configureBlocking(false);
+        Subscriber subscriber = new Subscriber(channel, subscriberFrames);
+        channel.register(selector, SelectionKey.OP_READ, subscriber);
+        subscribers.add(subscriber);
+    }
+
+    private void service(SelectionKey key) {
+        Subscriber subscriber = (Subscriber) key.attachment();
+        if (key.isReadable()) {
+            try {
+                scratch.clear();
+                if (subscriber.channel.read(scratch) < 0) {
+                    close(subscriber);
+                    return;
+                }
+            } catch (IOException e) {
+                close(subscriber);
+                return;
+            }
+        }
+        if (key.isValid() && key.isWritable())
+            write(subscriber);
+    }
+
+    private void write(Subscriber subscriber) {
+        SelectionKey key = subscriber.channel.keyFor(selector);
+        if (key == null || !key.isValid())
+            return;
+        if (subscriber.isOverflowed()) {
+            close(subscriber);
+            return;
+        }
+        try {
+            boolean pending = subscriber.flush();
+            key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close(subscriber);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        try {
+            subscriber.channel.close();
+        } catch (IOException e) {
+            log.log(Level.FINE, "Closing a subscriber failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled)
+            return;
+        running = false;
+        selector.wakeup();
+        for (Subscriber subscriber : subscribers)
+            subscriber.channel.close();
+        subscribers.clear();
+        serverChannel.close();
+        selector.close();
+    }
+}
@@ -0,0 +1,6 @@
+package ir.ramtung.tinyme.messaging.fanout;
+
+public enum SlowSubscriberPolicy {
+    CONFLATE,
+    DISCONNECT
+}
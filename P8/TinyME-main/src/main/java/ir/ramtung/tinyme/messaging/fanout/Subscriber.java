@@ -0,0 +1,162 @@
+package ir.ramtung.tinyme.messaging.fanout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * The frames queued for one subscriber. Every slot holds a view of a frame that is shared by all subscribers, so
+ * queuing copies nothing. A conflated frame leaves an empty slot behind, which is skipped when writing. Conflation
+ * keys are small dense ints, so the queued frame of each key is found by indexing rather than hashing.
+ */
+class Subscriber {
+    static final int NO_KEY = -1;
+    private static final int MAX_GATHER = 64;
+    private static final long NOT_QUEUED = -1;
+
+    final SocketChannel channel;
+    private final ByteBuffer[] frames;
+    private final int[] keys;
+    private final int mask;
+    private long[] queuedByKey = new long[0];
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private long head;
+    private long tail;
+    private int live;
+    private long droppedFrames;
+    private boolean overflowed;
+
+    Subscriber(SocketChannel channel, int capacity) {
+        this.channel = channel;
+        int slots = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        frames = new ByteBuffer[slots];
+        keys = new int[slots];
+        Arrays.fill(keys, NO_KEY);
+        mask = slots - 1;
+    }
+
+    private int slot(long index) {
+        return (int) (index & mask);
+    }
+
+    /**
+     * Queues a frame. Under {@link SlowSubscriberPolicy#CONFLATE}, a frame with a key replaces the unsent frame with
+     * the same key, and a frame that finds the queue full is dropped. Under {@link SlowSubscriberPolicy#DISCONNECT},
+     * a full queue marks the subscriber as overflowed.
+     *
+     * @return whether the writer has to look at this subscriber, because its queue was empty or it overflowed
+     */
+    synchronized boolean offer(ByteBuffer frame, int key, SlowSubscriberPolicy policy) {
+        if (overflowed)
+            return false;
+        boolean idle = head == tail;
+        if (key != NO_KEY && policy == SlowSubscriberPolicy.CONFLATE)
+            conflate(key);
+        if (tail - head == frames.length && live < frames.length)
+            compact();
+        if (tail - head == frames.length) {
+            if (policy == SlowSubscriberPolicy.DISCONNECT) {
+                overflowed = true;
+                return true;
+            }
+            droppedFrames++;
+            return false;
+        }
+        frames[slot(tail)] = frame;
+        keys[slot(tail)] = key;
+        if (key != NO_KEY)
+            queue(key, tail);
+        tail++;
+        live++;
+        return idle;
+    }
+
+    private void queue(int key, long index) {
+        if (key >= queuedByKey.length) {
+            int length = queuedByKey.length;
+            queuedByKey = Arrays.copyOf(queuedByKey, Math.max(16, Integer.highestOneBit(key) << 1));
+            Arrays.fill(queuedByKey, length, queuedByKey.length, NOT_QUEUED);
+        }
+        queuedByKey[key] = index;
+    }
+
+    private void conflate(int key) {
+        long queued = key < queuedByKey.length ? queuedByKey[key] : NOT_QUEUED;
+        if (queued == NOT_QUEUED || (queued == head && frames[slot(head)].position() > 0))
+            return;
+        frames[slot(queued)] = null;
+        keys[slot(queued)] = NO_KEY;
+        queuedByKey[key] = NOT_QUEUED;
+        live--;
+        droppedFrames++;
+    }
+
+    private void compact() {
+        long to = head;
+        for (long from = head; from < tail; from++) {
+            ByteBuffer frame = frames[slot(from)];
+            if (frame == null)
+                continue;
+            if (to != from) {
+                frames[slot(to)] = frame;
+                keys[slot(to)] = keys[slot(from)];
+                frames[slot(from)] = null;
+                keys[slot(from)] = NO_KEY;
+                if (keys[slot(to)] != NO_KEY)
+                    queuedByKey[keys[slot(to)]] = to;
+            }
+            to++;
+        }
+        tail = to;
+    }
+
+    /**
+     * Writes as many queued frames as the socket takes, up to {@value #MAX_GATHER} frames per gathering write.
+     *
+     * @return whether frames are still queued because the socket is full
+     */
+    synchronized boolean flush() throws IOException {
+        while (head < tail) {
+            int count = 0;
+            for (long i = head; i < tail && count < MAX_GATHER; i++) {
+                ByteBuffer frame = frames[slot(i)];
+                if (frame != null)
+                    gather[count++] = frame;
+            }
+            if (count > 0)
+                channel.write(gather, 0, count);
+            boolean full = count > 0 && gather[count - 1].hasRemaining();
+            Arrays.fill(gather, 0, count, null);
+            removeWritten();
+            if (full)
+                return true;
+        }
+        return false;
+    }
+
+    private void removeWritten() {
+        while (head < tail) {
+            int slot = slot(head);
+            ByteBuffer frame = frames[slot];
+            if (frame != null && frame.hasRemaining())
+                return;
+            if (frame != null) {
+                live--;
+                if (keys[slot] != NO_KEY && queuedByKey[keys[slot]] == head)
+                    queuedByKey[keys[slot]] = NOT_QUEUED;
+            }
+            frames[slot] = null;
+            keys[slot] = NO_KEY;
+            head++;
+        }
+    }
+
+    synchronized boolean isOverflowed() {
+        return overflowed;
+    }
+
+    synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+}
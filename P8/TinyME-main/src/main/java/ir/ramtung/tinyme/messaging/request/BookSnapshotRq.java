@@ -0,0 +1,14 @@
+package ir.ramtung.tinyme.messaging.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSnapshotRq {
+    private long requestId;
+    private String securityIsin;
+    private int depth;
+}
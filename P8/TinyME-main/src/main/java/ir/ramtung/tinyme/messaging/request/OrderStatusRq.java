@@ -0,0 +1,16 @@
+package ir.ramtung.tinyme.messaging.request;
+
+import ir.ramtung.tinyme.domain.entity.Side;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusRq {
+    private long requestId;
+    private String securityIsin;
+    private Side side;
+    private long orderId;
+}
@@ -0,0 +1,16 @@
+package ir.ramtung.tinyme.messaging.request;
+
+import ir.ramtung.tinyme.messaging.EventStream;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RetransmitRq {
+    private long requestId;
+    private EventStream stream;
+    private long fromSequence;
+    private long toSequence;
+}
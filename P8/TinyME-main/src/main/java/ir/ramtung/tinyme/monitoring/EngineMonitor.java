@@ -0,0 +1,245 @@
+package ir.ramtung.tinyme.monitoring;
+
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.service.LatencyRecorder;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import jakarta.jms.TemporaryQueue;
+import lombok.Getter;
+import org.apache.activemq.artemis.api.core.management.ResourceNames;
+import org.apache.activemq.artemis.api.jms.management.JMSManagementHelper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+@Component
+public class EngineMonitor implements EngineMonitorMBean {
+    public static final String DOMAIN = "ir.ramtung.tinyme";
+    private static final String MANAGEMENT_ADDRESS = "activemq.management";
+    private static final long MANAGEMENT_TIMEOUT_MILLIS = 1000;
+    private static final long LATENCY_REPORT_TIMEOUT_MILLIS = 1000;
+
+    private final Logger log = Logger.getLogger(this.getClass().getName());
+    @Getter
+    private final boolean enabled;
+    private final EventPublisher eventPublisher;
+    private final LatencyRecorder latencyRecorder;
+    private final ObjectProvider<JmsTemplate> jmsTemplate;
+    private final String requestQueue;
+    private final Map<String, SecurityStats> securities = new ConcurrentHashMap<>();
+    private final AtomicLong requestsHandled = new AtomicLong();
+    private final MBeanServer mBeanServer;
+    private final ScheduledExecutorService sampler;
+    private volatile double requestsPerSecond;
+    private volatile double eventsPerSecond;
+    private long lastSampledRequests;
+    private long lastSampledEvents;
+    private long lastSampledAt;
+
+    @Autowired
+    public EngineMonitor(@Value("${monitoring.jmx.enabled:false}") boolean enabled, EventPublisher eventPublisher,
+                         LatencyRecorder latencyRecorder, ObjectProvider<JmsTemplate> jmsTemplate,
+                         @Value("${requestQueue}") String requestQueue) {
+        this.enabled = enabled;
+        this.eventPublisher = eventPublisher;
+        this.latencyRecorder = latencyRecorder;
+        this.jmsTemplate = jmsTemplate;
+        this.requestQueue = requestQueue;
+        if (!enabled) {
+            mBeanServer = null;
+            sampler = null;
+            return;
+        }
+        mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        register(objectName("type=Engine"), this);
+        lastSampledAt = System.nanoTime();
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "engine-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sampleRates, 1, 1, TimeUnit.SECONDS);
+    }
+
+    private EngineMonitor() {
+        this(false, null, LatencyRecorder.disabled(), null, null);
+    }
+
+    public static EngineMonitor disabled() {
+        return new EngineMonitor();
+    }
+
+    public void requestHandled(Security security) {
+        if (!enabled)
+            return;
+        requestsHandled.incrementAndGet();
+        if (security == null)
+            return;
+        SecuritySnapshot snapshot = SecuritySnapshot.of(security);
+        SecurityStats stats = securities.get(security.getIsin());
+        if (stats != null)
+            stats.publish(snapshot);
+        else
+            registerSecurity(snapshot);
+    }
+
+    public SecuritySnapshot snapshot(String isin) {
+        SecurityStats stats = securities.get(isin);
+        return stats == null ? null : stats.getSnapshot();
+    }
+
+    private void registerSecurity(SecuritySnapshot snapshot) {
+        SecurityStats stats = new SecurityStats(snapshot);
+        securities.put(snapshot.isin(), stats);
+        register(securityName(snapshot.isin()), stats);
+    }
+
+    private void sampleRates() {
+        long now = System.nanoTime();
+        long requests = requestsHandled.get();
+        long events = eventPublisher.getPublishedEvents();
+        double seconds = (now - lastSampledAt) / 1e9;
+        requestsPerSecond = (requests - lastSampledRequests) / seconds;
+        eventsPerSecond = (events - lastSampledEvents) / seconds;
+        lastSampledRequests = requests;
+        lastSampledEvents = events;
+        lastSampledAt = now;
+    }
+
+    @Override
+    public long getRequestsHandled() {
+        return requestsHandled.get();
+    }
+
+    @Override
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    @Override
+    public long getEventsPublished() {
+        return eventPublisher.getPublishedEvents();
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    @Override
+    public int getSecurityCount() {
+        return securities.size();
+    }
+
+    @Override
+    public int getActivationBacklog() {
+        int backlog = 0;
+        for (SecurityStats stats : securities.values())
+            backlog += stats.getSnapshot().activationBacklog();
+        return backlog;
+    }
+
+    @Override
+    public int getRequestQueueBacklog() {
+        JmsTemplate template = jmsTemplate.getIfAvailable();
+        if (template == null)
+            return -1;
+        Long backlog = template.execute(this::requestQueueMessageCount, true);
+        return backlog == null ? -1 : (int) Math.min(backlog, Integer.MAX_VALUE);
+    }
+
+    // Asks the broker's management address for the queue's message count instead of browsing the queue.
+    private Long requestQueueMessageCount(Session session) throws JMSException {
+        TemporaryQueue replies = session.createTemporaryQueue();
+        try (MessageProducer producer = session.createProducer(session.createQueue(MANAGEMENT_ADDRESS));
+             MessageConsumer consumer = session.createConsumer(replies)) {
+            Message request = session.createMessage();
+            JMSManagementHelper.putAttribute(request, ResourceNames.QUEUE + requestQueue, "messageCount");
+            request.setJMSReplyTo(replies);
+            producer.send(request);
+            Message reply = consumer.receive(MANAGEMENT_TIMEOUT_MILLIS);
+            if (reply == null || !JMSManagementHelper.hasOperationSucceeded(reply))
+                return null;
+            return ((Number) JMSManagementHelper.getResult(reply)).longValue();
+        } catch (JMSException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warning("Could not read the message count of " + requestQueue + ": " + e.getMessage());
+            return null;
+        } finally {
+            replies.delete();
+        }
+    }
+
+    @Override
+    public String getLatencyReport() {
+        return latencyRecorder.report(LATENCY_REPORT_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public void resetLatencies() {
+        latencyRecorder.requestReset();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled)
+            return;
+        sampler.shutdownNow();
+        unregister(objectName("type=Engine"));
+        for (String isin : securities.keySet())
+            unregister(securityName(isin));
+        securities.clear();
+    }
+
+    private static ObjectName securityName(String isin) {
+        return objectName("type=Security,isin=" + ObjectName.quote(isin));
+    }
+
+    private static ObjectName objectName(String properties) {
+        try {
+            return new ObjectName(DOMAIN + ":" + properties);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private void register(ObjectName name, Object mBean) {
+        try {
+            if (mBeanServer.isRegistered(name))
+                mBeanServer.unregisterMBean(name);
+            mBeanServer.registerMBean(mBean, name);
+        } catch (JMException e) {
+            log.warning("Could not register " + name + ": " + e.getMessage());
+        }
+    }
+
+    private void unregister(ObjectName name) {
+        try {
+            if (mBeanServer.isRegistered(name))
+                mBeanServer.unregisterMBean(name);
+        } catch (JMException e) {
+            log.warning("Could not unregister " + name + ": " + e.getMessage());
+        }
+    }
+}
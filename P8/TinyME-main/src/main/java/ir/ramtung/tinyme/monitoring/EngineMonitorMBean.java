@@ -0,0 +1,21 @@
+package ir.ramtung.tinyme.monitoring;
+
+public interface EngineMonitorMBean {
+    long getRequestsHandled();
+
+    double getRequestsPerSecond();
+
+    long getEventsPublished();
+
+    double getEventsPerSecond();
+
+    int getSecurityCount();
+
+    int getActivationBacklog();
+
+    int getRequestQueueBacklog();
+
+    String getLatencyReport();
+
+    void resetLatencies();
+}
@@ -0,0 +1,26 @@
+package ir.ramtung.tinyme.monitoring;
+
+import ir.ramtung.tinyme.domain.entity.Order;
+import ir.ramtung.tinyme.domain.entity.OrderBook;
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+
+import java.util.LinkedList;
+
+public record SecuritySnapshot(String isin, MatchingState matchingState, int buyDepth, int sellDepth,
+                               int inactiveBuyDepth, int inactiveSellDepth, int activationBacklog,
+                               int bestBid, int bestAsk, int lastTradePrice, int indicativeOpeningPrice) {
+    public static SecuritySnapshot of(Security security) {
+        OrderBook orderBook = security.getOrderBook();
+        return new SecuritySnapshot(security.getIsin(), security.getMatchingState(),
+                orderBook.getBuyQueue().size(), orderBook.getSellQueue().size(),
+                orderBook.getInactiveBuyQueue().size(), orderBook.getInactiveSellQueue().size(),
+                orderBook.getActivationBacklog(), bestPrice(orderBook.getBuyQueue()), bestPrice(orderBook.getSellQueue()),
+                security.getLastTradePrice(), security.getIndicativeOpeningPrice());
+    }
+
+    private static int bestPrice(LinkedList<Order> queue) {
+        Order first = queue.peekFirst();
+        return first == null ? 0 : first.getPrice();
+    }
+}
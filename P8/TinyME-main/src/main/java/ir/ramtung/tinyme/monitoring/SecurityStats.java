@@ -0,0 +1,72 @@
+package ir.ramtung.tinyme.monitoring;
+
+public class SecurityStats implements SecurityStatsMBean {
+    private volatile SecuritySnapshot snapshot;
+
+    public SecurityStats(SecuritySnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public SecuritySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    void publish(SecuritySnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public String getIsin() {
+        return snapshot.isin();
+    }
+
+    @Override
+    public String getMatchingState() {
+        return snapshot.matchingState().name();
+    }
+
+    @Override
+    public int getBuyDepth() {
+        return snapshot.buyDepth();
+    }
+
+    @Override
+    public int getSellDepth() {
+        return snapshot.sellDepth();
+    }
+
+    @Override
+    public int getInactiveBuyDepth() {
+        return snapshot.inactiveBuyDepth();
+    }
+
+    @Override
+    public int getInactiveSellDepth() {
+        return snapshot.inactiveSellDepth();
+    }
+
+    @Override
+    public int getActivationBacklog() {
+        return snapshot.activationBacklog();
+    }
+
+    @Override
+    public int getBestBid() {
+        return snapshot.bestBid();
+    }
+
+    @Override
+    public int getBestAsk() {
+        return snapshot.bestAsk();
+    }
+
+    @Override
+    public int getLastTradePrice() {
+        return snapshot.lastTradePrice();
+    }
+
+    @Override
+    public int getIndicativeOpeningPrice() {
+        return snapshot.indicativeOpeningPrice();
+    }
+}
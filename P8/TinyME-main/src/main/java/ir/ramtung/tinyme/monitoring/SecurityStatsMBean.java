@@ -0,0 +1,25 @@
+package ir.ramtung.tinyme.monitoring;
+
+public interface SecurityStatsMBean {
+    String getIsin();
+
+    String getMatchingState();
+
+    int getBuyDepth();
+
+    int getSellDepth();
+
+    int getInactiveBuyDepth();
+
+    int getInactiveSellDepth();
+
+    int getActivationBacklog();
+
+    int getBestBid();
+
+    int getBestAsk();
+
+    int getLastTradePrice();
+
+    int getIndicativeOpeningPrice();
+}
@@ -0,0 +1,23 @@
+package ir.ramtung.tinyme.monitoring.jfr;
+
+import jdk.jfr.*;
+
+@Name("ir.ramtung.tinyme.AuctionUncross")
+@Label("Auction Uncrossing")
+@Category({"TinyME", "Auction"})
+@Description("Uncrossing of an auction book at its opening price")
+@StackTrace(false)
+public class AuctionUncrossEvent extends Event {
+    @Label("Security")
+    public String isin;
+    @Label("Opening Price")
+    public int openingPrice;
+    @Label("Tradable Quantity")
+    public int tradableQuantity;
+    @Label("Trades")
+    public int trades;
+    @Label("Buy Orders")
+    public int buyOrders;
+    @Label("Sell Orders")
+    public int sellOrders;
+}
@@ -0,0 +1,25 @@
+package ir.ramtung.tinyme.monitoring.jfr;
+
+import jdk.jfr.*;
+
+@Name("ir.ramtung.tinyme.MatchSweep")
+@Label("Match Sweep")
+@Category({"TinyME", "Matching"})
+@Description("Continuous matching of one order against the opposite side of the book")
+@StackTrace(false)
+public class MatchSweepEvent extends Event {
+    @Label("Order Id")
+    public long orderId;
+    @Label("Security")
+    public String isin;
+    @Label("Side")
+    public String side;
+    @Label("Price Levels Touched")
+    public int levels;
+    @Label("Trades")
+    public int trades;
+    @Label("Traded Quantity")
+    public int tradedQuantity;
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,21 @@
+package ir.ramtung.tinyme.monitoring.jfr;
+
+import jdk.jfr.*;
+
+@Name("ir.ramtung.tinyme.OpeningPriceCalculation")
+@Label("Opening Price Calculation")
+@Category({"TinyME", "Auction"})
+@Description("Recalculation of the indicative opening price after an order enters an auction")
+@StackTrace(false)
+public class OpeningPriceCalculationEvent extends Event {
+    @Label("Security")
+    public String isin;
+    @Label("Opening Price")
+    public int openingPrice;
+    @Label("Tradable Quantity")
+    public int tradableQuantity;
+    @Label("Buy Orders")
+    public int buyOrders;
+    @Label("Sell Orders")
+    public int sellOrders;
+}
@@ -0,0 +1,29 @@
+package ir.ramtung.tinyme.monitoring.jfr;
+
+import jdk.jfr.*;
+
+@Name("ir.ramtung.tinyme.OrderEntry")
+@Label("Order Entry")
+@Category({"TinyME", "Requests"})
+@Description("Handling of one new or update order request, from validation to publishing")
+@StackTrace(false)
+public class OrderEntryEvent extends Event {
+    @Label("Request Id")
+    public long requestId;
+    @Label("Order Id")
+    public long orderId;
+    @Label("Security")
+    public String isin;
+    @Label("Request Type")
+    public String requestType;
+    @Label("Side")
+    public String side;
+    @Label("Quantity")
+    public int quantity;
+    @Label("Price")
+    public int price;
+    @Label("Outcome")
+    public String outcome;
+    @Label("Match Results")
+    public int matchResults;
+}
@@ -0,0 +1,21 @@
+package ir.ramtung.tinyme.monitoring.jfr;
+
+import jdk.jfr.*;
+
+@Name("ir.ramtung.tinyme.Rollback")
+@Label("Trade Rollback")
+@Category({"TinyME", "Matching"})
+@Description("Undoing the trades of a match that failed the credit or minimum execution quantity check")
+@StackTrace(false)
+public class RollbackEvent extends Event {
+    @Label("Order Id")
+    public long orderId;
+    @Label("Security")
+    public String isin;
+    @Label("Side")
+    public String side;
+    @Label("Trades Rolled Back")
+    public int trades;
+    @Label("Quantity Restored")
+    public int quantity;
+}
@@ -0,0 +1,20 @@
+package ir.ramtung.tinyme.monitoring.jfr;
+
+import jdk.jfr.*;
+
+@Name("ir.ramtung.tinyme.StopActivation")
+@Label("Stop Activation Cascade")
+@Category({"TinyME", "Matching"})
+@Description("Execution of the stop-limit orders activated by one request")
+@StackTrace(false)
+public class StopActivationEvent extends Event {
+    @Label("Security")
+    public String isin;
+    @Label("Activated Orders Executed")
+    public int executed;
+    @Label("Backlog Left")
+    @Description("Triggered orders left inactive for the next execution because the activation budget ran out")
+    public int backlog;
+    @Label("Inactive Orders")
+    public int inactiveOrders;
+}
@@ -3,22 +3,32 @@ package ir.ramtung.tinyme.repository;
 import ir.ramtung.tinyme.domain.entity.Broker;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 
 @Component
 public class BrokerRepository {
-    private final HashMap<Long, Broker> brokerById = new HashMap<>();
+    private final ArrayList<Broker> brokers = new ArrayList<>();
+    private final LongIntMap indexByBrokerId = new LongIntMap();
     public Broker findBrokerById(long brokerId) {
-        return brokerById.get(brokerId);
+        int index = indexByBrokerId.get(brokerId);
+        return index == LongIntMap.MISSING ? null : brokers.get(index);
     }
     public void addBroker(Broker broker) {
-        brokerById.put(broker.getBrokerId(), broker);
+        int index = indexByBrokerId.get(broker.getBrokerId());
+        if (index == LongIntMap.MISSING) {
+            index = brokers.size();
+            indexByBrokerId.put(broker.getBrokerId(), index);
+            brokers.add(broker);
+        } else {
+            brokers.set(index, broker);
+        }
     }
 
     public void clear() {
-        brokerById.clear();
+        brokers.clear();
+        indexByBrokerId.clear();
     }
     Iterable<? extends Broker> allBrokers() {
-        return brokerById.values();
+        return brokers;
     }
 }
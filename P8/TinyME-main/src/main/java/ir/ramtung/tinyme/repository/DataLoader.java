@@ -11,7 +11,9 @@ import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.StringJoiner;
@@ -69,7 +71,7 @@ public class DataLoader {
                     brokerRepository.addBroker(Broker.builder()
                             .brokerId(Long.parseLong(line[0]))
                             .name(line[1])
-                            .credit(Long.parseLong(line[0]))
+                            .credit(Long.parseLong(line[2]))
                             .build());
                 }
             }
@@ -232,7 +234,7 @@ public class DataLoader {
                 .add(String.valueOf(order.getMinimumExecutionQuantity()))
                 .add(String.valueOf(order.getBroker().getBrokerId()))
                 .add(String.valueOf(order.getShareholder().getShareholderId()))
-                .add(order.getEntryTime().toString());
+                .add(entryTimeOf(order).toString());
         if (order instanceof IcebergOrder icebergOrder) {
             orderJoiner.add(String.valueOf(icebergOrder.getPeakSize()))
                     .add(String.valueOf(icebergOrder.getDisplayedQuantity()));
@@ -242,4 +244,10 @@ public class DataLoader {
         return orderJoiner.toString();
     }
 
+    private static LocalDateTime entryTimeOf(Order order) {
+        if (order.getEntryTime() != null)
+            return order.getEntryTime();
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(0, order.getEntryTimeNanos()), ZoneId.systemDefault());
+    }
+
 }
@@ -0,0 +1,68 @@
+package ir.ramtung.tinyme.repository;
+
+import java.util.Arrays;
+
+class LongIntMap {
+    static final int MISSING = -1;
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntMap() {
+        this(16);
+    }
+
+    LongIntMap(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(4, initialCapacity) * 2 - 1);
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (values[slot] == MISSING)
+                return MISSING;
+            if (keys[slot] == key)
+                return values[slot];
+        }
+    }
+
+    void put(long key, int value) {
+        assert value >= 0;
+        if ((size + 1) * 2 > keys.length)
+            resize();
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != MISSING && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        if (values[slot] == MISSING)
+            size++;
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, MISSING);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING)
+                put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -3,23 +3,33 @@ package ir.ramtung.tinyme.repository;
 import ir.ramtung.tinyme.domain.entity.Shareholder;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 
 @Component
 public class ShareholderRepository {
-    private final HashMap<Long, Shareholder> shareholderById = new HashMap<>();
+    private final ArrayList<Shareholder> shareholders = new ArrayList<>();
+    private final LongIntMap indexByShareholderId = new LongIntMap();
     public Shareholder findShareholderById(long shareholderId) {
-        return shareholderById.get(shareholderId);
+        int index = indexByShareholderId.get(shareholderId);
+        return index == LongIntMap.MISSING ? null : shareholders.get(index);
     }
     public void addShareholder(Shareholder shareholder) {
-        shareholderById.put(shareholder.getShareholderId(), shareholder);
+        int index = indexByShareholderId.get(shareholder.getShareholderId());
+        if (index == LongIntMap.MISSING) {
+            index = shareholders.size();
+            indexByShareholderId.put(shareholder.getShareholderId(), index);
+            shareholders.add(shareholder);
+        } else {
+            shareholders.set(index, shareholder);
+        }
     }
 
     public void clear() {
-        shareholderById.clear();
+        shareholders.clear();
+        indexByShareholderId.clear();
     }
 
     Iterable<? extends Shareholder> allShareholders() {
-        return shareholderById.values();
+        return shareholders;
     }
 }
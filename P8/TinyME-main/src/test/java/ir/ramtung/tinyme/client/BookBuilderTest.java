@@ -0,0 +1,225 @@
+package ir.ramtung.tinyme.client;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.AuctionMatcher;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookBuilderTest {
+    private Security security;
+    private OrderHandler orderHandler;
+    private final List<Event> published = new ArrayList<>();
+    private BookBuilder bookBuilder;
+
+    @BeforeEach
+    void setup() {
+        SecurityRepository securityRepository = new SecurityRepository();
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        security = Security.builder().isin("ABC").lastTradePrice(1000).build();
+        securityRepository.addSecurity(security);
+        brokerRepository.addBroker(Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 2).build());
+        Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, Integer.MAX_VALUE / 2);
+        shareholderRepository.addShareholder(shareholder);
+        EventPublisher eventPublisher = new EventPublisher(null) {
+            @Override
+            public void publish(Event event) {
+                published.add(event);
+            }
+        };
+        orderHandler = OrderHandler.builder()
+                .securityRepository(securityRepository)
+                .brokerRepository(brokerRepository)
+                .shareholderRepository(shareholderRepository)
+                .eventPublisher(eventPublisher)
+                .build();
+        bookBuilder = new BookBuilder();
+    }
+
+    private void handle(Object request) {
+        if (request instanceof EnterOrderRq enterOrderRq)
+            orderHandler.handleEnterOrder(enterOrderRq);
+        else if (request instanceof DeleteOrderRq deleteOrderRq)
+            orderHandler.handleDeleteOrder(deleteOrderRq);
+        else
+            orderHandler.handleChangeMatchingState((ChangeMatchingStateRq) request);
+    }
+
+    private void send(Object request) {
+        bookBuilder.onRequest(request);
+        handle(request);
+        replay(bookBuilder, bookBuilder.getPosition());
+    }
+
+    private void replay(BookBuilder builder, long after) {
+        for (long sequence = after + 1; sequence <= published.size(); sequence++)
+            builder.onEvent(sequence, published.get((int) sequence - 1));
+    }
+
+    private static EnterOrderRq order(long id, Side side, int quantity, int price, int peakSize, int meq, int stopPrice) {
+        return EnterOrderRq.createNewOrderRq(id, "ABC", id, LocalDateTime.now(), side, quantity, price, 1, 1,
+                peakSize, meq, stopPrice, false);
+    }
+
+    private void assertReplicaMatchesEngine() {
+        if (bookBuilder.book("ABC") == null)
+            return;
+        ClientBook book = bookBuilder.book("ABC");
+        OrderBook orderBook = security.getOrderBook();
+        for (Side side : Side.values())
+            assertThat(book.priceLevels(side)).isEqualTo(orderBook.priceLevels(side));
+        assertThat(book.getMatchingState()).isEqualTo(security.getMatchingState());
+    }
+
+    @Test
+    void fills_and_iceberg_replenishment_are_replicated() {
+        send(order(1, SELL, 100, 1010, 10, 0, 0));
+        send(order(2, SELL, 30, 1020, 0, 0, 0));
+        send(order(3, BUY, 45, 1020, 0, 0, 0));
+
+        ClientBook book = bookBuilder.book("ABC");
+        assertThat(book.topLevels(SELL, 1)).containsExactly(new PriceLevel(SELL, 1010, 5, 1));
+        assertThat(book.order(SELL, 1).getQuantity()).isEqualTo(55);
+        assertThat(book.getLastTradePrice()).isEqualTo(1010);
+        assertReplicaMatchesEngine();
+    }
+
+    @Test
+    void order_that_misses_its_minimum_execution_quantity_is_not_added() {
+        send(order(1, SELL, 10, 1010, 0, 0, 0));
+        send(order(2, BUY, 50, 1010, 0, 20, 0));
+
+        assertThat(bookBuilder.book("ABC").order(BUY, 2)).isNull();
+        assertReplicaMatchesEngine();
+    }
+
+    @Test
+    void stop_orders_rest_inactive_until_activated() {
+        send(order(1, SELL, 10, 1010, 0, 0, 0));
+        send(order(2, SELL, 10, 1020, 0, 0, 0));
+        send(order(3, BUY, 10, 1030, 0, 0, 1005));
+        assertThat(bookBuilder.book("ABC").order(BUY, 3).isInactive()).isTrue();
+
+        send(order(4, BUY, 10, 1010, 0, 0, 0));
+
+        assertThat(bookBuilder.book("ABC").order(BUY, 3)).isNull();
+        assertThat(bookBuilder.book("ABC").priceLevels(SELL)).isEmpty();
+        assertReplicaMatchesEngine();
+    }
+
+    @Test
+    void restored_snapshot_resumes_from_its_position() {
+        send(order(1, SELL, 100, 1010, 10, 0, 0));
+        send(order(2, BUY, 50, 990, 0, 0, 0));
+        BookBuilderSnapshot snapshot = bookBuilder.snapshot();
+        EnterOrderRq aggressor = order(3, BUY, 25, 1010, 0, 0, 0);
+        send(aggressor);
+
+        BookBuilder restored = new BookBuilder();
+        restored.restore(snapshot);
+        restored.onRequest(aggressor);
+        replay(restored, 1);
+
+        assertThat(snapshot.position()).isEqualTo(2);
+        assertThat(restored.getPosition()).isEqualTo(bookBuilder.getPosition());
+        for (Side side : Side.values())
+            assertThat(restored.book("ABC").priceLevels(side)).isEqualTo(bookBuilder.book("ABC").priceLevels(side));
+        assertThat(restored.book("ABC").order(SELL, 1).getQuantity()).isEqualTo(75);
+    }
+
+    @Test
+    void order_event_without_its_request_fails() {
+        handle(order(1, SELL, 100, 1010, 0, 0, 0));
+
+        assertThatThrownBy(() -> replay(bookBuilder, 0)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void gap_in_the_sequence_fails_and_repeated_events_are_skipped() {
+        send(order(1, SELL, 100, 1010, 0, 0, 0));
+        for (EnterOrderRq request : List.of(EnterOrderRq.createUpdateOrderRq(2, "ABC", 1, LocalDateTime.now(), SELL,
+                60, 1010, 1, 1, 0, 0), order(3, BUY, 10, 990, 0, 0, 0))) {
+            bookBuilder.onRequest(request);
+            handle(request);
+        }
+
+        assertThatThrownBy(() -> bookBuilder.onEvent(3, published.get(2))).isInstanceOf(IllegalStateException.class);
+        replay(bookBuilder, 0);
+
+        assertThat(bookBuilder.getPosition()).isEqualTo(3);
+        assertThat(bookBuilder.book("ABC").order(SELL, 1).getQuantity()).isEqualTo(60);
+        assertReplicaMatchesEngine();
+    }
+
+    private boolean bothSidesHaveOrders() {
+        return security.getOrderBook().hasOrderOfType(BUY) && security.getOrderBook().hasOrderOfType(SELL);
+    }
+
+    private void runRandomFlow(long seed, boolean auctions, double icebergShare) {
+        Random random = new Random(seed);
+        List<Long> live = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            double dice = random.nextDouble();
+            boolean auction = security.getMatchingState() == MatchingState.AUCTION;
+            if (auctions && dice < 0.01 && (auction || bothSidesHaveOrders())) {
+                send(new ChangeMatchingStateRq("ABC", auction ? MatchingState.CONTINUOUS : MatchingState.AUCTION));
+            } else if (dice < 0.2 && !live.isEmpty()) {
+                long orderId = live.remove(random.nextInt(live.size()));
+                Side side = orderId % 2 == 0 ? BUY : SELL;
+                boolean inactive = security.getOrderBook().findByOrderId(side, orderId, true) != null;
+                send(new DeleteOrderRq(id, "ABC", side, orderId, 0, inactive));
+            } else if (dice < 0.35 && !live.isEmpty()) {
+                long orderId = live.get(random.nextInt(live.size()));
+                Side side = orderId % 2 == 0 ? BUY : SELL;
+                Order order = security.getOrderBook().findByOrderId(side, orderId, false);
+                if (order != null)
+                    send(EnterOrderRq.createUpdateOrderRq(id, "ABC", orderId, LocalDateTime.now(), side,
+                            Math.max(10, order.getTotalQuantity() + 10 * (random.nextInt(5) - 2)), order.getPrice() + random.nextInt(5) - 2,
+                            1, 1, order instanceof IcebergOrder iceberg ? iceberg.getPeakSize() : 0, order.getMinimumExecutionQuantity()));
+            } else {
+                Side side = id % 2 == 0 ? BUY : SELL;
+                int price = 1000 + (side == BUY ? -1 : 1) * (random.nextInt(20) - 4);
+                int quantity = 10 * (1 + random.nextInt(10));
+                int peakSize = random.nextDouble() < icebergShare && quantity > 10 ? 10 : 0;
+                int stopPrice = peakSize == 0 && !auction && random.nextDouble() < 0.05
+                        ? price + (side == BUY ? 2 : -2) : 0;
+                int meq = !auction && stopPrice == 0 && random.nextDouble() < 0.05 ? quantity / 2 : 0;
+                send(order(id, side, quantity, price, peakSize, meq, stopPrice));
+                live.add(id);
+            }
+            assertReplicaMatchesEngine();
+        }
+    }
+
+    @Test
+    void replica_follows_the_engine_through_a_random_continuous_flow() {
+        runRandomFlow(5, false, 0.2);
+    }
+
+    @Test
+    void replica_follows_the_engine_through_auctions() {
+        runRandomFlow(7, true, 0.2);
+    }
+}
@@ -0,0 +1,224 @@
+package ir.ramtung.tinyme.domain;
+
+import com.sun.management.ThreadMXBean;
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.monitoring.EngineMonitor;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes allocated by the handling thread for one request, after warm-up, with recycling and latency recording on.
+ * The production cases instead wire the handler as application.properties does, with the market data feeds on.
+ * Publishing stops at {@link EventPublisher}, so the events are counted but JMS serialization is not.
+ * The budgets leave about 25% over the measured values; lower them when a change removes allocation.
+ */
+class AllocationBudgetTest {
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(2024, 1, 1, 9, 0);
+    private static final int WARMUP_ROUNDS = 20_000;
+    private static final int MEASURED_ROUNDS = 2_000;
+    private static final int BATCHES = 5;
+
+    private Security security;
+    private OrderHandler.Builder wiring;
+    private OrderHandler orderHandler;
+    private EngineMonitor engineMonitor = EngineMonitor.disabled();
+
+    @BeforeEach
+    void setup() {
+        SecurityRepository securityRepository = new SecurityRepository();
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        security = Security.builder().isin("ABC").lastTradePrice(1000).build();
+        securityRepository.addSecurity(security);
+        brokerRepository.addBroker(Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 2).build());
+        brokerRepository.addBroker(Broker.builder().brokerId(2).credit(Long.MAX_VALUE / 2).build());
+        Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, Integer.MAX_VALUE / 2);
+        shareholderRepository.addShareholder(shareholder);
+        EventPublisher eventPublisher = new EventPublisher(null) {
+            @Override
+            public void publish(Event event) {
+            }
+
+            @Override
+            public void publishMarketData(Event event) {
+            }
+        };
+        Recycler recycler = new Recycler(true, 4096);
+        wiring = OrderHandler.builder()
+                .securityRepository(securityRepository)
+                .brokerRepository(brokerRepository)
+                .shareholderRepository(shareholderRepository)
+                .eventPublisher(eventPublisher)
+                .continuousMatcher(new ContinuousMatcher(recycler))
+                .auctionMatcher(new AuctionMatcher(recycler))
+                .recycler(recycler)
+                .latencyRecorder(new LatencyRecorder(true));
+        orderHandler = wiring.build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engineMonitor.close();
+    }
+
+    private void useProductionWiring() {
+        Recycler recycler = new Recycler(false, 4096);
+        LatencyRecorder latencyRecorder = new LatencyRecorder(true);
+        engineMonitor = new EngineMonitor(true, null, latencyRecorder, null, "RQ");
+        orderHandler = wiring
+                .continuousMatcher(new ContinuousMatcher(recycler, 10_000))
+                .auctionMatcher(new AuctionMatcher(recycler, new OpeningPriceFeed(false, 100, 0)))
+                .recycler(recycler)
+                .latencyRecorder(latencyRecorder)
+                .engineMonitor(engineMonitor)
+                .depthFeed(new DepthFeed(true))
+                .topOfBookFeed(new TopOfBookFeed(true))
+                .barAggregator(new BarAggregator(true, new int[]{60, 300}))
+                .bookSnapshots(new BookSnapshots(false))
+                .build();
+    }
+
+    private static EnterOrderRq order(long orderId, Side side, int quantity, int price, int peakSize, int stopPrice) {
+        return EnterOrderRq.createNewOrderRq(orderId, "ABC", orderId, ENTRY_TIME, side, quantity, price,
+                side == BUY ? 1 : 2, 1, peakSize, 0, stopPrice, false);
+    }
+
+    private static EnterOrderRq order(long orderId, Side side, int quantity, int price) {
+        return order(orderId, side, quantity, price, 0, 0);
+    }
+
+    private static DeleteOrderRq delete(long orderId, Side side) {
+        return new DeleteOrderRq(orderId, "ABC", side, orderId);
+    }
+
+    private double bytesPerRound(Object[] setup, EnterOrderRq measured, Object[] cleanup) {
+        OrderBook orderBook = security.getOrderBook();
+        int buyOrders = orderBook.getBuyQueue().size();
+        int sellOrders = orderBook.getSellQueue().size();
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+            round(setup, measured, cleanup);
+
+        double best = Double.MAX_VALUE;
+        for (int batch = 0; batch < BATCHES; batch++) {
+            long allocated = 0;
+            for (int i = 0; i < MEASURED_ROUNDS; i++)
+                allocated += round(setup, measured, cleanup);
+            best = Math.min(best, (double) allocated / MEASURED_ROUNDS);
+        }
+        assertThat(orderBook.getBuyQueue()).hasSize(buyOrders);
+        assertThat(orderBook.getSellQueue()).hasSize(sellOrders);
+        assertThat(orderBook.getInactiveBuyQueue()).isEmpty();
+        return best;
+    }
+
+    private long round(Object[] setup, EnterOrderRq measured, Object[] cleanup) {
+        handleAll(setup);
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        orderHandler.handleEnterOrder(measured);
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+        handleAll(cleanup);
+        return allocated;
+    }
+
+    private void handleAll(Object[] requests) {
+        for (Object request : requests) {
+            if (request instanceof EnterOrderRq enterOrderRq)
+                orderHandler.handleEnterOrder(enterOrderRq);
+            else
+                orderHandler.handleDeleteOrder((DeleteOrderRq) request);
+        }
+    }
+
+    private void assertBudget(String flow, double bytesPerRequest, int budget) {
+        assertThat(bytesPerRequest).as(flow + " bytes per request").isLessThanOrEqualTo(budget);
+    }
+
+    @Test
+    void resting_order_stays_within_budget() {
+        double bytes = bytesPerRound(new Object[]{},
+                order(1, BUY, 10, 900),
+                new Object[]{delete(1, BUY)});
+        assertBudget("resting order", bytes, 1280);
+    }
+
+    @Test
+    void full_fill_stays_within_budget() {
+        double bytes = bytesPerRound(new Object[]{order(1, SELL, 10, 1000)},
+                order(2, BUY, 10, 1000),
+                new Object[]{});
+        assertBudget("full fill", bytes, 2176);
+    }
+
+    @Test
+    void partial_fill_stays_within_budget() {
+        double bytes = bytesPerRound(new Object[]{order(1, SELL, 10, 1000)},
+                order(2, BUY, 15, 1000),
+                new Object[]{delete(2, BUY)});
+        assertBudget("partial fill", bytes, 2048);
+    }
+
+    @Test
+    void iceberg_replenish_stays_within_budget() {
+        double bytes = bytesPerRound(new Object[]{order(1, SELL, 20, 1000, 10, 0)},
+                order(2, BUY, 10, 1000),
+                new Object[]{delete(1, SELL)});
+        assertBudget("iceberg replenish", bytes, 2048);
+    }
+
+    @Test
+    void stop_activation_stays_within_budget() {
+        double bytes = bytesPerRound(new Object[]{order(1, SELL, 1, 990), order(2, BUY, 1, 990),
+                        order(3, SELL, 10, 1000), order(4, SELL, 20, 1010), order(5, BUY, 10, 1010, 0, 1005)},
+                order(6, BUY, 20, 1010),
+                new Object[]{});
+        assertBudget("stop activation", bytes, 3840);
+    }
+
+    @Test
+    void resting_order_on_a_deep_book_with_snapshots_stays_within_budget() {
+        orderHandler = wiring.bookSnapshots(new BookSnapshots(true)).build();
+        for (int i = 0; i < 500; i++)
+            orderHandler.handleEnterOrder(order(1000 + i, BUY, 10, 800 + i % 100));
+
+        double bytes = bytesPerRound(new Object[]{},
+                order(1, BUY, 10, 900),
+                new Object[]{delete(1, BUY)});
+        assertBudget("resting order on a deep book with snapshots", bytes, 2944);
+    }
+
+    @Test
+    void resting_order_with_production_wiring_stays_within_budget() {
+        useProductionWiring();
+        double bytes = bytesPerRound(new Object[]{},
+                order(1, BUY, 10, 900),
+                new Object[]{delete(1, BUY)});
+        assertBudget("resting order with production wiring", bytes, 1920);
+    }
+
+    @Test
+    void full_fill_with_production_wiring_stays_within_budget() {
+        useProductionWiring();
+        double bytes = bytesPerRound(new Object[]{order(1, SELL, 10, 1000)},
+                order(2, BUY, 10, 1000),
+                new Object[]{});
+        assertBudget("full fill with production wiring", bytes, 2816);
+    }
+}
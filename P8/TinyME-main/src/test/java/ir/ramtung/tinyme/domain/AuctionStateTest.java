@@ -468,6 +468,28 @@ class AuctionStateTest {
         assertThat(outputEvent.getSellId()).isEqualTo(1);
     }
 
+    @Test
+    void iceberg_on_the_larger_side_trades_its_hidden_quantity_in_the_uncross() {
+        Security security1 = Security.builder().isin("XYZ").lastTradePrice(15750).build();
+        shareholder.incPosition(security1, 100_000);
+        IcebergOrder iceberg = IcebergOrder.builder().orderId(1).security(security1).side(BUY).quantity(100).price(15800).
+                broker(broker1).shareholder(shareholder).peakSize(10).build();
+        List<Order> orders = Arrays.asList(iceberg,
+                Order.builder().orderId(2).security(security1).side(SELL).quantity(35).price(15700).
+                        broker(broker2).shareholder(shareholder).build(),
+                Order.builder().orderId(3).security(security1).side(SELL).quantity(20).price(15750).
+                        broker(broker2).shareholder(shareholder).build()
+        );
+        orders.forEach(order -> security1.getOrderBook().enqueue(order));
+
+        List<Trade> trades = auctionMatcher.execute(security1);
+
+        assertThat(trades.stream().mapToInt(Trade::getQuantity).sum()).isEqualTo(55);
+        assertThat(iceberg.getTotalQuantity()).isEqualTo(45);
+        assertThat(iceberg.getQuantity()).isEqualTo(5);
+        assertThat(security1.getOrderBook().getSellQueue()).isEmpty();
+    }
+
     @Test
     void delete_buy_order_deletes_successfully_and_increases_credit_in_auction_state() {
         security.setMatchingState(MatchingState.AUCTION);
@@ -0,0 +1,116 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.messaging.event.BarEvent;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BarAggregatorTest {
+    private static final long T0 = 1_700_000_100_000L;
+
+    private long now = T0;
+    private long nextId = 1;
+    private BarAggregator barAggregator;
+    private OrderHandler orderHandler;
+    private final List<BarEvent> bars = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        TestMarket market = new TestMarket(event -> {}, event -> {
+            if (event instanceof BarEvent bar)
+                bars.add(bar);
+        });
+        market.addSecurity("ABC");
+        market.addSecurity("XYZ");
+        barAggregator = new BarAggregator(true, new int[]{60, 300}, () -> now);
+        orderHandler = market.orderHandler().barAggregator(barAggregator).build();
+    }
+
+    private void enter(String isin, Side side, int quantity, int price) {
+        long id = nextId++;
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(id, isin, id, LocalDateTime.now(), side,
+                quantity, price, 1, 1, 0, 0));
+    }
+
+    private void trade(String isin, int quantity, int price) {
+        enter(isin, SELL, quantity, price);
+        enter(isin, BUY, quantity, price);
+    }
+
+    private static LocalDateTime at(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    @Test
+    void trades_in_a_bucket_are_aggregated() {
+        trade("ABC", 10, 1000);
+        now += 5_000;
+        trade("ABC", 30, 1020);
+        now += 5_000;
+        trade("ABC", 20, 990);
+
+        BarEvent bar = barAggregator.openBar("ABC", 60);
+        assertThat(bar).isEqualTo(new BarEvent("ABC", 60, at(T0 - T0 % 60_000), 1000, 1020, 990, 990, 60,
+                10 * 1000 + 30 * 1020 + 20 * 990, (10 * 1000 + 30 * 1020 + 20 * 990) / 60.0, 3));
+        assertThat(bars).isEmpty();
+    }
+
+    @Test
+    void crossing_a_boundary_publishes_the_completed_bar() {
+        trade("ABC", 10, 1000);
+        now += 60_000;
+        trade("ABC", 10, 1010);
+
+        assertThat(bars).hasSize(1);
+        assertThat(bars.get(0).getStart()).isEqualTo(at(T0 - T0 % 60_000));
+        assertThat(bars.get(0).getClose()).isEqualTo(1000);
+        assertThat(barAggregator.openBar("ABC", 60).getOpen()).isEqualTo(1010);
+        assertThat(barAggregator.openBar("ABC", 300).getTrades()).isEqualTo(2);
+    }
+
+    @Test
+    void idle_bars_are_closed_by_requests_on_other_securities() {
+        trade("ABC", 10, 1000);
+        now += 120_000;
+        enter("XYZ", BUY, 10, 900);
+
+        assertThat(bars).hasSize(1);
+        assertThat(bars.get(0).getSecurityIsin()).isEqualTo("ABC");
+        assertThat(bars.get(0).getIntervalSeconds()).isEqualTo(60);
+        assertThat(barAggregator.openBar("ABC", 60)).isNull();
+    }
+
+    @Test
+    void idle_bars_are_closed_by_a_flush_without_requests() {
+        trade("ABC", 10, 1000);
+        now += 60_000;
+        orderHandler.flushMarketData();
+
+        assertThat(bars).hasSize(1);
+        assertThat(bars.get(0).getIntervalSeconds()).isEqualTo(60);
+        assertThat(barAggregator.openBar("ABC", 60)).isNull();
+        assertThat(barAggregator.openBar("ABC", 300)).isNotNull();
+    }
+
+    @Test
+    void requests_without_trades_open_no_bars() {
+        enter("ABC", BUY, 10, 900);
+        now += 600_000;
+        enter("ABC", BUY, 10, 900);
+
+        assertThat(barAggregator.openBar("ABC", 60)).isNull();
+        assertThat(bars).isEmpty();
+    }
+}
@@ -0,0 +1,194 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.event.BookSnapshotEvent;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.event.OrderStatusEvent;
+import ir.ramtung.tinyme.messaging.request.BookSnapshotRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.OrderStatusRq;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSnapshotTest {
+    private Security security;
+    private OrderHandler orderHandler;
+    private BookQueryHandler bookQueryHandler;
+    private TestMarket market;
+    private final List<Event> events = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        market = new TestMarket(events::add, event -> {});
+        security = market.addSecurity("ABC");
+        orderHandler = market.orderHandler().bookSnapshots(new BookSnapshots(true)).build();
+        bookQueryHandler = new BookQueryHandler(market.securityRepository, market.eventPublisher, new BookSnapshots(true));
+    }
+
+    private void enter(long orderId, Side side, int quantity, int price, int peakSize, int stopPrice) {
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(orderId, "ABC", orderId, LocalDateTime.now(), side,
+                quantity, price, 1, 1, peakSize, 0, stopPrice, false));
+    }
+
+    private void enter(long orderId, Side side, int quantity, int price) {
+        enter(orderId, side, quantity, price, 0, 0);
+    }
+
+    private Event lastEvent() {
+        return events.get(events.size() - 1);
+    }
+
+    @Test
+    void book_snapshot_query_returns_top_levels_of_the_last_snapshot() {
+        enter(1, BUY, 100, 990);
+        enter(2, BUY, 50, 990);
+        enter(3, BUY, 30, 980);
+        enter(4, SELL, 40, 1010, 10, 0);
+
+        bookQueryHandler.handleBookSnapshotRq(new BookSnapshotRq(5, "ABC", 1));
+
+        BookSnapshotEvent event = (BookSnapshotEvent) lastEvent();
+        assertThat(event.getVersion()).isEqualTo(4);
+        assertThat(event.getBids()).containsExactly(new PriceLevel(BUY, 990, 150, 2));
+        assertThat(event.getAsks()).containsExactly(new PriceLevel(SELL, 1010, 10, 1));
+        assertThat(event.getLastTradePrice()).isEqualTo(1000);
+    }
+
+    @Test
+    void order_status_follows_the_order_until_it_leaves_the_book() {
+        enter(1, SELL, 100, 1010, 10, 0);
+        enter(2, BUY, 10, 1000, 0, 1100);
+
+        bookQueryHandler.handleOrderStatusRq(new OrderStatusRq(3, "ABC", SELL, 1));
+        assertThat(((OrderStatusEvent) lastEvent()).getOrder())
+                .isEqualTo(new OrderView(1, SELL, 1010, 10, 100, 10, 0, false));
+        bookQueryHandler.handleOrderStatusRq(new OrderStatusRq(4, "ABC", BUY, 2));
+        assertThat(((OrderStatusEvent) lastEvent()).getOrder().inactive()).isTrue();
+
+        enter(5, BUY, 100, 1010);
+        bookQueryHandler.handleOrderStatusRq(new OrderStatusRq(6, "ABC", SELL, 1));
+        OrderStatusEvent status = (OrderStatusEvent) lastEvent();
+        assertThat(status.getOrderId()).isEqualTo(1);
+        assertThat(status.getOrder()).isNull();
+    }
+
+    @Test
+    void invalid_queries_are_rejected() {
+        bookQueryHandler.handleBookSnapshotRq(new BookSnapshotRq(1, "XYZ", 0));
+        assertThat(((OrderRejectedEvent) lastEvent()).getErrors())
+                .containsExactly(Message.UNKNOWN_SECURITY_ISIN, Message.INVALID_BOOK_DEPTH);
+        bookQueryHandler.handleOrderStatusRq(new OrderStatusRq(2, "XYZ", BUY, 1));
+        assertThat(((OrderRejectedEvent) lastEvent()).getErrors()).containsExactly(Message.UNKNOWN_SECURITY_ISIN);
+    }
+
+    @Test
+    void queries_are_rejected_while_snapshots_are_disabled() {
+        BookQueryHandler disabled = new BookQueryHandler(market.securityRepository, market.eventPublisher, BookSnapshots.disabled());
+        enter(1, BUY, 100, 990);
+
+        disabled.handleBookSnapshotRq(new BookSnapshotRq(2, "ABC", 1));
+        assertThat(((OrderRejectedEvent) lastEvent()).getErrors()).containsExactly(Message.BOOK_SNAPSHOTS_DISABLED);
+        disabled.handleOrderStatusRq(new OrderStatusRq(3, "ABC", BUY, 1));
+        assertThat(((OrderRejectedEvent) lastEvent()).getErrors()).containsExactly(Message.BOOK_SNAPSHOTS_DISABLED);
+    }
+
+    @Test
+    void unchanged_side_and_unchanged_book_are_not_copied_again() {
+        enter(1, BUY, 100, 990);
+        BookSnapshot first = security.getBookSnapshot();
+
+        enter(2, SELL, 100, 1010);
+        BookSnapshot second = security.getBookSnapshot();
+        assertThat(second.version()).isEqualTo(first.version() + 1);
+        assertThat(second.buySide()).isSameAs(first.buySide());
+
+        orderHandler.handleDeleteOrder(new DeleteOrderRq(3, "ABC", SELL, 7));
+        assertThat(security.getBookSnapshot()).isSameAs(second);
+    }
+
+    @Test
+    void only_the_changed_level_is_copied() {
+        enter(1, BUY, 100, 990);
+        enter(2, BUY, 100, 980);
+        BookSnapshot first = security.getBookSnapshot();
+
+        enter(3, BUY, 50, 980);
+        BookSnapshot second = security.getBookSnapshot();
+        assertThat(second.order(BUY, 1)).isSameAs(first.order(BUY, 1));
+        assertThat(second.order(BUY, 2)).isNotSameAs(first.order(BUY, 2));
+        assertThat(second.levels(BUY)).containsExactly(new PriceLevel(BUY, 990, 100, 1), new PriceLevel(BUY, 980, 150, 2));
+    }
+
+    @Test
+    void snapshots_follow_the_book_and_stay_consistent_for_a_concurrent_reader() throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            long lastVersion = 0;
+            while (!done.get() && failure.get() == null) {
+                BookSnapshot snapshot = security.getBookSnapshot();
+                if (snapshot.version() < lastVersion)
+                    failure.set("version went back from " + lastVersion + " to " + snapshot.version());
+                lastVersion = snapshot.version();
+                for (Side side : Side.values()) {
+                    int shown = snapshot.levels(side).stream().mapToInt(PriceLevel::quantity).sum();
+                    int active = snapshot.side(side).orders().stream()
+                            .filter(order -> !order.inactive()).mapToInt(OrderView::quantity).sum();
+                    if (shown != active)
+                        failure.set("levels show " + shown + " but orders hold " + active + " in version " + lastVersion);
+                }
+            }
+        });
+        reader.start();
+
+        Random random = new Random(11);
+        List<Long> live = new ArrayList<>();
+        for (long id = 1; id <= 3_000; id++) {
+            if (random.nextDouble() < 0.2 && !live.isEmpty()) {
+                long orderId = live.remove(random.nextInt(live.size()));
+                orderHandler.handleDeleteOrder(new DeleteOrderRq(id, "ABC", orderId % 2 == 0 ? BUY : SELL, orderId));
+            } else {
+                Side side = id % 2 == 0 ? BUY : SELL;
+                int price = 1000 + (side == BUY ? -1 : 1) * (random.nextInt(20) - 4);
+                int peakSize = random.nextDouble() < 0.2 ? 10 : 0;
+                int stopPrice = peakSize == 0 && random.nextDouble() < 0.05 ? price + (side == BUY ? 2 : -2) : 0;
+                enter(id, side, 10 * (2 + random.nextInt(10)), price, peakSize, stopPrice);
+                live.add(id);
+            }
+
+            BookSnapshot snapshot = security.getBookSnapshot();
+            OrderBook orderBook = security.getOrderBook();
+            for (Side side : Side.values())
+                assertThat(snapshot.levels(side)).isEqualTo(orderBook.priceLevels(side));
+            for (Order order : orderBook.getBuyQueue())
+                assertThat(snapshot.order(BUY, order.getOrderId())).isEqualTo(OrderView.of(order));
+            for (Order order : orderBook.getSellQueue())
+                assertThat(snapshot.order(SELL, order.getOrderId())).isEqualTo(OrderView.of(order));
+            for (Order order : orderBook.getInactiveBuyQueue())
+                assertThat(snapshot.order(BUY, order.getOrderId())).isEqualTo(OrderView.of(order));
+            for (Order order : orderBook.getInactiveSellQueue())
+                assertThat(snapshot.order(SELL, order.getOrderId())).isEqualTo(OrderView.of(order));
+            assertThat(snapshot.side(BUY).orders()).hasSize(orderBook.getBuyQueue().size() + orderBook.getInactiveBuyQueue().size());
+            assertThat(snapshot.side(SELL).orders()).hasSize(orderBook.getSellQueue().size() + orderBook.getInactiveSellQueue().size());
+        }
+        done.set(true);
+        reader.join();
+
+        assertThat(failure.get()).isNull();
+    }
+}
@@ -2,7 +2,12 @@ package ir.ramtung.tinyme.domain;
 
 import ir.ramtung.tinyme.config.MockedJMSTestConfig;
 import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.AuctionMatcher;
 import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.domain.service.Recycler;
+import ir.ramtung.tinyme.messaging.exception.InvalidRequestException;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +15,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -218,6 +224,33 @@ public class ContinuousMatcherTest {
         assertThat(security.getOrderBook().getSellQueue().get(2).getQuantity()).isEqualTo(orders.get(7).getQuantity());
     }
 
+    @Test
+    void minimum_execution_quantity_not_met_restores_iceberg_matched_in_several_rounds() {
+        security = Security.builder().build();
+        broker = Broker.builder().build();
+        orderBook = security.getOrderBook();
+        orders = Arrays.asList(
+                IcebergOrder.builder().orderId(1).security(security).side(BUY).quantity(450).price(15450).
+                        minimumExecutionQuantity(0).broker(broker).
+                        shareholder(shareholder).peakSize(200).stopPrice(0).build(),
+                Order.builder().orderId(2).security(security).side(BUY).quantity(1000).price(15400).
+                        minimumExecutionQuantity(0).broker(broker).
+                        shareholder(shareholder).stopPrice(0).build()
+        );
+        orders.forEach(order -> orderBook.enqueue(order));
+        Order order = Order.builder().orderId(3).security(security).side(Side.SELL).quantity(600).price(15450).
+                minimumExecutionQuantity(500).broker(broker).
+                shareholder(shareholder).stopPrice(0).build();
+
+        MatchResult result = continuousMatcher.match(order);
+
+        assertThat(result.outcome()).isEqualTo(MatchingOutcome.NOT_ENOUGH_QUANTITIES_TRADED);
+        assertThat(orderBook.getBuyQueue()).hasSize(2);
+        assertThat(orderBook.getBuyQueue().getFirst().getOrderId()).isEqualTo(1);
+        assertThat(orderBook.getBuyQueue().getFirst().getTotalQuantity()).isEqualTo(450);
+        assertThat(orderBook.getBuyQueue().getFirst().getQuantity()).isEqualTo(200);
+    }
+
     @Test
     void new_sell_order_with_minimum_execution_quantity_executes() {
         Order order = Order.builder().orderId(11).security(security).side(Side.SELL).quantity(500).price(15500).
@@ -237,4 +270,96 @@ public class ContinuousMatcherTest {
         assertThat(result.outcome()).isEqualTo(MatchingOutcome.EXECUTED);
         assertThat(result.trades().size()).isEqualTo(3);
     }
+
+    private void enqueueStopLossCascade() {
+        orderBook.enqueue(Order.builder().orderId(21).security(security).side(Side.SELL).quantity(445).price(15450).
+                broker(broker).shareholder(shareholder).stopPrice(15600).inactive(true).build());
+        orderBook.enqueue(Order.builder().orderId(22).security(security).side(Side.SELL).quantity(100).price(15400).
+                broker(broker).shareholder(shareholder).stopPrice(15450).inactive(true).build());
+    }
+
+    @Test
+    void stop_limit_cascade_is_executed_iteratively_in_priority_order() {
+        enqueueStopLossCascade();
+        Order order = Order.builder().orderId(11).security(security).side(Side.SELL).quantity(350).price(15500).
+                broker(broker).shareholder(shareholder).build();
+
+        continuousMatcher.clearMatchResults();
+        List<MatchResult> results = continuousMatcher.execute(order);
+
+        assertThat(results).extracting(MatchResult::outcome).containsExactly(MatchingOutcome.EXECUTED,
+                MatchingOutcome.STOP_LIMIT_ORDER_ACTIVATED, MatchingOutcome.EXECUTED,
+                MatchingOutcome.STOP_LIMIT_ORDER_ACTIVATED, MatchingOutcome.EXECUTED);
+        assertThat(orderBook.getActiveQueue()).isEmpty();
+        assertThat(orderBook.getInactiveSellQueue()).isEmpty();
+        assertThat(orderBook.getBuyQueue().getFirst().getOrderId()).isEqualTo(4);
+        assertThat(orderBook.getBuyQueue().getFirst().getQuantity()).isEqualTo(426);
+        assertThat(security.getLastTradePrice()).isEqualTo(15450);
+    }
+
+    @Test
+    void stop_limit_cascade_stops_when_activation_budget_is_exhausted() {
+        enqueueStopLossCascade();
+        ContinuousMatcher boundedMatcher = new ContinuousMatcher(Recycler.disabled(), 1);
+        Order order = Order.builder().orderId(11).security(security).side(Side.SELL).quantity(350).price(15500).
+                broker(broker).shareholder(shareholder).build();
+
+        List<MatchResult> results = boundedMatcher.execute(order);
+
+        assertThat(results).extracting(MatchResult::outcome).containsExactly(MatchingOutcome.EXECUTED,
+                MatchingOutcome.STOP_LIMIT_ORDER_ACTIVATED, MatchingOutcome.EXECUTED);
+        assertThat(orderBook.getActiveQueue()).isEmpty();
+        assertThat(orderBook.getInactiveSellQueue()).extracting(Order::getOrderId).containsExactly(22L);
+        assertThat(orderBook.getActivationBacklog()).isEqualTo(1);
+        assertThat(orderBook.getBuyQueue().getFirst().getOrderId()).isEqualTo(4);
+        assertThat(orderBook.getBuyQueue().getFirst().getQuantity()).isEqualTo(526);
+    }
+
+    private ContinuousMatcher strandStopLossOrder() {
+        enqueueStopLossCascade();
+        ContinuousMatcher boundedMatcher = new ContinuousMatcher(Recycler.disabled(), 1);
+        boundedMatcher.execute(Order.builder().orderId(11).security(security).side(Side.SELL).quantity(350).price(15500).
+                broker(broker).shareholder(shareholder).build());
+        boundedMatcher.clearMatchResults();
+        return boundedMatcher;
+    }
+
+    @Test
+    void order_left_by_the_activation_budget_can_be_deleted() throws InvalidRequestException {
+        strandStopLossOrder();
+
+        security.deleteOrder(new DeleteOrderRq(2, security.getIsin(), Side.SELL, 22, 15450, true));
+
+        assertThat(orderBook.getInactiveSellQueue()).isEmpty();
+        assertThat(orderBook.getActiveQueue()).isEmpty();
+    }
+
+    @Test
+    void order_left_by_the_activation_budget_can_be_updated() throws InvalidRequestException {
+        ContinuousMatcher boundedMatcher = strandStopLossOrder();
+
+        List<MatchResult> results = security.updateOrder(EnterOrderRq.createUpdateOrderRq(2, security.getIsin(), 22,
+                LocalDateTime.now(), Side.SELL, 100, 15400, 0, 0, 0, 0, 15000, true), boundedMatcher, new AuctionMatcher());
+
+        assertThat(results).isEmpty();
+        assertThat(orderBook.getInactiveSellQueue()).extracting(Order::getStopPrice).containsExactly(15000);
+        assertThat(orderBook.getBuyQueue().getFirst().getQuantity()).isEqualTo(526);
+    }
+
+    @Test
+    void order_left_by_the_activation_budget_is_activated_by_the_next_execution() {
+        ContinuousMatcher boundedMatcher = strandStopLossOrder();
+        Order order = Order.builder().orderId(12).security(security).side(BUY).quantity(10).price(15000).
+                broker(broker).shareholder(shareholder).build();
+
+        List<MatchResult> results = boundedMatcher.execute(order);
+
+        assertThat(results).extracting(MatchResult::outcome).containsExactly(MatchingOutcome.EXECUTED,
+                MatchingOutcome.STOP_LIMIT_ORDER_ACTIVATED, MatchingOutcome.EXECUTED);
+        assertThat(results.get(1).remainder().getOrderId()).isEqualTo(22);
+        assertThat(orderBook.getInactiveSellQueue()).isEmpty();
+        assertThat(orderBook.getActivationBacklog()).isZero();
+        assertThat(orderBook.getBuyQueue().getFirst().getOrderId()).isEqualTo(4);
+        assertThat(orderBook.getBuyQueue().getFirst().getQuantity()).isEqualTo(426);
+    }
 }
@@ -0,0 +1,143 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.messaging.PriceLevelUpdate;
+import ir.ramtung.tinyme.messaging.PriceLevelUpdate.Action;
+import ir.ramtung.tinyme.messaging.event.MarketDepthEvent;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DepthFeedTest {
+    private Security security;
+    private DepthFeed depthFeed;
+    private OrderHandler orderHandler;
+    private final List<MarketDepthEvent> depthEvents = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        TestMarket market = new TestMarket(event -> {}, event -> {
+            if (event instanceof MarketDepthEvent depthEvent)
+                depthEvents.add(depthEvent);
+        });
+        security = market.addSecurity("ABC");
+        depthFeed = new DepthFeed(true);
+        orderHandler = market.orderHandler().depthFeed(depthFeed).build();
+    }
+
+    private void enter(long orderId, Side side, int quantity, int price, int peakSize, int stopPrice) {
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(orderId, "ABC", orderId, LocalDateTime.now(), side,
+                quantity, price, 1, 1, peakSize, 0, stopPrice, false));
+    }
+
+    private void enter(long orderId, Side side, int quantity, int price) {
+        enter(orderId, side, quantity, price, 0, 0);
+    }
+
+    private List<PriceLevelUpdate> lastUpdates() {
+        return depthEvents.get(depthEvents.size() - 1).getUpdates();
+    }
+
+    @Test
+    void resting_orders_add_and_change_levels() {
+        enter(1, BUY, 100, 990);
+        assertThat(lastUpdates()).containsExactly(new PriceLevelUpdate(Action.ADD, BUY, 990, 100, 1));
+
+        enter(2, BUY, 50, 990);
+        assertThat(lastUpdates()).containsExactly(new PriceLevelUpdate(Action.CHANGE, BUY, 990, 150, 2));
+    }
+
+    @Test
+    void iceberg_orders_show_only_their_displayed_quantity() {
+        enter(1, SELL, 100, 1010, 10, 0);
+        assertThat(lastUpdates()).containsExactly(new PriceLevelUpdate(Action.ADD, SELL, 1010, 10, 1));
+
+        enter(2, BUY, 10, 1010);
+        assertThat(depthEvents).hasSize(1);
+
+        enter(3, BUY, 85, 1010);
+        assertThat(lastUpdates()).containsExactly(new PriceLevelUpdate(Action.CHANGE, SELL, 1010, 5, 1));
+    }
+
+    @Test
+    void sweep_is_conflated_into_one_update_per_level() {
+        enter(1, SELL, 10, 1000);
+        enter(2, SELL, 10, 1000);
+        enter(3, SELL, 10, 1010);
+        enter(4, SELL, 10, 1020);
+        int events = depthEvents.size();
+
+        enter(5, BUY, 35, 1020);
+
+        assertThat(depthEvents).hasSize(events + 1);
+        assertThat(lastUpdates()).containsExactly(
+                new PriceLevelUpdate(Action.DELETE, SELL, 1000, 0, 0),
+                new PriceLevelUpdate(Action.DELETE, SELL, 1010, 0, 0),
+                new PriceLevelUpdate(Action.CHANGE, SELL, 1020, 5, 1));
+    }
+
+    @Test
+    void request_that_leaves_the_book_unchanged_publishes_nothing() {
+        enter(1, BUY, 100, 990);
+        int events = depthEvents.size();
+
+        enter(2, BUY, 10, 1000, 0, 1100);
+        orderHandler.handleDeleteOrder(new DeleteOrderRq(3, "ABC", SELL, 7));
+
+        assertThat(depthEvents).hasSize(events);
+    }
+
+    private boolean bothSidesHaveOrders() {
+        return security.getOrderBook().hasOrderOfType(BUY) && security.getOrderBook().hasOrderOfType(SELL);
+    }
+
+    @Test
+    void published_depth_follows_the_book_through_a_random_flow() {
+        Random random = new Random(7);
+        List<Long> live = new ArrayList<>();
+        for (long id = 1; id <= 3_000; id++) {
+            double dice = random.nextDouble();
+            boolean auction = security.getMatchingState() == MatchingState.AUCTION;
+            if (dice < 0.01 && (auction || bothSidesHaveOrders())) {
+                MatchingState state = auction ? MatchingState.CONTINUOUS : MatchingState.AUCTION;
+                orderHandler.handleChangeMatchingState(new ChangeMatchingStateRq("ABC", state));
+            } else if (dice < 0.2 && !auction && !live.isEmpty()) {
+                long orderId = live.remove(random.nextInt(live.size()));
+                orderHandler.handleDeleteOrder(new DeleteOrderRq(id, "ABC", orderId % 2 == 0 ? BUY : SELL, orderId));
+            } else if (dice < 0.35 && !live.isEmpty()) {
+                long orderId = live.get(random.nextInt(live.size()));
+                Side side = orderId % 2 == 0 ? BUY : SELL;
+                Order order = security.getOrderBook().findByOrderId(side, orderId, false);
+                if (order != null)
+                    orderHandler.handleEnterOrder(EnterOrderRq.createUpdateOrderRq(id, "ABC", orderId, LocalDateTime.now(), side,
+                            Math.max(10, order.getTotalQuantity() + 10 * (random.nextInt(5) - 2)), order.getPrice() + random.nextInt(5) - 2,
+                            1, 1, order instanceof IcebergOrder iceberg ? iceberg.getPeakSize() : 0, 0));
+            } else {
+                Side side = id % 2 == 0 ? BUY : SELL;
+                int price = 1000 + (side == BUY ? -1 : 1) * (random.nextInt(20) - 4);
+                int quantity = 10 * (1 + random.nextInt(10));
+                int peakSize = random.nextDouble() < 0.2 && quantity > 10 ? 10 : 0;
+                int stopPrice = peakSize == 0 && !auction && random.nextDouble() < 0.05
+                        ? price + (side == BUY ? 2 : -2) : 0;
+                enter(id, side, quantity, price, peakSize, stopPrice);
+                live.add(id);
+            }
+
+            assertThat(depthFeed.publishedLevels("ABC", BUY)).isEqualTo(security.getOrderBook().priceLevels(BUY));
+            assertThat(depthFeed.publishedLevels("ABC", SELL)).isEqualTo(security.getOrderBook().priceLevels(SELL));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.domain.service.LatencyRecorder.RequestType;
+import ir.ramtung.tinyme.domain.service.LatencyRecorder.Stage;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+import static org.mockito.Mockito.mock;
+
+class LatencyRecorderTest {
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+    private LatencyRecorder latencyRecorder;
+    private OrderHandler orderHandler;
+
+    @BeforeEach
+    void setup() {
+        SecurityRepository securityRepository = new SecurityRepository();
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        security = Security.builder().isin("ABC").build();
+        broker = Broker.builder().brokerId(1).credit(100_000_000L).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, 100_000);
+        securityRepository.addSecurity(security);
+        brokerRepository.addBroker(broker);
+        shareholderRepository.addShareholder(shareholder);
+        latencyRecorder = new LatencyRecorder(true);
+        orderHandler = OrderHandler.builder()
+                .securityRepository(securityRepository)
+                .brokerRepository(brokerRepository)
+                .shareholderRepository(shareholderRepository)
+                .eventPublisher(mock(EventPublisher.class))
+                .latencyRecorder(latencyRecorder)
+                .build();
+    }
+
+    private long count(RequestType type, Stage stage) {
+        return latencyRecorder.histogram(type, stage).getTotalCount();
+    }
+
+    @Test
+    void histogram_percentiles_are_within_bucket_precision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++)
+            histogram.record(value * 1000);
+        assertThat(histogram.getTotalCount()).isEqualTo(100_000);
+        assertThat(histogram.percentile(50)).isCloseTo(50_000_000L, withinPercentage(2));
+        assertThat(histogram.percentile(99)).isCloseTo(99_000_000L, withinPercentage(2));
+        assertThat(histogram.percentile(100)).isEqualTo(100_000_000L);
+        assertThat(histogram.mean()).isCloseTo(50_000_500.0, withinPercentage(0.01));
+
+        histogram.reset();
+        assertThat(histogram.getTotalCount()).isZero();
+        assertThat(histogram.percentile(99)).isZero();
+    }
+
+    @Test
+    void new_order_is_recorded_in_validation_matching_publishing_and_total() {
+        security.getOrderBook().enqueue(Order.builder().orderId(1).security(security).side(SELL).quantity(100).price(1000).
+                broker(broker).shareholder(shareholder).build());
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 2, LocalDateTime.now(), BUY, 100, 1000, 1, 1, 0, 0, 0, false));
+
+        assertThat(count(RequestType.NEW_ORDER, Stage.VALIDATION)).isEqualTo(1);
+        assertThat(count(RequestType.NEW_ORDER, Stage.MATCHING)).isEqualTo(1);
+        assertThat(count(RequestType.NEW_ORDER, Stage.ACTIVATION)).isZero();
+        assertThat(count(RequestType.NEW_ORDER, Stage.PUBLISHING)).isEqualTo(1);
+        assertThat(count(RequestType.NEW_ORDER, Stage.TOTAL)).isEqualTo(1);
+    }
+
+    @Test
+    void activation_cascade_is_recorded_separately_from_matching() {
+        security.getOrderBook().enqueue(Order.builder().orderId(1).security(security).side(SELL).quantity(100).price(1000).
+                broker(broker).shareholder(shareholder).build());
+        security.getOrderBook().enqueue(Order.builder().orderId(2).security(security).side(SELL).quantity(100).price(1010).
+                broker(broker).shareholder(shareholder).build());
+        security.getOrderBook().enqueue(Order.builder().orderId(3).security(security).side(BUY).quantity(100).price(1010).
+                broker(broker).shareholder(shareholder).stopPrice(1000).inactive(true).build());
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 4, LocalDateTime.now(), BUY, 100, 1000, 1, 1, 0, 0, 0, false));
+
+        assertThat(security.getOrderBook().getSellQueue()).isEmpty();
+        assertThat(count(RequestType.NEW_ORDER, Stage.MATCHING)).isEqualTo(1);
+        assertThat(count(RequestType.NEW_ORDER, Stage.ACTIVATION)).isEqualTo(1);
+    }
+
+    @Test
+    void rejected_delete_records_the_stage_that_failed() {
+        orderHandler.handleDeleteOrder(new DeleteOrderRq(1, "ABC", BUY, 99));
+
+        assertThat(count(RequestType.DELETE_ORDER, Stage.VALIDATION)).isEqualTo(1);
+        assertThat(count(RequestType.DELETE_ORDER, Stage.MATCHING)).isEqualTo(1);
+        assertThat(count(RequestType.DELETE_ORDER, Stage.PUBLISHING)).isEqualTo(1);
+        assertThat(count(RequestType.DELETE_ORDER, Stage.TOTAL)).isEqualTo(1);
+    }
+
+    @Test
+    void invalid_order_is_recorded_in_validation_but_not_matching() {
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "XYZ", 2, LocalDateTime.now(), BUY, 100, 1000, 1, 1, 0, 0, 0, false));
+
+        assertThat(count(RequestType.NEW_ORDER, Stage.VALIDATION)).isEqualTo(1);
+        assertThat(count(RequestType.NEW_ORDER, Stage.MATCHING)).isZero();
+        assertThat(count(RequestType.NEW_ORDER, Stage.TOTAL)).isEqualTo(1);
+    }
+
+    @Test
+    void reset_clears_every_histogram_and_disabled_recorder_records_nothing() {
+        orderHandler.handleDeleteOrder(new DeleteOrderRq(1, "ABC", BUY, 99));
+        latencyRecorder.reset();
+        assertThat(count(RequestType.DELETE_ORDER, Stage.TOTAL)).isZero();
+
+        LatencyRecorder disabled = LatencyRecorder.disabled();
+        disabled.record(RequestType.NEW_ORDER, Stage.TOTAL, 1000);
+        assertThat(disabled.histogram(RequestType.NEW_ORDER, Stage.TOTAL).getTotalCount()).isZero();
+    }
+
+    @Test
+    void reset_and_report_from_another_thread_are_served_on_the_next_recording() throws Exception {
+        latencyRecorder.record(RequestType.NEW_ORDER, Stage.TOTAL, 1000);
+        latencyRecorder.requestReset();
+        assertThat(count(RequestType.NEW_ORDER, Stage.TOTAL)).isEqualTo(1);
+        latencyRecorder.record(RequestType.NEW_ORDER, Stage.TOTAL, 2000);
+        assertThat(count(RequestType.NEW_ORDER, Stage.TOTAL)).isEqualTo(1);
+
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> report = reader.submit(() -> latencyRecorder.report(5_000));
+            while (!report.isDone())
+                latencyRecorder.record(RequestType.DELETE_ORDER, Stage.TOTAL, 3000);
+            assertThat(report.get()).contains("NEW_ORDER");
+        } finally {
+            reader.shutdown();
+        }
+        assertThat(latencyRecorder.report(10)).contains("No request was handled");
+    }
+}
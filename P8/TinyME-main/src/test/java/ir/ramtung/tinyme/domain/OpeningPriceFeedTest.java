@@ -0,0 +1,148 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.event.OpeningPriceEvent;
+import ir.ramtung.tinyme.messaging.event.TradeEvent;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpeningPriceFeedTest {
+    private volatile long now = 1_700_000_000_000L;
+    private Security security;
+    private TestMarket market;
+    private OrderHandler orderHandler;
+    private final List<Event> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        market = new TestMarket(events::add, event -> {});
+        security = market.addSecurity("ABC");
+    }
+
+    private void startAuction(long intervalMillis, int batchSize) {
+        OpeningPriceFeed openingPriceFeed = new OpeningPriceFeed(true, intervalMillis, batchSize, () -> now);
+        orderHandler = market.orderHandler()
+                .auctionMatcher(new AuctionMatcher(Recycler.disabled(), openingPriceFeed))
+                .build();
+        orderHandler.handleChangeMatchingState(new ChangeMatchingStateRq("ABC", MatchingState.AUCTION));
+    }
+
+    private void enter(long orderId, Side side, int quantity, int price) {
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(orderId, "ABC", orderId, LocalDateTime.now(), side,
+                quantity, price, 1, 1, 0, 0, 0, false));
+    }
+
+    private List<OpeningPriceEvent> openingPrices() {
+        return events.stream().filter(OpeningPriceEvent.class::isInstance).map(OpeningPriceEvent.class::cast).toList();
+    }
+
+    private OpeningPriceEvent lastOpeningPrice() {
+        List<OpeningPriceEvent> openingPrices = openingPrices();
+        return openingPrices.get(openingPrices.size() - 1);
+    }
+
+    @Test
+    void entries_within_the_interval_are_conflated() {
+        startAuction(100, 0);
+        enter(1, BUY, 100, 1010);
+        assertThat(openingPrices()).hasSize(1);
+
+        enter(2, SELL, 100, 990);
+        enter(3, SELL, 50, 1000);
+        assertThat(openingPrices()).hasSize(1);
+
+        now += 100;
+        enter(4, BUY, 10, 900);
+        assertThat(openingPrices()).hasSize(2);
+        assertThat(lastOpeningPrice().getOpeningPrice()).isEqualTo(1000);
+        assertThat(lastOpeningPrice().getTradableQuantity()).isEqualTo(100);
+        assertThat(security.getIndicativeOpeningPrice()).isEqualTo(1000);
+    }
+
+    @Test
+    void due_price_is_published_by_a_flush_without_new_orders() {
+        startAuction(100, 0);
+        enter(1, BUY, 100, 1010);
+        enter(2, SELL, 100, 990);
+        orderHandler.flushMarketData();
+        assertThat(openingPrices()).hasSize(1);
+
+        now += 100;
+        orderHandler.flushMarketData();
+        assertThat(openingPrices()).hasSize(2);
+        assertThat(lastOpeningPrice().getOpeningPrice()).isEqualTo(1000);
+        assertThat(lastOpeningPrice().getTradableQuantity()).isEqualTo(100);
+    }
+
+    @Test
+    void scheduled_flush_publishes_the_due_price() throws InterruptedException {
+        startAuction(100, 0);
+        enter(1, BUY, 100, 1010);
+        enter(2, SELL, 100, 990);
+        MarketDataFlusher flusher = new MarketDataFlusher(orderHandler, 5);
+        try {
+            now += 100;
+            for (int i = 0; i < 500 && openingPrices().size() < 2; i++)
+                Thread.sleep(10);
+        } finally {
+            flusher.close();
+        }
+
+        assertThat(openingPrices()).hasSize(2);
+        assertThat(lastOpeningPrice().getTradableQuantity()).isEqualTo(100);
+    }
+
+    @Test
+    void a_full_batch_is_published_before_the_interval_ends() {
+        startAuction(Long.MAX_VALUE, 3);
+        enter(1, BUY, 100, 1010);
+        enter(2, SELL, 100, 990);
+        enter(3, SELL, 50, 1000);
+        assertThat(openingPrices()).hasSize(1);
+
+        enter(4, BUY, 10, 900);
+        assertThat(openingPrices()).hasSize(2);
+        assertThat(lastOpeningPrice().getOpeningPrice()).isEqualTo(1000);
+        assertThat(lastOpeningPrice().getTradableQuantity()).isEqualTo(100);
+    }
+
+    @Test
+    void unchanged_price_is_not_published_again() {
+        startAuction(0, 0);
+        enter(1, BUY, 100, 1010);
+        enter(2, BUY, 50, 1000);
+
+        assertThat(openingPrices()).hasSize(1);
+        assertThat(lastOpeningPrice().getTradableQuantity()).isEqualTo(0);
+    }
+
+    @Test
+    void uncross_uses_the_exact_price_and_drops_the_pending_one() {
+        startAuction(Long.MAX_VALUE, 0);
+        enter(1, BUY, 100, 1010);
+        enter(2, SELL, 60, 990);
+        int published = openingPrices().size();
+
+        orderHandler.handleChangeMatchingState(new ChangeMatchingStateRq("ABC", MatchingState.CONTINUOUS));
+
+        List<TradeEvent> trades = events.stream().filter(TradeEvent.class::isInstance).map(TradeEvent.class::cast).toList();
+        assertThat(trades).hasSize(1);
+        assertThat(trades.get(0).getPrice()).isEqualTo(1000);
+        assertThat(trades.get(0).getQuantity()).isEqualTo(60);
+        assertThat(openingPrices()).hasSize(published);
+        assertThat(security.getIndicativeOpeningPrice()).isEqualTo(0);
+    }
+}
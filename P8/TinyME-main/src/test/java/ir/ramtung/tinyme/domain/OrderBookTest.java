@@ -97,4 +97,27 @@ class OrderBookTest {
         orderBook.removeByOrderId(Side.SELL, 10, false);
         assertThat(orderBook.getSellQueue()).isEqualTo(orders.subList(5, 9));
     }
+
+    @Test
+    void enqueue_assigns_increasing_sequence_numbers() {
+        assertThat(orders).extracting(Order::getSequence)
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+    }
+
+    @Test
+    void restored_order_keeps_its_time_priority_within_its_price_level() {
+        OrderBook orderBook = security.getOrderBook();
+        Order original = orders.get(2).snapshot();
+        orderBook.removeByOrderId(Side.BUY, 3, false);
+        orderBook.restore(original);
+        assertThat(orderBook.getBuyQueue()).extracting(Order::getOrderId).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void reenqueued_order_loses_its_time_priority_within_its_price_level() {
+        OrderBook orderBook = security.getOrderBook();
+        orderBook.removeByOrderId(Side.BUY, 3, false);
+        orderBook.enqueue(orders.get(2));
+        assertThat(orderBook.getBuyQueue()).extracting(Order::getOrderId).containsExactly(1L, 2L, 4L, 3L, 5L);
+    }
 }
\ No newline at end of file
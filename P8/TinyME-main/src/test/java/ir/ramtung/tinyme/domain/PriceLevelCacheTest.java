@@ -0,0 +1,134 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceLevelCacheTest {
+    private Security security;
+    private OrderHandler orderHandler;
+
+    @BeforeEach
+    void setup() {
+        TestMarket market = new TestMarket(event -> {}, event -> {});
+        security = market.addSecurity("ABC");
+        orderHandler = market.orderHandler().build();
+    }
+
+    private static List<PriceLevel> scan(List<Order> queue, Side side) {
+        List<PriceLevel> levels = new ArrayList<>();
+        for (Order order : queue) {
+            if (order.getQuantity() == 0)
+                continue;
+            PriceLevel last = levels.isEmpty() ? null : levels.get(levels.size() - 1);
+            if (last != null && last.price() == order.getPrice())
+                levels.set(levels.size() - 1, new PriceLevel(side, last.price(), last.quantity() + order.getQuantity(), last.orders() + 1));
+            else
+                levels.add(new PriceLevel(side, order.getPrice(), order.getQuantity(), 1));
+        }
+        return levels;
+    }
+
+    @Test
+    void cache_keeps_levels_in_book_order_and_drops_empty_ones() {
+        PriceLevelCache bids = new PriceLevelCache(BUY);
+        for (int price = 1; price <= 40; price++)
+            bids.add(price * 10 % 41, 5, 1);
+        bids.add(10, 7, 1);
+        bids.add(20, -5, -1);
+
+        assertThat(bids.size()).isEqualTo(39);
+        assertThat(bids.top(3)).containsExactly(new PriceLevel(BUY, 40, 5, 1), new PriceLevel(BUY, 39, 5, 1),
+                new PriceLevel(BUY, 38, 5, 1));
+        assertThat(bids.find(10)).isEqualTo(new PriceLevel(BUY, 10, 12, 2));
+        assertThat(bids.find(20)).isNull();
+
+        PriceLevelCache asks = new PriceLevelCache(SELL);
+        asks.add(1010, 10, 1);
+        asks.add(1005, 10, 1);
+        assertThat(asks.top(5)).containsExactly(new PriceLevel(SELL, 1005, 10, 1), new PriceLevel(SELL, 1010, 10, 1));
+    }
+
+    @Test
+    void top_levels_read_only_the_requested_levels() {
+        for (long id = 1; id <= 10; id++)
+            orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(id, "ABC", id, LocalDateTime.now(), BUY,
+                    10, 990 - (int) id % 5, 1, 1, 0, 0, 0, false));
+
+        assertThat(security.getOrderBook().topLevels(BUY, 2)).containsExactly(
+                new PriceLevel(BUY, 990, 20, 2), new PriceLevel(BUY, 989, 20, 2));
+        assertThat(security.getOrderBook().bestLevel(SELL)).isNull();
+    }
+
+    @Test
+    void rejected_update_does_not_mark_its_level_changed() {
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(1, "ABC", 1, LocalDateTime.now(), BUY,
+                10, 990, 1, 1, 0, 0, 0, false));
+        long version = security.getOrderBook().getChangedLevels(BUY).getVersion();
+
+        orderHandler.handleEnterOrder(EnterOrderRq.createUpdateOrderRq(2, "ABC", 1, LocalDateTime.now(), BUY,
+                20, 995, 1, 1, 5, 0));
+
+        assertThat(security.getOrderBook().getChangedLevels(BUY).getVersion()).isEqualTo(version);
+        assertThat(security.getOrderBook().topLevels(BUY, 1)).containsExactly(new PriceLevel(BUY, 990, 10, 1));
+    }
+
+    private boolean bothSidesHaveOrders() {
+        return security.getOrderBook().hasOrderOfType(BUY) && security.getOrderBook().hasOrderOfType(SELL);
+    }
+
+    @Test
+    void cached_levels_match_a_full_scan_through_a_random_flow() {
+        Random random = new Random(23);
+        List<Long> live = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            double dice = random.nextDouble();
+            boolean auction = security.getMatchingState() == MatchingState.AUCTION;
+            if (dice < 0.01 && (auction || bothSidesHaveOrders())) {
+                MatchingState state = auction ? MatchingState.CONTINUOUS : MatchingState.AUCTION;
+                orderHandler.handleChangeMatchingState(new ChangeMatchingStateRq("ABC", state));
+            } else if (dice < 0.2 && !auction && !live.isEmpty()) {
+                long orderId = live.remove(random.nextInt(live.size()));
+                orderHandler.handleDeleteOrder(new DeleteOrderRq(id, "ABC", orderId % 2 == 0 ? BUY : SELL, orderId));
+            } else if (dice < 0.35 && !live.isEmpty()) {
+                long orderId = live.get(random.nextInt(live.size()));
+                Side side = orderId % 2 == 0 ? BUY : SELL;
+                Order order = security.getOrderBook().findByOrderId(side, orderId, false);
+                if (order != null)
+                    orderHandler.handleEnterOrder(EnterOrderRq.createUpdateOrderRq(id, "ABC", orderId, LocalDateTime.now(), side,
+                            Math.max(10, order.getTotalQuantity() + 10 * (random.nextInt(5) - 2)), order.getPrice() + random.nextInt(5) - 2,
+                            1, 1, order instanceof IcebergOrder iceberg ? iceberg.getPeakSize() : 0, 0));
+            } else {
+                Side side = id % 2 == 0 ? BUY : SELL;
+                int price = 1000 + (side == BUY ? -1 : 1) * (random.nextInt(20) - 4);
+                int quantity = 10 * (1 + random.nextInt(10));
+                int peakSize = random.nextDouble() < 0.2 && quantity > 10 ? 10 : 0;
+                int stopPrice = peakSize == 0 && !auction && random.nextDouble() < 0.05
+                        ? price + (side == BUY ? 2 : -2) : 0;
+                orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(id, "ABC", id, LocalDateTime.now(), side,
+                        quantity, price, 1, 1, peakSize, 0, stopPrice, false));
+                live.add(id);
+            }
+
+            if (random.nextInt(7) == 0) {
+                OrderBook orderBook = security.getOrderBook();
+                assertThat(orderBook.priceLevels(BUY)).isEqualTo(scan(orderBook.getBuyQueue(), BUY));
+                assertThat(orderBook.priceLevels(SELL)).isEqualTo(scan(orderBook.getSellQueue(), SELL));
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.ContinuousMatcher;
+import ir.ramtung.tinyme.domain.service.ObjectPool;
+import ir.ramtung.tinyme.domain.service.Recycler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecyclerTest {
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+    private Recycler recycler;
+    private ContinuousMatcher continuousMatcher;
+
+    @BeforeEach
+    void setup() {
+        security = Security.builder().isin("ABC").build();
+        broker = Broker.builder().brokerId(1).credit(100_000_000L).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, 100_000);
+        recycler = new Recycler(true, 16);
+        continuousMatcher = new ContinuousMatcher(recycler);
+        for (int i = 1; i <= 4; i++)
+            security.getOrderBook().enqueue(Order.builder().orderId(i).security(security).side(BUY).quantity(100).price(1000).
+                    broker(broker).shareholder(shareholder).build());
+    }
+
+    private Order sellOrder(long orderId, int quantity) {
+        return Order.builder().orderId(orderId).security(security).side(SELL).quantity(quantity).price(1000).
+                broker(broker).shareholder(shareholder).build();
+    }
+
+    @Test
+    void pool_counts_hits_misses_and_drops() {
+        ObjectPool<Trade> pool = new ObjectPool<>(1, Trade::new);
+        Trade first = pool.acquire();
+        Trade second = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+        assertThat(pool.acquire()).isSameAs(first);
+        assertThat(pool.getMisses()).isEqualTo(2);
+        assertThat(pool.getHits()).isEqualTo(1);
+        assertThat(pool.getDrops()).isEqualTo(1);
+    }
+
+    @Test
+    void released_trades_and_results_are_reused_by_the_next_match() {
+        MatchResult result = continuousMatcher.match(sellOrder(10, 100));
+        assertThat(result.trades()).hasSize(1);
+        Trade firstTrade = result.trades().getFirst();
+        recycler.release(result);
+
+        MatchResult next = continuousMatcher.match(sellOrder(11, 100));
+
+        assertThat(next).isSameAs(result);
+        assertThat(next.outcome()).isEqualTo(MatchingOutcome.EXECUTED);
+        assertThat(next.trades()).hasSize(1);
+        assertThat(next.trades().getFirst()).isSameAs(firstTrade);
+        assertThat(next.trades().getFirst().getBuyOrderId()).isEqualTo(2);
+        assertThat(next.trades().getFirst().getSellOrderId()).isEqualTo(11);
+        assertThat(recycler.getTradePool().getHits()).isEqualTo(1);
+        assertThat(recycler.getMatchResultPool().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void disabled_recycler_never_pools() {
+        Recycler disabled = Recycler.disabled();
+        MatchResult result = new ContinuousMatcher(disabled).match(sellOrder(10, 100));
+        disabled.release(result);
+        assertThat(result.trades()).hasSize(1);
+        assertThat(disabled.getMatchResultPool().size()).isZero();
+    }
+}
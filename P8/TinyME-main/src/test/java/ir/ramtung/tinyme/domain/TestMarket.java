@@ -0,0 +1,59 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.Broker;
+import ir.ramtung.tinyme.domain.entity.Security;
+import ir.ramtung.tinyme.domain.entity.Shareholder;
+import ir.ramtung.tinyme.domain.service.OrderHandler;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+
+import java.util.function.Consumer;
+
+/**
+ * Repositories with broker 1 and shareholder 1, whose credit and positions are large enough that no order is rejected
+ * for them, and a publisher that hands the events and market data to the test.
+ */
+class TestMarket {
+    final SecurityRepository securityRepository = new SecurityRepository();
+    final BrokerRepository brokerRepository = new BrokerRepository();
+    final ShareholderRepository shareholderRepository = new ShareholderRepository();
+    final EventPublisher eventPublisher;
+    private final Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+
+    TestMarket(Consumer<Event> events, Consumer<Event> marketData) {
+        brokerRepository.addBroker(Broker.builder().brokerId(1).credit(Long.MAX_VALUE / 2).build());
+        shareholderRepository.addShareholder(shareholder);
+        eventPublisher = new EventPublisher(null) {
+            @Override
+            public void publish(Event event) {
+                events.accept(event);
+            }
+
+            @Override
+            public void publishMarketData(Event event) {
+                marketData.accept(event);
+            }
+        };
+    }
+
+    Security addSecurity(Security security) {
+        securityRepository.addSecurity(security);
+        shareholder.incPosition(security, Integer.MAX_VALUE / 2);
+        return security;
+    }
+
+    Security addSecurity(String isin) {
+        return addSecurity(Security.builder().isin(isin).lastTradePrice(1000).build());
+    }
+
+    OrderHandler.Builder orderHandler() {
+        return OrderHandler.builder()
+                .securityRepository(securityRepository)
+                .brokerRepository(brokerRepository)
+                .shareholderRepository(shareholderRepository)
+                .eventPublisher(eventPublisher);
+    }
+}
@@ -0,0 +1,90 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.messaging.event.BestBidOfferEvent;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.request.DeleteOrderRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopOfBookFeedTest {
+    private OrderHandler orderHandler;
+    private final List<BestBidOfferEvent> bboEvents = new ArrayList<>();
+    private final List<Event> orderEvents = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        TestMarket market = new TestMarket(orderEvents::add, event -> {
+            if (event instanceof BestBidOfferEvent bboEvent)
+                bboEvents.add(bboEvent);
+        });
+        market.addSecurity("ABC");
+        orderHandler = market.orderHandler().topOfBookFeed(new TopOfBookFeed(true)).build();
+    }
+
+    private void enter(long orderId, Side side, int quantity, int price) {
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(orderId, "ABC", orderId, LocalDateTime.now(), side,
+                quantity, price, 1, 1, 0, 0, 0, false));
+    }
+
+    private BestBidOfferEvent lastBbo() {
+        return bboEvents.get(bboEvents.size() - 1);
+    }
+
+    @Test
+    void bbo_is_published_when_the_top_changes() {
+        enter(1, BUY, 100, 990);
+        assertThat(lastBbo()).isEqualTo(new BestBidOfferEvent("ABC", 990, 100, 1, 0, 0, 0, 1000));
+
+        enter(2, SELL, 50, 1010);
+        assertThat(lastBbo()).isEqualTo(new BestBidOfferEvent("ABC", 990, 100, 1, 1010, 50, 1, 1000));
+
+        enter(3, BUY, 20, 990);
+        assertThat(lastBbo()).isEqualTo(new BestBidOfferEvent("ABC", 990, 120, 2, 1010, 50, 1, 1000));
+        assertThat(bboEvents).hasSize(3);
+    }
+
+    @Test
+    void changes_below_the_top_publish_nothing() {
+        enter(1, BUY, 100, 990);
+        enter(2, SELL, 50, 1010);
+        int published = bboEvents.size();
+
+        enter(3, BUY, 100, 980);
+        enter(4, SELL, 100, 1020);
+        orderHandler.handleDeleteOrder(new DeleteOrderRq(5, "ABC", BUY, 3));
+
+        assertThat(bboEvents).hasSize(published);
+    }
+
+    @Test
+    void a_sweep_publishes_one_bbo_with_the_last_trade() {
+        enter(1, SELL, 10, 1000);
+        enter(2, SELL, 10, 1010);
+        enter(3, SELL, 10, 1020);
+        int published = bboEvents.size();
+
+        enter(4, BUY, 25, 1020);
+
+        assertThat(bboEvents).hasSize(published + 1);
+        assertThat(lastBbo()).isEqualTo(new BestBidOfferEvent("ABC", 0, 0, 0, 1020, 5, 1, 1020));
+    }
+
+    @Test
+    void bbo_goes_to_the_market_data_destination_only() {
+        enter(1, BUY, 100, 990);
+
+        assertThat(bboEvents).hasSize(1);
+        assertThat(orderEvents).noneMatch(event -> event instanceof BestBidOfferEvent);
+    }
+}
@@ -0,0 +1,113 @@
+package ir.ramtung.tinyme.domain;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.messaging.Message;
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.event.RecentTradesEvent;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import ir.ramtung.tinyme.messaging.request.RecentTradesRq;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TradeTapeTest {
+    private Security security;
+    private OrderHandler orderHandler;
+    private TradeQueryHandler tradeQueryHandler;
+    private final List<Event> events = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        TestMarket market = new TestMarket(events::add, event -> {});
+        security = market.addSecurity(Security.builder().isin("ABC").lastTradePrice(1000).tradeTape(new TradeTape(4)).build());
+        orderHandler = market.orderHandler().build();
+        tradeQueryHandler = new TradeQueryHandler(market.securityRepository, market.eventPublisher);
+    }
+
+    private void enter(long orderId, Side side, int quantity, int price) {
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(orderId, "ABC", orderId, LocalDateTime.now(), side,
+                quantity, price, 1, 1, 0, 0));
+    }
+
+    private RecentTradesEvent query(int count) {
+        tradeQueryHandler.handleRecentTradesRq(new RecentTradesRq(99, "ABC", count));
+        return (RecentTradesEvent) events.get(events.size() - 1);
+    }
+
+    @Test
+    void continuous_and_auction_trades_are_taped_newest_first() {
+        enter(1, SELL, 10, 1000);
+        enter(2, BUY, 10, 1000);
+        enter(5, BUY, 5, 900);
+        enter(6, SELL, 5, 1100);
+        orderHandler.handleChangeMatchingState(new ChangeMatchingStateRq("ABC", MatchingState.AUCTION));
+        enter(3, SELL, 20, 1010);
+        enter(4, BUY, 20, 1020);
+        orderHandler.handleChangeMatchingState(new ChangeMatchingStateRq("ABC", MatchingState.CONTINUOUS));
+
+        List<TapedTrade> trades = query(10).getTrades();
+        assertThat(trades).hasSize(2);
+        assertThat(trades.get(0).sequence()).isEqualTo(2);
+        assertThat(trades.get(0).price()).isEqualTo(1010);
+        assertThat(trades.get(0).quantity()).isEqualTo(20);
+        assertThat(trades.get(1).buyOrderId()).isEqualTo(2);
+        assertThat(trades.get(1).sellOrderId()).isEqualTo(1);
+    }
+
+    @Test
+    void tape_keeps_only_the_last_capacity_trades() {
+        for (int i = 0; i < 6; i++) {
+            enter(10 + 2 * i, SELL, 10, 1000 + i);
+            enter(11 + 2 * i, BUY, 10, 1000 + i);
+        }
+
+        List<TapedTrade> trades = query(10).getTrades();
+        assertThat(trades).hasSize(4);
+        assertThat(trades.get(0).price()).isEqualTo(1005);
+        assertThat(trades.get(3).price()).isEqualTo(1002);
+        assertThat(query(2).getTrades()).hasSize(2);
+    }
+
+    @Test
+    void invalid_queries_are_rejected() {
+        tradeQueryHandler.handleRecentTradesRq(new RecentTradesRq(7, "XYZ", 0));
+
+        assertThat(events.get(events.size() - 1)).isEqualTo(new OrderRejectedEvent(7, 0,
+                List.of(Message.UNKNOWN_SECURITY_ISIN, Message.INVALID_TRADE_COUNT)));
+    }
+
+    @Test
+    void readers_never_see_a_slot_being_overwritten() throws Exception {
+        TradeTape tape = new TradeTape(8);
+        Order buy = Order.builder().orderId(1).security(security).side(BUY).quantity(1).price(1).build();
+        Order sell = Order.builder().orderId(2).security(security).side(SELL).quantity(1).price(1).build();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (tape.getWritten() < 200_000 && failure.get() == null) {
+                for (TapedTrade trade : tape.recent(8)) {
+                    if (trade.price() != trade.sequence() || trade.quantity() != trade.sequence() || trade.timeMillis() != trade.sequence())
+                        failure.set("torn " + trade);
+                }
+            }
+        });
+        reader.start();
+        Trade trade = new Trade();
+        for (int i = 1; i <= 200_000; i++)
+            tape.record(trade.reset(security, i, i, buy, sell), i);
+        reader.join();
+
+        assertThat(failure.get()).isNull();
+    }
+}
@@ -0,0 +1,91 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.messaging.event.OrderAcceptedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventPublisherRetransmitTest {
+    private static final String RETRANSMITTER = "retransmitter";
+
+    @Test
+    void long_retransmit_does_not_stall_live_publication() throws Exception {
+        CountDownLatch retransmitting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> sentBy = new CopyOnWriteArrayList<>();
+        JmsTemplate jmsTemplate = new JmsTemplate() {
+            @Override
+            public void send(String destinationName, MessageCreator messageCreator) {
+                sentBy.add(Thread.currentThread().getName());
+                if (Thread.currentThread().getName().equals(RETRANSMITTER)) {
+                    retransmitting.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        EventPublisher eventPublisher = new EventPublisher(jmsTemplate, 16);
+        for (long orderId = 1; orderId <= 3; orderId++)
+            eventPublisher.publish(new OrderAcceptedEvent(orderId, orderId));
+
+        Thread retransmitter = new Thread(() -> eventPublisher.retransmit(EventStream.RESPONSE, 1, 3), RETRANSMITTER);
+        retransmitter.start();
+        assertThat(retransmitting.await(5, TimeUnit.SECONDS)).isTrue();
+
+        ExecutorService publisher = Executors.newSingleThreadExecutor();
+        try {
+            publisher.submit(() -> eventPublisher.publish(new OrderAcceptedEvent(4, 4))).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            publisher.shutdown();
+        }
+        retransmitter.join();
+
+        assertThat(eventPublisher.getLastSequence(EventStream.RESPONSE)).isEqualTo(4);
+        assertThat(sentBy.stream().filter(RETRANSMITTER::equals).count()).isEqualTo(3);
+        assertThat(sentBy).hasSize(7);
+    }
+
+    @Test
+    void live_events_from_concurrent_publishers_are_sent_in_sequence_order() throws Exception {
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        EventPublisher[] eventPublisher = new EventPublisher[1];
+        JmsTemplate jmsTemplate = new JmsTemplate() {
+            @Override
+            public void send(String destinationName, MessageCreator messageCreator) {
+                long sequence = eventPublisher[0].getLastSequence(EventStream.RESPONSE);
+                Thread.yield();
+                sent.add(sequence);
+            }
+        };
+        eventPublisher[0] = new EventPublisher(jmsTemplate, 16);
+
+        ExecutorService publishers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(publishers.submit(() -> {
+                    for (long orderId = 1; orderId <= 1_000; orderId++)
+                        eventPublisher[0].publish(new OrderAcceptedEvent(orderId, orderId));
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            publishers.shutdown();
+        }
+
+        assertThat(sent).hasSize(4_000);
+        for (int i = 0; i < sent.size(); i++)
+            assertThat(sent.get(i)).isEqualTo(i + 1L);
+    }
+}
@@ -0,0 +1,60 @@
+package ir.ramtung.tinyme.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventRingTest {
+    private static EventRing ringWith(int capacity, int events) {
+        EventRing ring = new EventRing(capacity);
+        for (long sequence = 1; sequence <= events; sequence++)
+            ring.add(sequence, "T", "e" + sequence);
+        return ring;
+    }
+
+    @Test
+    void ring_keeps_the_last_events_up_to_its_rounded_up_capacity() {
+        EventRing ring = ringWith(3, 10);
+
+        assertThat(ring.capacity()).isEqualTo(4);
+        assertThat(ring.firstSequence()).isEqualTo(7);
+        assertThat(ring.lastSequence()).isEqualTo(10);
+        assertThat(ring.contains(7, 10)).isTrue();
+        assertThat(ring.contains(6, 10)).isFalse();
+        assertThat(ring.contains(8, 11)).isFalse();
+    }
+
+    @Test
+    void frames_are_served_in_sequence_order() {
+        EventRing ring = ringWith(4, 10);
+        List<String> payloads = new ArrayList<>();
+        List<Long> sequences = new ArrayList<>();
+
+        ring.forEach(8, 10, (sequence, type, payload) -> {
+            sequences.add(sequence);
+            payloads.add(payload);
+        });
+
+        assertThat(sequences).containsExactly(8L, 9L, 10L);
+        assertThat(payloads).containsExactly("e8", "e9", "e10");
+    }
+
+    @Test
+    void ring_before_wrapping_starts_at_the_first_sequence() {
+        EventRing ring = ringWith(16, 5);
+
+        assertThat(ring.firstSequence()).isEqualTo(1);
+        assertThat(ring.contains(1, 5)).isTrue();
+    }
+
+    @Test
+    void disabled_ring_retains_nothing() {
+        EventRing ring = ringWith(0, 5);
+
+        assertThat(ring.isEnabled()).isFalse();
+        assertThat(ring.contains(5, 5)).isFalse();
+    }
+}
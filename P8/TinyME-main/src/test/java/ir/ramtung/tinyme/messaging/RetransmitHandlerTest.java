@@ -0,0 +1,73 @@
+package ir.ramtung.tinyme.messaging;
+
+import ir.ramtung.tinyme.messaging.event.Event;
+import ir.ramtung.tinyme.messaging.event.OrderRejectedEvent;
+import ir.ramtung.tinyme.messaging.event.RetransmitEvent;
+import ir.ramtung.tinyme.messaging.request.RetransmitRq;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetransmitHandlerTest {
+    private final List<Event> published = new ArrayList<>();
+    private final List<List<Long>> retransmitted = new ArrayList<>();
+    private RetransmitHandler retransmitHandler;
+
+    @BeforeEach
+    void setup() {
+        EventPublisher eventPublisher = new EventPublisher(null) {
+            @Override
+            public void publish(Event event) {
+                published.add(event);
+            }
+
+            @Override
+            public long getLastSequence(EventStream stream) {
+                return 100;
+            }
+
+            @Override
+            public boolean retransmit(EventStream stream, long fromSequence, long toSequence) {
+                if (fromSequence < 50)
+                    return false;
+                retransmitted.add(List.of(fromSequence, toSequence));
+                return true;
+            }
+        };
+        retransmitHandler = new RetransmitHandler(eventPublisher);
+    }
+
+    @Test
+    void retained_range_is_retransmitted_and_acknowledged() {
+        retransmitHandler.handleRetransmitRq(new RetransmitRq(1, EventStream.MARKET_DATA, 60, 70));
+
+        assertThat(retransmitted).containsExactly(List.of(60L, 70L));
+        assertThat(published).containsExactly(new RetransmitEvent(1, EventStream.MARKET_DATA, 60, 70));
+    }
+
+    @Test
+    void range_beyond_the_last_sequence_is_rejected() {
+        retransmitHandler.handleRetransmitRq(new RetransmitRq(1, EventStream.RESPONSE, 90, 101));
+
+        assertThat(retransmitted).isEmpty();
+        assertThat(published).containsExactly(new OrderRejectedEvent(1, 0, List.of(Message.INVALID_SEQUENCE_RANGE)));
+    }
+
+    @Test
+    void range_that_left_the_ring_is_rejected() {
+        retransmitHandler.handleRetransmitRq(new RetransmitRq(1, EventStream.RESPONSE, 10, 60));
+
+        assertThat(published).containsExactly(new OrderRejectedEvent(1, 0, List.of(Message.EVENTS_NO_LONGER_RETAINED)));
+    }
+
+    @Test
+    void missing_stream_is_rejected() {
+        retransmitHandler.handleRetransmitRq(new RetransmitRq(1, null, 1, 2));
+
+        assertThat(published).containsExactly(new OrderRejectedEvent(1, 0, List.of(Message.UNKNOWN_EVENT_STREAM)));
+    }
+}
@@ -0,0 +1,155 @@
+package ir.ramtung.tinyme.messaging.fanout;
+
+import ir.ramtung.tinyme.messaging.event.BestBidOfferEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MarketDataServerTest {
+    private static final String LARGE_PAYLOAD = "x".repeat(64 * 1024);
+
+    private MarketDataServer server;
+    private final List<Socket> sockets = new ArrayList<>();
+
+    private void startServer(int subscriberFrames, SlowSubscriberPolicy policy) {
+        server = new MarketDataServer(true, 0, subscriberFrames, policy);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Socket socket : sockets)
+            socket.close();
+        if (server != null)
+            server.close();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++)
+            Thread.sleep(10);
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private Socket subscribe() throws Exception {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress("localhost", server.getPort()));
+        socket.setSoTimeout(5000);
+        sockets.add(socket);
+        int subscribers = sockets.size();
+        await(() -> server.getSubscriberCount() == subscribers);
+        return socket;
+    }
+
+    private static MarketDataFrame read(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        int length = in.readInt();
+        long sequence = in.readLong();
+        byte[] type = new byte[in.readShort()];
+        in.readFully(type);
+        byte[] payload = new byte[length - Long.BYTES - Short.BYTES - type.length];
+        in.readFully(payload);
+        return new MarketDataFrame(sequence, new String(type, StandardCharsets.UTF_8), new String(payload, StandardCharsets.UTF_8));
+    }
+
+    private static BestBidOfferEvent bbo(int bidPrice) {
+        return bbo("ABC", bidPrice);
+    }
+
+    private static BestBidOfferEvent bbo(String isin, int bidPrice) {
+        return new BestBidOfferEvent(isin, bidPrice, 10, 1, 2000, 10, 1, 1000);
+    }
+
+    @Test
+    void every_subscriber_receives_the_same_frames_in_order() throws Exception {
+        startServer(16, SlowSubscriberPolicy.CONFLATE);
+        Socket first = subscribe();
+        Socket second = subscribe();
+
+        for (long sequence = 1; sequence <= 3; sequence++)
+            server.publish(sequence, "T", "{\"n\":" + sequence + "}", null);
+
+        for (Socket socket : List.of(first, second)) {
+            assertThat(read(socket)).isEqualTo(new MarketDataFrame(1, "T", "{\"n\":1}"));
+            assertThat(read(socket)).isEqualTo(new MarketDataFrame(2, "T", "{\"n\":2}"));
+            assertThat(read(socket)).isEqualTo(new MarketDataFrame(3, "T", "{\"n\":3}"));
+        }
+    }
+
+    @Test
+    void slow_subscriber_gets_conflated_best_bid_offer_ending_with_the_latest() throws Exception {
+        startServer(8, SlowSubscriberPolicy.CONFLATE);
+        Socket slow = subscribe();
+
+        for (int sequence = 1; sequence <= 500; sequence++)
+            server.publish(sequence, "BBO", LARGE_PAYLOAD, bbo(sequence));
+
+        assertThat(server.getDroppedFrames()).isGreaterThan(0);
+        long last = 0;
+        int received = 0;
+        while (last < 500) {
+            MarketDataFrame frame = read(slow);
+            assertThat(frame.sequence()).isGreaterThan(last);
+            last = frame.sequence();
+            received++;
+        }
+        assertThat(received).isLessThan(500);
+    }
+
+    @Test
+    void best_bid_offer_is_conflated_per_security() throws Exception {
+        startServer(8, SlowSubscriberPolicy.CONFLATE);
+        Socket slow = subscribe();
+
+        for (int sequence = 1; sequence <= 500; sequence++)
+            server.publish(sequence, "BBO", LARGE_PAYLOAD, bbo(sequence % 2 == 0 ? "ABC" : "XYZ", sequence));
+
+        List<Long> received = new ArrayList<>();
+        while (received.isEmpty() || received.get(received.size() - 1) < 500)
+            received.add(read(slow).sequence());
+        assertThat(received).contains(499L);
+        assertThat(received.size()).isLessThan(500);
+    }
+
+    @Test
+    void overflowing_subscriber_is_disconnected_under_the_disconnect_policy() throws Exception {
+        startServer(4, SlowSubscriberPolicy.DISCONNECT);
+        subscribe();
+
+        for (int sequence = 1; sequence <= 500; sequence++)
+            server.publish(sequence, "T", LARGE_PAYLOAD, null);
+
+        await(() -> server.getSubscriberCount() == 0);
+    }
+
+    @Test
+    void frames_round_trip_through_the_encoder() {
+        MarketDataFrame.Encoder encoder = new MarketDataFrame.Encoder();
+        assertThat(MarketDataFrame.read(encoder.encode(7, "Type", "{\"p\":\"\u00e9\"}"))).isEqualTo(new MarketDataFrame(7, "Type", "{\"p\":\"\u00e9\"}"));
+        assertThat(MarketDataFrame.read(encoder.encode(8, "Type", "{}").limit(10))).isNull();
+    }
+
+    @Test
+    void encoded_frames_stay_intact_when_the_arena_fills_up() {
+        MarketDataFrame.Encoder encoder = new MarketDataFrame.Encoder(64);
+        List<ByteBuffer> frames = new ArrayList<>();
+        for (long sequence = 1; sequence <= 10; sequence++)
+            frames.add(encoder.encode(sequence, "T", "{\"n\":" + sequence + "}"));
+        ByteBuffer large = encoder.encode(11, "T", LARGE_PAYLOAD);
+
+        for (int i = 0; i < frames.size(); i++)
+            assertThat(MarketDataFrame.read(frames.get(i).duplicate())).isEqualTo(new MarketDataFrame(i + 1, "T", "{\"n\":" + (i + 1) + "}"));
+        assertThat(MarketDataFrame.read(large)).isEqualTo(new MarketDataFrame(11, "T", LARGE_PAYLOAD));
+        assertThat(large.isDirect()).isTrue();
+    }
+}
@@ -0,0 +1,116 @@
+package ir.ramtung.tinyme.monitoring;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class EngineMonitorTest {
+    private Security security;
+    private Broker broker;
+    private Shareholder shareholder;
+    private EngineMonitor engineMonitor;
+    private OrderHandler orderHandler;
+
+    @BeforeEach
+    void setup() {
+        SecurityRepository securityRepository = new SecurityRepository();
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        security = Security.builder().isin("ABC").lastTradePrice(1000).build();
+        broker = Broker.builder().brokerId(1).credit(100_000_000L).build();
+        shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, 100_000);
+        securityRepository.addSecurity(security);
+        brokerRepository.addBroker(broker);
+        shareholderRepository.addShareholder(shareholder);
+        EventPublisher eventPublisher = mock(EventPublisher.class);
+        engineMonitor = new EngineMonitor(true, eventPublisher, LatencyRecorder.disabled(), null, "RQ");
+        orderHandler = OrderHandler.builder()
+                .securityRepository(securityRepository)
+                .brokerRepository(brokerRepository)
+                .shareholderRepository(shareholderRepository)
+                .eventPublisher(eventPublisher)
+                .engineMonitor(engineMonitor)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engineMonitor.close();
+    }
+
+    private void enter(long orderId, Side side, int quantity, int price, int stopPrice) {
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(orderId, "ABC", orderId, LocalDateTime.now(), side,
+                quantity, price, 1, 1, 0, 0, stopPrice, false));
+    }
+
+    @Test
+    void snapshot_reflects_the_book_after_each_request() {
+        enter(1, BUY, 100, 990, 0);
+        enter(2, SELL, 100, 1010, 0);
+        enter(3, SELL, 50, 1020, 0);
+        enter(4, BUY, 10, 1100, 1050);
+
+        SecuritySnapshot snapshot = engineMonitor.snapshot("ABC");
+        assertThat(snapshot.matchingState()).isEqualTo(MatchingState.CONTINUOUS);
+        assertThat(snapshot.buyDepth()).isEqualTo(1);
+        assertThat(snapshot.sellDepth()).isEqualTo(2);
+        assertThat(snapshot.inactiveBuyDepth()).isEqualTo(1);
+        assertThat(snapshot.bestBid()).isEqualTo(990);
+        assertThat(snapshot.bestAsk()).isEqualTo(1010);
+        assertThat(snapshot.lastTradePrice()).isEqualTo(1000);
+        assertThat(engineMonitor.getRequestsHandled()).isEqualTo(4);
+        assertThat(engineMonitor.getSecurityCount()).isEqualTo(1);
+    }
+
+    @Test
+    void snapshot_tracks_indicative_opening_price_during_auction() {
+        enter(1, SELL, 100, 1000, 0);
+        orderHandler.handleChangeMatchingState(new ChangeMatchingStateRq("ABC", MatchingState.AUCTION));
+        enter(2, BUY, 100, 1010, 0);
+
+        SecuritySnapshot snapshot = engineMonitor.snapshot("ABC");
+        assertThat(snapshot.matchingState()).isEqualTo(MatchingState.AUCTION);
+        assertThat(snapshot.indicativeOpeningPrice()).isEqualTo(1000);
+
+        orderHandler.handleChangeMatchingState(new ChangeMatchingStateRq("ABC", MatchingState.CONTINUOUS));
+        snapshot = engineMonitor.snapshot("ABC");
+        assertThat(snapshot.indicativeOpeningPrice()).isZero();
+        assertThat(snapshot.lastTradePrice()).isEqualTo(1000);
+    }
+
+    @Test
+    void engine_and_securities_are_exposed_as_mbeans() throws Exception {
+        enter(1, BUY, 100, 990, 0);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        ObjectName securityName = new ObjectName(EngineMonitor.DOMAIN + ":type=Security,isin=" + ObjectName.quote("ABC"));
+        assertThat(server.getAttribute(securityName, "BuyDepth")).isEqualTo(1);
+        assertThat(server.getAttribute(securityName, "BestBid")).isEqualTo(990);
+        ObjectName engineName = new ObjectName(EngineMonitor.DOMAIN + ":type=Engine");
+        assertThat(server.getAttribute(engineName, "RequestsHandled")).isEqualTo(1L);
+
+        engineMonitor.close();
+        assertThat(server.isRegistered(securityName)).isFalse();
+        assertThat(server.isRegistered(engineName)).isFalse();
+    }
+}
@@ -0,0 +1,159 @@
+package ir.ramtung.tinyme.monitoring.jfr;
+
+import ir.ramtung.tinyme.domain.entity.*;
+import ir.ramtung.tinyme.domain.service.*;
+import ir.ramtung.tinyme.messaging.EventPublisher;
+import ir.ramtung.tinyme.messaging.request.ChangeMatchingStateRq;
+import ir.ramtung.tinyme.messaging.request.EnterOrderRq;
+import ir.ramtung.tinyme.messaging.request.MatchingState;
+import ir.ramtung.tinyme.repository.BrokerRepository;
+import ir.ramtung.tinyme.repository.SecurityRepository;
+import ir.ramtung.tinyme.repository.ShareholderRepository;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static ir.ramtung.tinyme.domain.entity.Side.BUY;
+import static ir.ramtung.tinyme.domain.entity.Side.SELL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class JfrEventsTest {
+    private Broker broker;
+    private Broker sellerBroker;
+    private OrderHandler orderHandler;
+    private Recording recording;
+
+    @BeforeEach
+    void setup() {
+        SecurityRepository securityRepository = new SecurityRepository();
+        BrokerRepository brokerRepository = new BrokerRepository();
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        Security security = Security.builder().isin("ABC").lastTradePrice(1000).build();
+        broker = Broker.builder().brokerId(1).credit(100_000_000L).build();
+        sellerBroker = Broker.builder().brokerId(2).credit(100_000_000L).build();
+        Shareholder shareholder = Shareholder.builder().shareholderId(1).build();
+        shareholder.incPosition(security, 100_000);
+        securityRepository.addSecurity(security);
+        brokerRepository.addBroker(broker);
+        brokerRepository.addBroker(sellerBroker);
+        shareholderRepository.addShareholder(shareholder);
+        orderHandler = OrderHandler.builder()
+                .securityRepository(securityRepository)
+                .brokerRepository(brokerRepository)
+                .shareholderRepository(shareholderRepository)
+                .eventPublisher(mock(EventPublisher.class))
+                .build();
+
+        recording = new Recording();
+        for (String name : List.of("OrderEntry", "MatchSweep", "Rollback", "StopActivation", "OpeningPriceCalculation", "AuctionUncross"))
+            recording.enable("ir.ramtung.tinyme." + name).withoutThreshold();
+        recording.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recording.close();
+    }
+
+    private void enter(long orderId, Side side, int quantity, int price, int stopPrice) {
+        long brokerId = side == BUY ? broker.getBrokerId() : sellerBroker.getBrokerId();
+        orderHandler.handleEnterOrder(EnterOrderRq.createNewOrderRq(orderId, "ABC", orderId, LocalDateTime.now(), side,
+                quantity, price, brokerId, 1, 0, 0, stopPrice, false));
+    }
+
+    private List<RecordedEvent> recorded(String name) throws Exception {
+        if (recording.getState() == RecordingState.RUNNING)
+            recording.stop();
+        Path file = Files.createTempFile("tinyme", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("ir.ramtung.tinyme." + name))
+                    .toList();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void sweep_across_levels_is_recorded_with_its_order_entry() throws Exception {
+        enter(1, SELL, 100, 1000, 0);
+        enter(2, SELL, 100, 1010, 0);
+        enter(3, BUY, 150, 1010, 0);
+
+        List<RecordedEvent> sweeps = recorded("MatchSweep");
+        assertThat(sweeps).hasSize(3);
+        RecordedEvent sweep = sweeps.get(2);
+        assertThat(sweep.getLong("orderId")).isEqualTo(3);
+        assertThat(sweep.getInt("levels")).isEqualTo(2);
+        assertThat(sweep.getInt("trades")).isEqualTo(2);
+        assertThat(sweep.getInt("tradedQuantity")).isEqualTo(150);
+        assertThat(sweep.getString("outcome")).isEqualTo("EXECUTED");
+    }
+
+    @Test
+    void order_entry_outcomes_are_recorded() throws Exception {
+        enter(1, SELL, 100, 1000, 0);
+        enter(2, SELL, 0, 1000, 0);
+
+        List<RecordedEvent> entries = recorded("OrderEntry");
+        assertThat(entries).hasSize(2);
+        assertThat(entries.get(0).getString("outcome")).isEqualTo("EXECUTED");
+        assertThat(entries.get(0).getString("requestType")).isEqualTo("NEW_ORDER");
+        assertThat(entries.get(1).getString("outcome")).isEqualTo("REJECTED");
+    }
+
+    @Test
+    void credit_failure_records_a_rollback() throws Exception {
+        enter(1, SELL, 100, 1000, 0);
+        enter(2, SELL, 100, 1010, 0);
+        broker.decreaseCreditBy(broker.getCredit() - 150_000);
+        enter(3, BUY, 200, 1010, 0);
+
+        List<RecordedEvent> rollbacks = recorded("Rollback");
+        assertThat(rollbacks).hasSize(1);
+        assertThat(rollbacks.get(0).getLong("orderId")).isEqualTo(3);
+        assertThat(rollbacks.get(0).getInt("trades")).isEqualTo(1);
+        assertThat(rollbacks.get(0).getInt("quantity")).isEqualTo(100);
+    }
+
+    @Test
+    void stop_activation_cascade_is_recorded() throws Exception {
+        enter(1, SELL, 100, 1000, 0);
+        enter(2, SELL, 100, 1010, 0);
+        enter(3, BUY, 50, 1010, 1005);
+        enter(4, BUY, 150, 1010, 0);
+
+        List<RecordedEvent> activations = recorded("StopActivation");
+        assertThat(activations).hasSize(1);
+        assertThat(activations.get(0).getInt("executed")).isEqualTo(1);
+        assertThat(activations.get(0).getInt("backlog")).isZero();
+    }
+
+    @Test
+    void auction_opening_price_and_uncross_are_recorded() throws Exception {
+        enter(1, SELL, 100, 1000, 0);
+        orderHandler.handleChangeMatchingState(new ChangeMatchingStateRq("ABC", MatchingState.AUCTION));
+        enter(2, BUY, 60, 1010, 0);
+        orderHandler.handleChangeMatchingState(new ChangeMatchingStateRq("ABC", MatchingState.CONTINUOUS));
+
+        List<RecordedEvent> calculations = recorded("OpeningPriceCalculation");
+        assertThat(calculations).hasSize(1);
+        assertThat(calculations.get(0).getInt("openingPrice")).isEqualTo(1000);
+        assertThat(calculations.get(0).getInt("tradableQuantity")).isEqualTo(60);
+        List<RecordedEvent> uncrosses = recorded("AuctionUncross");
+        assertThat(uncrosses).hasSize(1);
+        assertThat(uncrosses.get(0).getInt("trades")).isEqualTo(1);
+        assertThat(uncrosses.get(0).getInt("buyOrders")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,44 @@
+package ir.ramtung.tinyme.repository;
+
+import ir.ramtung.tinyme.domain.entity.Broker;
+import ir.ramtung.tinyme.domain.entity.Shareholder;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepositoryTest {
+    @Test
+    void brokers_are_found_by_id() {
+        BrokerRepository brokerRepository = new BrokerRepository();
+        Broker first = Broker.builder().brokerId(1000).build();
+        Broker second = Broker.builder().brokerId(7).build();
+        brokerRepository.addBroker(first);
+        brokerRepository.addBroker(second);
+        assertThat(brokerRepository.findBrokerById(7)).isSameAs(second);
+        assertThat(brokerRepository.findBrokerById(1000)).isSameAs(first);
+        assertThat(brokerRepository.findBrokerById(8)).isNull();
+    }
+
+    @Test
+    void adding_an_existing_id_replaces_the_entity() {
+        ShareholderRepository shareholderRepository = new ShareholderRepository();
+        shareholderRepository.addShareholder(Shareholder.builder().shareholderId(1).build());
+        shareholderRepository.addShareholder(Shareholder.builder().shareholderId(2).build());
+        Shareholder replacement = Shareholder.builder().shareholderId(1).build();
+        shareholderRepository.addShareholder(replacement);
+        assertThat(shareholderRepository.findShareholderById(1)).isSameAs(replacement);
+        assertThat(shareholderRepository.allShareholders()).hasSize(2);
+    }
+
+    @Test
+    void long_int_map_survives_resizing() {
+        LongIntMap map = new LongIntMap(4);
+        for (int i = 0; i < 1000; i++)
+            map.put(i * 31L - 500, i);
+        for (int i = 0; i < 1000; i++)
+            assertThat(map.get(i * 31L - 500)).isEqualTo(i);
+        assertThat(map.get(1)).isEqualTo(LongIntMap.MISSING);
+        map.clear();
+        assertThat(map.get(-500)).isEqualTo(LongIntMap.MISSING);
+    }
+}